@@ -0,0 +1,107 @@
+package com.vividsolutions.jcs.algorithm;
+
+/**
+ * Computes the discrete Frechet distance between two point sequences,
+ * restricted to the couplings which stay within a band around the diagonal
+ * (points at similar relative positions along the two lines).
+ * The band keeps the cost at O(n * band) instead of O(n * m), and rows are
+ * computed one at a time, so the computation is abandoned as soon as a row
+ * has no coupling under the maximum distance.
+ * <p>
+ * The sequences are usually obtained with {@link SegmentIndex#densify(double, int)},
+ * so that the discrete distance is close to the continuous one.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class BandedFrechetDistance {
+
+    private BandedFrechetDistance() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * Computes the distance for both orientations of the second sequence and
+     * returns the smallest one, the direction of OSM ways being mostly arbitrary.
+     * @param p the interleaved x and y coordinates of the first sequence
+     * @param q the interleaved x and y coordinates of the second sequence
+     * @param band the half width of the band, as a fraction of the sequence length
+     * @param maxDistance the distance above which the exact result is not needed, or
+     * {@link Double#POSITIVE_INFINITY}
+     * @return the distance, or {@link Double#POSITIVE_INFINITY} if it is greater than maxDistance
+     */
+    public static double distanceAnyOrientation(double[] p, double[] q, double band, double maxDistance) {
+        double forward = distance(p, q, false, band, maxDistance);
+        return Math.min(forward, distance(p, q, true, band, Math.min(forward, maxDistance)));
+    }
+
+    /**
+     * @param p the interleaved x and y coordinates of the first sequence
+     * @param q the interleaved x and y coordinates of the second sequence
+     * @param reverse if true, the second sequence is walked from its end
+     * @param band the half width of the band, as a fraction of the sequence length
+     * @param maxDistance the distance above which the exact result is not needed, or
+     * {@link Double#POSITIVE_INFINITY}
+     * @return the distance, or {@link Double#POSITIVE_INFINITY} if it is greater than maxDistance
+     */
+    public static double distance(double[] p, double[] q, boolean reverse, double band, double maxDistance) {
+        int n = p.length / 2;
+        int m = q.length / 2;
+        if (n == 0 || m == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double maxSquared = maxDistance * maxDistance;
+        // The band must be wide enough for the diagonal to be a connected path
+        int width = (int) Math.max(Math.ceil(band * Math.max(n, m)), Math.ceil((double) m / n) + 1);
+        double[] previous = new double[m];
+        double[] current = new double[m];
+        int previousFrom = 0;
+        int previousTo = -1;
+        for (int i = 0; i < n; i++) {
+            int center = n == 1 ? 0 : (int) Math.round((double) i * (m - 1) / (n - 1));
+            int from = Math.max(0, center - width);
+            int to = Math.min(m - 1, center + width);
+            if (i == 0) {
+                from = 0;
+            }
+            if (i == n - 1) {
+                to = m - 1;
+            }
+            double rowMin = Double.POSITIVE_INFINITY;
+            for (int j = from; j <= to; j++) {
+                int k = reverse ? m - 1 - j : j;
+                double dx = p[2 * i] - q[2 * k];
+                double dy = p[2 * i + 1] - q[2 * k + 1];
+                double d = dx * dx + dy * dy;
+                double value;
+                if (d > maxSquared) {
+                    value = Double.POSITIVE_INFINITY;
+                } else if (i == 0 && j == 0) {
+                    value = d;
+                } else {
+                    double best = Double.POSITIVE_INFINITY;
+                    if (i > 0 && j >= previousFrom && j <= previousTo) {
+                        best = previous[j];
+                    }
+                    if (i > 0 && j > previousFrom && j - 1 <= previousTo) {
+                        best = Math.min(best, previous[j - 1]);
+                    }
+                    if (j > from) {
+                        best = Math.min(best, current[j - 1]);
+                    }
+                    value = Math.max(d, best);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin == Double.POSITIVE_INFINITY) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+            previousFrom = from;
+            previousTo = to;
+        }
+        return Math.sqrt(previous[m - 1]);
+    }
+}
@@ -0,0 +1,61 @@
+package com.vividsolutions.jcs.algorithm;
+
+/**
+ * Computes the length of a line which runs along another one: a piece of the
+ * line is counted when it is within a maximum distance of the other line, and
+ * when the nearest segment of the other line has about the same orientation.
+ * The orientation check keeps crossing or perpendicular lines (e.g. a road
+ * passing under a bridge) from being counted as overlapping.
+ * <p>
+ * Orientations are compared without taking the direction into account, the
+ * direction of OSM ways being mostly arbitrary.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class LineOverlap {
+
+    private LineOverlap() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * @param line the line whose overlapping length is computed
+     * @param other the line it is compared to
+     * @param maxDistance the maximum distance between overlapping pieces
+     * @param maxAngle the maximum angle (in radians, from 0 to pi/2) between overlapping pieces
+     * @param spacing the maximum length of the pieces tested one by one, or 0 to
+     * test whole segments
+     * @return the overlapping length, from 0 to the length of line
+     */
+    public static double overlapLength(SegmentIndex line, SegmentIndex other,
+            double maxDistance, double maxAngle, double spacing) {
+        double overlap = 0;
+        for (int s = 0; s < line.getSegmentCount(); s++) {
+            double length = line.getSegmentLength(s);
+            if (length == 0) {
+                continue;
+            }
+            double angle = line.getSegmentAngle(s);
+            int pieces = spacing > 0 ? Math.max(1, (int) Math.ceil(length / spacing)) : 1;
+            for (int i = 0; i < pieces; i++) {
+                double t = (i + 0.5) / pieces;
+                int nearest = other.nearestSegment(line.getSegmentX(s, t), line.getSegmentY(s, t), maxDistance);
+                if (nearest >= 0 && (other.getSegmentLength(nearest) == 0
+                        || angleDifference(angle, other.getSegmentAngle(nearest)) <= maxAngle)) {
+                    overlap += length / pieces;
+                }
+            }
+        }
+        return overlap;
+    }
+
+    /**
+     * @param a1 the first angle, in radians
+     * @param a2 the second angle, in radians
+     * @return the angle between the two (undirected) orientations, from 0 to pi/2
+     */
+    public static double angleDifference(double a1, double a2) {
+        double d = Math.abs(a1 - a2) % Math.PI;
+        return Math.min(d, Math.PI - d);
+    }
+}
@@ -0,0 +1,79 @@
+package com.vividsolutions.jcs.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Computes a partial Hausdorff distance between two geometries: for each
+ * geometry, the distances from points sampled along it to the other geometry
+ * are ranked, and the distance at the given fraction (e.g. 0.9) is kept
+ * instead of the maximum. The result is the largest of the two directed
+ * distances. Unlike the plain Hausdorff distance, a few outlying points (a
+ * spike, a short extra piece at an end) do not decide the result.
+ * <p>
+ * Points are sampled along the segments, not only at the vertices, and the
+ * distances are computed with a {@link SegmentIndex}, so long lines with
+ * thousands of vertices stay cheap. When a maximum distance is given, the
+ * computation is abandoned as soon as too many points are found farther than
+ * it.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class PartialHausdorffDistance {
+
+    private static final int MAX_SAMPLES = 4096;
+
+    private PartialHausdorffDistance() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * @param g0 the first geometry
+     * @param g1 the second geometry
+     * @param fraction the fraction of the sampled points (from 0 to 1) which must be
+     * within the returned distance. 1 gives the sampled Hausdorff distance.
+     * @param spacing the maximum distance between two sampled points
+     * @param maxDistance the distance above which the exact result is not needed, or
+     * {@link Double#POSITIVE_INFINITY}
+     * @return the partial Hausdorff distance, or {@link Double#POSITIVE_INFINITY} if
+     * it is greater than maxDistance
+     */
+    public static double distance(SegmentIndex g0, SegmentIndex g1,
+            double fraction, double spacing, double maxDistance) {
+        double d0 = directedDistance(g0, g1, fraction, spacing, maxDistance);
+        if (d0 > maxDistance) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(d0, directedDistance(g1, g0, fraction, spacing, maxDistance));
+    }
+
+    /**
+     * @param from the geometry along which the points are sampled
+     * @param to the geometry the distances are computed to
+     * @param fraction see {@link #distance(SegmentIndex, SegmentIndex, double, double, double)}
+     * @param spacing the maximum distance between two sampled points
+     * @param maxDistance the distance above which the exact result is not needed
+     * @return the directed partial Hausdorff distance, or {@link Double#POSITIVE_INFINITY}
+     * if it is greater than maxDistance
+     */
+    public static double directedDistance(SegmentIndex from, SegmentIndex to,
+            double fraction, double spacing, double maxDistance) {
+        double[] points = from.densify(spacing, MAX_SAMPLES);
+        int count = points.length / 2;
+        if (count == 0 || to.getSegmentCount() == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // Rank of the kept distance, and number of points allowed to be farther
+        int rank = Math.max(0, Math.min(count - 1, (int) Math.ceil(fraction * count) - 1));
+        int allowedOutliers = count - 1 - rank;
+        double[] distances = new double[count];
+        int outliers = 0;
+        for (int i = 0; i < count; i++) {
+            distances[i] = to.distance(points[2 * i], points[2 * i + 1], maxDistance);
+            if (distances[i] > maxDistance && ++outliers > allowedOutliers) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        Arrays.sort(distances);
+        return distances[rank];
+    }
+}
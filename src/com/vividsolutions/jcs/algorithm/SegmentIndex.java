@@ -0,0 +1,299 @@
+package com.vividsolutions.jcs.algorithm;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.util.LinearComponentExtracter;
+import org.locationtech.jts.index.strtree.ItemBoundable;
+import org.locationtech.jts.index.strtree.ItemDistance;
+import org.locationtech.jts.index.strtree.STRtree;
+
+/**
+ * The segments of the linear components of a Geometry (lines, and polygon
+ * rings), stored in flat coordinate arrays and indexed in an STRtree, to
+ * compute point to line distances on long lines without scanning all their
+ * segments.
+ * <p>
+ * Building the index is linear in the number of vertices, and a feature is
+ * usually compared to several candidates, so the matchers keep the last
+ * indexes they built in a small {@link Cache}.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class SegmentIndex {
+
+    private final double[] xs;
+    private final double[] ys;
+    /** Start vertex of each part in xs/ys, plus a final end marker. */
+    private final int[] partStarts;
+    /** Start vertex of each segment, its end vertex is the next one. */
+    private final int[] segments;
+    private final double length;
+    private STRtree tree;
+
+    /**
+     * Builds the index of the given geometry. Prefer {@link Cache#get(Geometry)}
+     * which reuses recently built indexes.
+     * @param geometry the geometry to index. Points and other geometries
+     * without linear component give zero-length segments.
+     */
+    public SegmentIndex(Geometry geometry) {
+        @SuppressWarnings("unchecked")
+        List<LineString> lines = LinearComponentExtracter.getLines(geometry);
+        int vertexCount = 0;
+        for (LineString line : lines) {
+            vertexCount += line.getNumPoints();
+        }
+        if (lines.isEmpty() || vertexCount == 0) {
+            // Points: one degenerated part per point
+            Coordinate[] coordinates = geometry.getCoordinates();
+            xs = new double[coordinates.length * 2];
+            ys = new double[coordinates.length * 2];
+            partStarts = new int[coordinates.length + 1];
+            for (int i = 0; i < coordinates.length; i++) {
+                xs[2 * i] = xs[2 * i + 1] = coordinates[i].x;
+                ys[2 * i] = ys[2 * i + 1] = coordinates[i].y;
+                partStarts[i + 1] = 2 * i + 2;
+            }
+        } else {
+            xs = new double[vertexCount];
+            ys = new double[vertexCount];
+            partStarts = new int[lines.size() + 1];
+            int v = 0;
+            for (int p = 0; p < lines.size(); p++) {
+                CoordinateSequence sequence = lines.get(p).getCoordinateSequence();
+                for (int i = 0; i < sequence.size(); i++) {
+                    xs[v] = sequence.getX(i);
+                    ys[v] = sequence.getY(i);
+                    v++;
+                }
+                partStarts[p + 1] = v;
+            }
+        }
+        int segmentCount = 0;
+        for (int p = 0; p < partStarts.length - 1; p++) {
+            segmentCount += Math.max(0, partStarts[p + 1] - partStarts[p] - 1);
+        }
+        segments = new int[segmentCount];
+        double totalLength = 0;
+        int s = 0;
+        for (int p = 0; p < partStarts.length - 1; p++) {
+            for (int v = partStarts[p]; v < partStarts[p + 1] - 1; v++) {
+                segments[s++] = v;
+                totalLength += Math.hypot(xs[v + 1] - xs[v], ys[v + 1] - ys[v]);
+            }
+        }
+        length = totalLength;
+    }
+
+    private STRtree getTree() {
+        if (tree == null) {
+            STRtree newTree = new STRtree();
+            for (int s = 0; s < segments.length; s++) {
+                int v = segments[s];
+                newTree.insert(new Envelope(xs[v], xs[v + 1], ys[v], ys[v + 1]), s);
+            }
+            newTree.build();
+            tree = newTree;
+        }
+        return tree;
+    }
+
+    /**
+     * @return the total length of the segments
+     */
+    public double getLength() {
+        return length;
+    }
+
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    public double getSegmentLength(int segment) {
+        int v = segments[segment];
+        return Math.hypot(xs[v + 1] - xs[v], ys[v + 1] - ys[v]);
+    }
+
+    /**
+     * @param segment the segment index
+     * @return the angle of the segment with the positive x-axis, from -pi to +pi
+     */
+    public double getSegmentAngle(int segment) {
+        int v = segments[segment];
+        return Math.atan2(ys[v + 1] - ys[v], xs[v + 1] - xs[v]);
+    }
+
+    /**
+     * @param segment the segment index
+     * @param fraction the position along the segment, from 0 to 1
+     * @return the x coordinate of the point at the given position
+     */
+    public double getSegmentX(int segment, double fraction) {
+        int v = segments[segment];
+        return xs[v] + fraction * (xs[v + 1] - xs[v]);
+    }
+
+    /**
+     * @param segment the segment index
+     * @param fraction the position along the segment, from 0 to 1
+     * @return the y coordinate of the point at the given position
+     */
+    public double getSegmentY(int segment, double fraction) {
+        int v = segments[segment];
+        return ys[v] + fraction * (ys[v + 1] - ys[v]);
+    }
+
+    /**
+     * @param segment the segment index
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @return the distance between the point and the segment
+     */
+    public double segmentDistance(int segment, double x, double y) {
+        return Math.sqrt(segmentDistanceSquared(segments[segment], x, y));
+    }
+
+    private double segmentDistanceSquared(int v, double x, double y) {
+        double x0 = xs[v];
+        double y0 = ys[v];
+        double dx = xs[v + 1] - x0;
+        double dy = ys[v + 1] - y0;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((x - x0) * dx + (y - y0) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = x0 + t * dx - x;
+        double ey = y0 + t * dy - y;
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param maxDistance only look at the segments within this distance, or
+     * {@link Double#POSITIVE_INFINITY} to always find the nearest segment
+     * @return the index of the nearest segment, or -1 if there is no segment
+     * within the maximum distance
+     */
+    public int nearestSegment(double x, double y, double maxDistance) {
+        if (segments.length == 0) {
+            return -1;
+        }
+        if (Double.isInfinite(maxDistance)) {
+            Object nearest = getTree().nearestNeighbour(new Envelope(x, x, y, y), null, new ItemDistance() {
+                @Override
+                public double distance(ItemBoundable item1, ItemBoundable item2) {
+                    // item2 is the query point (null item)
+                    ItemBoundable segment = item1.getItem() != null ? item1 : item2;
+                    return segmentDistanceSquared(segments[(Integer) segment.getItem()], x, y);
+                }
+            });
+            return nearest == null ? -1 : (Integer) nearest;
+        }
+        double[] best = {maxDistance * maxDistance};
+        int[] bestSegment = {-1};
+        getTree().query(new Envelope(x - maxDistance, x + maxDistance, y - maxDistance, y + maxDistance), item -> {
+            int s = (Integer) item;
+            double d = segmentDistanceSquared(segments[s], x, y);
+            if (d <= best[0]) {
+                best[0] = d;
+                bestSegment[0] = s;
+            }
+        });
+        return bestSegment[0];
+    }
+
+    /**
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param maxDistance only look at the segments within this distance
+     * @return the distance to the nearest segment, or {@link Double#POSITIVE_INFINITY}
+     * if there is no segment within the maximum distance
+     */
+    public double distance(double x, double y, double maxDistance) {
+        int segment = nearestSegment(x, y, maxDistance);
+        return segment < 0 ? Double.POSITIVE_INFINITY : segmentDistance(segment, x, y);
+    }
+
+    /**
+     * Samples the parts one after the other, adding intermediate points to
+     * the segments longer than the given spacing.
+     * @param spacing the maximum distance between two consecutive points of a part,
+     * or 0 to only take the maximum number of points into account
+     * @param maxPoints the spacing is increased if needed to stay under this number of points
+     * @return the interleaved x and y coordinates of the points
+     */
+    public double[] densify(double spacing, int maxPoints) {
+        if (!(spacing > 0) || length / spacing > maxPoints) {
+            spacing = length > 0 ? length / maxPoints : 1;
+        }
+        int count = 0;
+        for (int p = 0; p < partStarts.length - 1; p++) {
+            if (partStarts[p + 1] > partStarts[p]) {
+                count++;
+            }
+        }
+        for (int segment : segments) {
+            count += pieces(segment, spacing);
+        }
+        double[] points = new double[2 * count];
+        int k = 0;
+        for (int p = 0; p < partStarts.length - 1; p++) {
+            if (partStarts[p + 1] == partStarts[p]) {
+                continue;
+            }
+            points[k++] = xs[partStarts[p]];
+            points[k++] = ys[partStarts[p]];
+            for (int v = partStarts[p]; v < partStarts[p + 1] - 1; v++) {
+                int pieces = pieces(v, spacing);
+                for (int i = 1; i <= pieces; i++) {
+                    double t = (double) i / pieces;
+                    points[k++] = xs[v] + t * (xs[v + 1] - xs[v]);
+                    points[k++] = ys[v] + t * (ys[v + 1] - ys[v]);
+                }
+            }
+        }
+        return points;
+    }
+
+    private int pieces(int v, double spacing) {
+        double segmentLength = Math.hypot(xs[v + 1] - xs[v], ys[v + 1] - ys[v]);
+        return Math.max(1, (int) Math.ceil(segmentLength / spacing));
+    }
+
+    /**
+     * The last indexes built, owned by a matcher, so the geometries are not
+     * kept once the matcher is dropped, and are not shared with other ones.
+     */
+    public static class Cache {
+        private static final int SIZE = 64;
+
+        private final Map<Geometry, SegmentIndex> indexes = new LinkedHashMap<Geometry, SegmentIndex>(
+                SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Geometry, SegmentIndex> eldest) {
+                return size() > SIZE;
+            }
+        };
+
+        /**
+         * @param geometry the geometry to index
+         * @return the index of the geometry, taken from the cache when the same
+         * geometry has been indexed recently
+         */
+        public synchronized SegmentIndex get(Geometry geometry) {
+            SegmentIndex index = indexes.get(geometry);
+            if (index == null) {
+                index = new SegmentIndex(geometry);
+                indexes.put(geometry, index);
+            }
+            return index;
+        }
+    }
+}
@@ -2,6 +2,12 @@ package com.vividsolutions.jcs.conflate.polygonmatch;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.PointFeatureCollection;
+
 import java.awt.geom.Point2D;
 
 public abstract class AbstractDistanceMatcher extends IndependentCandidateMatcher {
@@ -12,9 +18,38 @@ public abstract class AbstractDistanceMatcher extends IndependentCandidateMatche
      */
     protected double maxDistance = 0;
     
+    /**
+     * Scores a point target against a node-only collection straight from its
+     * coordinate arrays, looking only at the points within the maximum distance.
+     * Method not part of the original JCS code.
+     */
+    @Override
+    public Matches match(Feature target, FeatureCollection candidates) {
+        Geometry geometry = target.getGeometry();
+        if (maxDistance > 0 && candidates instanceof PointFeatureCollection && isPoint(geometry)) {
+            PointFeatureCollection points = (PointFeatureCollection) candidates;
+            double x = ((Point) geometry).getX();
+            double y = ((Point) geometry).getY();
+            Matches matches = new Matches(points.getFeatureSchema());
+            points.query(x - maxDistance, y - maxDistance, x + maxDistance, y + maxDistance, i -> {
+                double score = 1 - pointDistance(x, y, points.getX(i), points.getY(i)) / maxDistance;
+                if (score > 0) {
+                    matches.add(points.getFeature(i), score);
+                }
+            });
+            return matches;
+        }
+        return super.match(target, candidates);
+    }
+
     @Override
     public double match(Geometry target, Geometry candidate) {
-        double distance = distance(target, candidate);
+        // All the distances are the plain euclidean distance between two points,
+        // no need to go through the geometry algorithms (and getCentroid copies).
+        double distance = isPoint(target) && isPoint(candidate)
+                ? pointDistance(((Point) target).getX(), ((Point) target).getY(),
+                        ((Point) candidate).getX(), ((Point) candidate).getY())
+                : distance(target, candidate);
         if (maxDistance > 0) {
             return Math.max(0, 1 - (distance / maxDistance));
         } else {
@@ -26,6 +61,16 @@ public abstract class AbstractDistanceMatcher extends IndependentCandidateMatche
 
     protected abstract double distance(Geometry target, Geometry candidate);
 
+    private static boolean isPoint(Geometry geometry) {
+        return geometry instanceof Point && !geometry.isEmpty();
+    }
+
+    private static double pointDistance(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
     private double combinedEnvelopeDiagonalDistance(
         Geometry target,
         Geometry candidate) {
@@ -69,10 +69,29 @@ public class ChainMatcher implements FeatureMatcher {
    */
     @Override
   public Matches match(Feature target, FeatureCollection candidates) {
-    Matches survivors = new Matches(new FeatureDataset(candidates.getFeatures(), candidates.getFeatureSchema(), candidates.getEnvelope()));
-    for (FeatureMatcher matcher : matchers) {
-      survivors = matcher.match(target, survivors);
+    int first = 0;
+    Matches survivors;
+    if (!(candidates instanceof Matches) && !matchers.isEmpty() && isScoreIndependent(matchers.get(0))) {
+      // The first matcher doesn't look at the previous scores: let it query the
+      // (indexed) candidates directly instead of copying all of them.
+      // Not part of the original JCS code.
+      survivors = matchers.get(0).match(target, candidates);
+      first = 1;
+    } else {
+      survivors = new Matches(new FeatureDataset(candidates.getFeatures(), candidates.getFeatureSchema(), candidates.getEnvelope()));
+    }
+    for (int i = first; i < matchers.size(); i++) {
+      survivors = matchers.get(i).match(target, survivors);
     }
     return survivors;
   }
+
+  /**
+   * @return true if the matcher works on any FeatureCollection, and gives the
+   * same result whatever the scores of the candidates
+   */
+  private static boolean isScoreIndependent(FeatureMatcher matcher) {
+    return matcher instanceof WindowMatcher || matcher instanceof WindowFilter
+        || matcher instanceof AbstractDistanceMatcher;
+  }
 }
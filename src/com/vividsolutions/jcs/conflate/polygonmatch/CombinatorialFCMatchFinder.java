@@ -33,17 +33,11 @@ package com.vividsolutions.jcs.conflate.polygonmatch;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
-import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.util.Assert;
-import com.vividsolutions.jump.feature.BasicFeature;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
 import com.vividsolutions.jump.feature.FeatureDataset;
@@ -52,7 +46,6 @@ import com.vividsolutions.jump.feature.IndexedFeatureCollection;
 import com.vividsolutions.jump.task.TaskMonitor;
 import com.vividsolutions.jump.util.CollectionMap;
 import com.vividsolutions.jump.util.CollectionUtil;
-import com.vividsolutions.jump.util.CoordinateArrays;
 
 /**
  *  An FCMatchFinder wrapper that also treats pairs of adjacent target features
@@ -76,6 +69,8 @@ public class CombinatorialFCMatchFinder implements FCMatchFinder {
 
   private int maxCompositeSize;
 
+  private CompositeGenerator compositeGenerator;
+
   /**
    *@param  maxCompositeSize  the maximum number of adjacent target features to
    *      try combining
@@ -104,7 +99,7 @@ public Map<Feature, Matches> match(IndexedFeatureCollection targetFC, IndexedFea
 		  FeatureCollection compositeFC, TaskMonitor monitor) {
     Assert.isTrue(constituentToCompositesMap.isEmpty());
     Assert.isTrue(compositeFC.isEmpty());
-    Set<CompositeFeature> composites = createCompositeSet(fc, monitor);
+    List<CompositeFeature> composites = createCompositeSet(fc, monitor);
     add(composites, constituentToCompositesMap, monitor);
     add(composites, compositeFC, monitor);
   }
@@ -147,59 +142,14 @@ public Map<Feature, Matches> match(IndexedFeatureCollection targetFC, IndexedFea
     }
   }
 
-  protected List<Feature> featuresWithCommonEdge(Feature feature, FeatureCollection fc) {
-    List<Feature> featuresWithCommonEdge = new ArrayList<>();
-    List<Feature> candidates = fc.query(feature.getGeometry().getEnvelopeInternal());
-    for (Feature candidate : candidates) {
-      if (feature == candidate || shareEdge(feature.getGeometry(), candidate.getGeometry())) {
-        featuresWithCommonEdge.add(candidate);
-      }
-    }
-    return featuresWithCommonEdge;
-  }
-
-  protected boolean shareEdge(Geometry a, Geometry b) {
-    Set<Edge> aEdges = edges(a);
-    Set<Edge> bEdges = edges(b);
-    for (Edge bEdge : bEdges) {
-      if (aEdges.contains(bEdge)) { return true; }
-    }
-    return false;
-  }
-
-    @Override
-    public Map<Feature, Matches> match(FeatureCollection targetFC, FeatureCollection candidateFC, TaskMonitor monitor) {
-        throw new UnsupportedOperationException("Not supported yet.");
-    }
-
-  private static class Edge implements Comparable<Edge> {
-    private Coordinate p0, p1;
-    public Edge(Coordinate a, Coordinate b) {
-      if (a.compareTo(b) < 1) {
-        p0 = a;
-        p1 = b;
-      }
-      else {
-        p0 = b;
-        p1 = a;
-      }
-    }
-        @Override
-    public int compareTo(Edge other) {
-      int result = p0.compareTo(other.p0);
-      if (result != 0) return result;
-      return p1.compareTo(other.p1);
-    }
-  }
-
-  private Set<Edge> edges(Geometry g) {
-    Set<Edge> edges = new TreeSet<>();
-    for (Coordinate[] coordinates : CoordinateArrays.toCoordinateArrays(g, false)) {
-      for (int j = 1; j < coordinates.length; j++) { //1
-        edges.add(new Edge(coordinates[j], coordinates[j-1]));
-      }
-    }
-    return edges;
+  @Override
+  public Map<Feature, Matches> match(FeatureCollection targetFC, FeatureCollection candidateFC, TaskMonitor monitor) {
+    return match(
+        targetFC instanceof IndexedFeatureCollection
+            ? (IndexedFeatureCollection) targetFC : new IndexedFeatureCollection(targetFC),
+        candidateFC instanceof IndexedFeatureCollection
+            ? (IndexedFeatureCollection) candidateFC : new IndexedFeatureCollection(candidateFC),
+        monitor);
   }
 
   /**
@@ -228,27 +178,37 @@ public Map<Feature, Matches> match(IndexedFeatureCollection targetFC, IndexedFea
     return newMap;
   }
 
-  private Set<CompositeFeature> createCompositeSet(FeatureCollection fc, TaskMonitor monitor) {
+  private List<CompositeFeature> createCompositeSet(FeatureCollection fc, TaskMonitor monitor) {
     monitor.report("Creating composites of adjacent features");
-    int featuresProcessed = 0;
-    int totalFeatures = fc.getFeatures().size();
-    //Use a Set to prevent duplicate composites [Jon Aquino]
-    Set<CompositeFeature> composites = new HashSet<>();
-    for (Iterator<Feature> i = fc.getFeatures().iterator(); i.hasNext() && !monitor.isCancelRequested(); ) {
-      Feature feature = i.next();
-      featuresProcessed++;
-      monitor.report(featuresProcessed, totalFeatures, "features");
-      List<Feature> featuresWithCommonEdge = featuresWithCommonEdge(feature, fc);
-      for (Iterator<List<Feature>> j = CollectionUtil.combinations(
-          featuresWithCommonEdge, maxCompositeSize, feature).iterator(); j.hasNext() && !monitor.isCancelRequested(); ) {
-        List<Feature> combination = j.next();
-        composites.add(new CompositeFeature(fc.getFeatureSchema(), combination));
+    //Each composite is generated once, no Set needed to prevent duplicates
+    List<CompositeFeature> composites = new ArrayList<>();
+    //A composite is grown from the one without its last constituent, whose union is reused
+    Map<List<Feature>, CompositeFeature> compositesByConstituents = new HashMap<>();
+    compositeGenerator = new CompositeGenerator(fc.getFeatures());
+    compositeGenerator.generate(maxCompositeSize, combination -> {
+      CompositeFeature parent = combination.size() > 1
+          ? compositesByConstituents.get(combination.subList(0, combination.size() - 1)) : null;
+      CompositeFeature composite = new CompositeFeature(fc.getFeatureSchema(), combination, parent);
+      if (combination.size() < maxCompositeSize) {
+        compositesByConstituents.put(combination, composite);
       }
-    }
+      composites.add(composite);
+    }, monitor);
+    monitor.report("Created " + compositeGenerator.getCompositeCount() + " composites, up to "
+        + compositeGenerator.getMaxCompositeCount() + " per feature");
     return composites;
   }
 
-  private void add(Set<CompositeFeature> composites, CollectionMap<Feature, CompositeFeature> constituentToCompositesMap,
+  /**
+   * Method not part of the original JCS code.
+   * @param target a target feature of the last call to match
+   * @return the number of composites the target feature was part of
+   */
+  public int getCompositeCount(Feature target) {
+    return compositeGenerator == null ? 0 : compositeGenerator.getCompositeCount(target);
+  }
+
+  private void add(Collection<CompositeFeature> composites, CollectionMap<Feature, CompositeFeature> constituentToCompositesMap,
 		  TaskMonitor monitor) {
     monitor.report("Creating feature-to-composite map");
     int compositesProcessed = 0;
@@ -264,45 +224,20 @@ public Map<Feature, Matches> match(IndexedFeatureCollection targetFC, IndexedFea
     }
   }
 
-  public static class CompositeFeature extends BasicFeature {
-    private List<Feature> features;
-    private int hashCode;
-
+  public static class CompositeFeature extends TargetUnioningFCMatchFinder.CompositeFeature {
     public CompositeFeature(FeatureSchema schema, List<Feature> features) {
-      super(schema);
-      this.features = features;
-      Geometry union = features.get(0).getGeometry();
-      hashCode = features.get(0).hashCode();
-      for (int i = 1; i < features.size(); i++) {
-        Feature feature = features.get(i);
-        union = union.union(feature.getGeometry());
-        hashCode = Math.min(hashCode, feature.hashCode());
-      }
-      setGeometry(union);
-    }
-
-    public List<Feature> getFeatures() {
-      return features;
-    }
-
-        @Override
-    public boolean equals(Object obj) {
-      Assert.isTrue(obj instanceof CompositeFeature, obj.getClass().toString());
-      CompositeFeature other = (CompositeFeature) obj;
-      if (features.size() != other.features.size()) {
-        return false;
-      }
-      for (Feature myFeature : features) {
-        if (!other.features.contains(myFeature)) {
-          return false;
-        }
-      }
-      return true;
+      super(schema, features);
     }
 
-        @Override
-    public int hashCode() {
-      return hashCode;
+    /**
+     * Constructor not part of the original JCS code.
+     * @param schema the feature schema
+     * @param features the constituents
+     * @param parent the composite of all the constituents but the last one,
+     * whose union is reused, or null
+     */
+    public CompositeFeature(FeatureSchema schema, List<Feature> features, CompositeFeature parent) {
+      super(schema, features, parent);
     }
   }
 
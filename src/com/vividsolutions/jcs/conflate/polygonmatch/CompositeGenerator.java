@@ -0,0 +1,223 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.locationtech.jts.geom.Coordinate;
+
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.CoordinateArrays;
+
+/**
+ * Enumerates the groups of adjacent features (features sharing an edge) used
+ * as composite targets by the {@link CombinatorialFCMatchFinder} and the
+ * {@link TargetUnioningFCMatchFinder}.
+ * <p>
+ * The adjacency is computed once for the whole collection, by hashing the
+ * edges of all the features: two features are adjacent when they have a common
+ * edge in the hash table. Then only the connected groups of up to k features
+ * are enumerated, each one exactly once (each group is grown from its
+ * smallest feature, with the ESU algorithm), instead of filtering all the
+ * subsets of the neighbours of each feature.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class CompositeGenerator {
+
+    private final List<Feature> features;
+    private final Map<Feature, Integer> indices;
+    /** The sorted indices of the adjacent features of each feature. */
+    private final int[][] neighbours;
+    /** The number of generated composites containing each feature. */
+    private final int[] compositeCounts;
+    private int compositeCount;
+
+    /**
+     * Builds the adjacency index of the given features.
+     * @param features the features to combine
+     */
+    public CompositeGenerator(Collection<Feature> features) {
+        this.features = new ArrayList<>(features);
+        int n = this.features.size();
+        this.indices = new IdentityHashMap<>(n);
+        this.compositeCounts = new int[n];
+        Map<Edge, int[]> edgeOwners = new HashMap<>();
+        List<List<Integer>> adjacency = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Feature feature = this.features.get(i);
+            indices.put(feature, i);
+            adjacency.add(new ArrayList<>());
+            for (Coordinate[] coordinates : CoordinateArrays.toCoordinateArrays(feature.getGeometry(), false)) {
+                for (int j = 1; j < coordinates.length; j++) {
+                    Edge edge = new Edge(coordinates[j - 1], coordinates[j]);
+                    int[] owners = edgeOwners.get(edge);
+                    if (owners == null) {
+                        edgeOwners.put(edge, new int[] {i});
+                        continue;
+                    }
+                    if (owners[owners.length - 1] == i) {
+                        // Same edge twice in the same feature
+                        continue;
+                    }
+                    for (int owner : owners) {
+                        adjacency.get(owner).add(i);
+                        adjacency.get(i).add(owner);
+                    }
+                    int[] newOwners = Arrays.copyOf(owners, owners.length + 1);
+                    newOwners[owners.length] = i;
+                    edgeOwners.put(edge, newOwners);
+                }
+            }
+        }
+        this.neighbours = new int[n][];
+        for (int i = 0; i < n; i++) {
+            neighbours[i] = adjacency.get(i).stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        }
+    }
+
+    /**
+     * @param feature a feature of the collection
+     * @return the features sharing an edge with the given one
+     */
+    public List<Feature> getNeighbours(Feature feature) {
+        List<Feature> result = new ArrayList<>();
+        for (int neighbour : neighbours[indices.get(feature)]) {
+            result.add(features.get(neighbour));
+        }
+        return result;
+    }
+
+    /**
+     * Enumerates the connected groups of 1 to maxSize features.
+     * @param maxSize the maximum number of features in a group
+     * @param consumer receives each group once
+     * @param monitor reports the progress, and allows to cancel the enumeration
+     */
+    public void generate(int maxSize, Consumer<List<Feature>> consumer, TaskMonitor monitor) {
+        Arrays.fill(compositeCounts, 0);
+        compositeCount = 0;
+        int[] subset = new int[Math.max(1, maxSize)];
+        for (int v = 0; v < features.size() && !monitor.isCancelRequested(); v++) {
+            monitor.report(v + 1, features.size(), "features");
+            int root = v;
+            subset[0] = root;
+            int[] extension = Arrays.stream(neighbours[root]).filter(u -> u > root).toArray();
+            extend(subset, 1, extension, root, maxSize, consumer);
+        }
+    }
+
+    private void extend(int[] subset, int size, int[] extension, int root, int maxSize,
+            Consumer<List<Feature>> consumer) {
+        List<Feature> composite = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            composite.add(features.get(subset[i]));
+            compositeCounts[subset[i]]++;
+        }
+        compositeCount++;
+        consumer.accept(composite);
+        if (size == maxSize) {
+            return;
+        }
+        for (int e = 0; e < extension.length; e++) {
+            int w = extension[e];
+            // The remaining extension, plus the exclusive neighbours of w:
+            // greater than the root, not in the subset and not adjacent to it
+            int[] newExtension = Arrays.copyOfRange(extension, e + 1, extension.length + neighbours[w].length);
+            int length = extension.length - e - 1;
+            for (int u : neighbours[w]) {
+                if (u > root && !contains(newExtension, length, u) && !isInOrAdjacent(u, subset, size)) {
+                    newExtension[length++] = u;
+                }
+            }
+            subset[size] = w;
+            extend(subset, size + 1, Arrays.copyOf(newExtension, length), root, maxSize, consumer);
+        }
+    }
+
+    private static boolean contains(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInOrAdjacent(int u, int[] subset, int size) {
+        for (int i = 0; i < size; i++) {
+            if (subset[i] == u || Arrays.binarySearch(neighbours[subset[i]], u) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of composites generated by the last call to {@link #generate}
+     */
+    public int getCompositeCount() {
+        return compositeCount;
+    }
+
+    /**
+     * @param feature a feature of the collection
+     * @return the number of composites containing the feature, generated by the
+     * last call to {@link #generate}
+     */
+    public int getCompositeCount(Feature feature) {
+        return compositeCounts[indices.get(feature)];
+    }
+
+    /**
+     * @return the largest number of composites containing a same feature
+     */
+    public int getMaxCompositeCount() {
+        return Arrays.stream(compositeCounts).max().orElse(0);
+    }
+
+    /**
+     * An undirected edge, hashed on its coordinates.
+     */
+    private static final class Edge {
+        private final double x0, y0, x1, y1;
+        private final int hashCode;
+
+        Edge(Coordinate a, Coordinate b) {
+            if (a.compareTo(b) > 0) {
+                Coordinate c = a;
+                a = b;
+                b = c;
+            }
+            // + 0.0 turns -0.0 into 0.0, which are equal but don't have the same hash
+            x0 = a.x + 0.0;
+            y0 = a.y + 0.0;
+            x1 = b.x + 0.0;
+            y1 = b.y + 0.0;
+            int h = Double.hashCode(x0);
+            h = 31 * h + Double.hashCode(y0);
+            h = 31 * h + Double.hashCode(x1);
+            hashCode = 31 * h + Double.hashCode(y1);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Edge)) {
+                return false;
+            }
+            Edge other = (Edge) obj;
+            return x0 == other.x0 && y0 == other.y0 && x1 == other.x1 && y1 == other.y1;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
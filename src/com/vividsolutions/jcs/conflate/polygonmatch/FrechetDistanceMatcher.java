@@ -0,0 +1,52 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import org.locationtech.jts.geom.Geometry;
+
+import com.vividsolutions.jcs.algorithm.BandedFrechetDistance;
+import com.vividsolutions.jcs.algorithm.SegmentIndex;
+
+/**
+ * Uses the Frechet distance (the "dog leash" distance), which compares lines
+ * as a whole, along their course, in either direction. Suited to ways (roads,
+ * rivers) which should match from end to end.
+ * <p>
+ * The lines are densified and compared with a {@link BandedFrechetDistance}.
+ * <p>
+ * Class not part of the original JCS code.
+ * @see BandedFrechetDistance
+ */
+public class FrechetDistanceMatcher extends AbstractDistanceMatcher {
+
+    private static final int MAX_POINTS = 1024;
+
+    private final double band;
+    private final SegmentIndex.Cache segmentIndexes = new SegmentIndex.Cache();
+
+    public FrechetDistanceMatcher() {
+        this(0, 0.1);
+    }
+
+    /**
+     * @param maxDistance the maximum distance, which will give a score of 0.
+     * @param band the half width of the coupling band, as a fraction of the
+     * number of points (e.g. 0.1).
+     */
+    public FrechetDistanceMatcher(double maxDistance, double band) {
+        super();
+        setMaxDistance(maxDistance);
+        this.band = band;
+    }
+
+    @Override
+    protected double distance(Geometry target, Geometry candidate) {
+        SegmentIndex targetIndex = segmentIndexes.get(target);
+        SegmentIndex candidateIndex = segmentIndexes.get(candidate);
+        double spacing = maxDistance > 0 ? maxDistance / 2 : 0;
+        double[] p = targetIndex.densify(spacing, MAX_POINTS);
+        double[] q = candidateIndex.densify(spacing, MAX_POINTS);
+        double distance = BandedFrechetDistance.distanceAnyOrientation(p, q, band,
+                maxDistance > 0 ? maxDistance : Double.POSITIVE_INFINITY);
+        // Infinity only means "above the maximum distance".
+        return Double.isInfinite(distance) ? Double.MAX_VALUE : distance;
+    }
+}
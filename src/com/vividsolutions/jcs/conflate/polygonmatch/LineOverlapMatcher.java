@@ -0,0 +1,45 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import org.locationtech.jts.geom.Geometry;
+
+import com.vividsolutions.jcs.algorithm.LineOverlap;
+import com.vividsolutions.jcs.algorithm.SegmentIndex;
+
+/**
+ * The linear counterpart of the {@link OverlapMatcher}: the score is the
+ * length of the two lines running along each other (within a distance and
+ * with a similar orientation) divided by their total length. Works on
+ * partial matches, e.g. a long reference way split into several ways.
+ * <p>
+ * Class not part of the original JCS code.
+ * @see LineOverlap
+ */
+public class LineOverlapMatcher extends IndependentCandidateMatcher {
+
+    private final double maxDistance;
+    private final double maxAngle;
+    private final SegmentIndex.Cache segmentIndexes = new SegmentIndex.Cache();
+
+    /**
+     * @param maxDistance the maximum distance between overlapping pieces
+     * @param maxAngle the maximum angle between overlapping pieces, in degrees
+     */
+    public LineOverlapMatcher(double maxDistance, double maxAngle) {
+        this.maxDistance = maxDistance;
+        this.maxAngle = Math.toRadians(maxAngle);
+    }
+
+    @Override
+    public double match(Geometry target, Geometry candidate) {
+        SegmentIndex targetIndex = segmentIndexes.get(target);
+        SegmentIndex candidateIndex = segmentIndexes.get(candidate);
+        double totalLength = targetIndex.getLength() + candidateIndex.getLength();
+        if (totalLength == 0) {
+            return 0;
+        }
+        double spacing = maxDistance / 2;
+        double overlap = LineOverlap.overlapLength(targetIndex, candidateIndex, maxDistance, maxAngle, spacing)
+                + LineOverlap.overlapLength(candidateIndex, targetIndex, maxDistance, maxAngle, spacing);
+        return Math.min(1, overlap / totalLength);
+    }
+}
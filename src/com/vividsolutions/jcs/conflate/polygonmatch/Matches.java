@@ -40,6 +40,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.util.AssertionFailedException;
@@ -231,7 +232,8 @@ public class Matches extends AbstractMap<Feature, Double> implements FeatureColl
 
     private void scoreAdd(int index, double score) {
         if (this.scores.length < index + 1) {
-            this.scores = Arrays.copyOf(this.scores, index + 1);
+            // Grow geometrically, features are usually added one by one
+            this.scores = Arrays.copyOf(this.scores, Math.max(index + 1, 2 * this.scores.length));
         }
         this.scores[index] = score;
     }
@@ -297,4 +299,9 @@ public class Matches extends AbstractMap<Feature, Double> implements FeatureColl
     public List<Feature> query(Envelope envelope) {
         return dataset.query(envelope);
     }
+
+    @Override
+    public void query(Envelope envelope, Consumer<Feature> visitor) {
+        dataset.query(envelope, visitor);
+    }
 }
@@ -0,0 +1,128 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.IndexedFeatureCollection;
+import com.vividsolutions.jump.feature.PointFeatureCollection;
+import com.vividsolutions.jump.task.TaskMonitor;
+
+/**
+ * Compensates a systematic shift between the target and the candidate
+ * features. The dominant offset is estimated with an {@link OffsetEstimator},
+ * then the wrapped FCMatchFinder is run on translated copies of the target
+ * features. The original features are left untouched, and are the keys of the
+ * returned map: the composite targets of a unioning finder are rebuilt from the
+ * original constituents.
+ * <p>
+ * This allows to keep tight windows and distance thresholds on shifted data,
+ * instead of widening them to the size of the shift.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class OffsetCorrectingFCMatchFinder implements FCMatchFinder {
+
+    private final double maxOffset;
+    private final FCMatchFinder matchFinder;
+    private Coordinate estimatedOffset;
+
+    /**
+     * @param maxOffset the largest offset to look for
+     * @param matchFinder the match finder to run on the translated targets
+     */
+    public OffsetCorrectingFCMatchFinder(double maxOffset, FCMatchFinder matchFinder) {
+        this.maxOffset = maxOffset;
+        this.matchFinder = matchFinder;
+    }
+
+    @Override
+    public Map<Feature, Matches> match(
+        FeatureCollection targetFC,
+        FeatureCollection candidateFC,
+        TaskMonitor monitor) {
+        monitor.allowCancellationRequests();
+        monitor.report("Estimating offset");
+        estimatedOffset = new OffsetEstimator(maxOffset).estimate(targetFC, candidateFC);
+        if (estimatedOffset == null || (estimatedOffset.x == 0 && estimatedOffset.y == 0)) {
+            return matchFinder.match(targetFC, candidateFC, monitor);
+        }
+        AffineTransformation translation = AffineTransformation.translationInstance(
+                estimatedOffset.x, estimatedOffset.y);
+        FeatureDataset translatedFC = new FeatureDataset(targetFC.getFeatureSchema());
+        for (Feature target : targetFC) {
+            translatedFC.add(new TranslatedFeature(target, translation));
+        }
+        FeatureCollection indexedFC = targetFC instanceof PointFeatureCollection
+                ? new PointFeatureCollection(translatedFC) : new IndexedFeatureCollection(translatedFC);
+        Map<Feature, Matches> translatedMap = matchFinder.match(indexedFC, candidateFC, monitor);
+        Map<Feature, Matches> map = new HashMap<>();
+        for (Map.Entry<Feature, Matches> entry : translatedMap.entrySet()) {
+            map.put(original(entry.getKey()), entry.getValue());
+        }
+        return map;
+    }
+
+    /**
+     * @param target a target given to the wrapped finder, or a composite of such targets
+     * @return the original target, or a composite of the original constituents
+     */
+    private static Feature original(Feature target) {
+        if (target instanceof TranslatedFeature) {
+            return ((TranslatedFeature) target).original;
+        }
+        if (target instanceof TargetUnioningFCMatchFinder.CompositeFeature) {
+            TargetUnioningFCMatchFinder.CompositeFeature composite = (TargetUnioningFCMatchFinder.CompositeFeature) target;
+            List<Feature> constituents = new ArrayList<>(composite.getFeatures().size());
+            boolean translated = false;
+            for (Feature constituent : composite.getFeatures()) {
+                Feature original = original(constituent);
+                translated |= original != constituent;
+                constituents.add(original);
+            }
+            if (translated) {
+                return composite instanceof CombinatorialFCMatchFinder.CompositeFeature
+                        ? new CombinatorialFCMatchFinder.CompositeFeature(composite.getSchema(), constituents)
+                        : new TargetUnioningFCMatchFinder.CompositeFeature(composite.getSchema(), constituents);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * @return the offset applied to the targets by the last call to
+     * {@link #match}, or null if no dominant offset was found
+     */
+    public Coordinate getEstimatedOffset() {
+        return estimatedOffset;
+    }
+
+    /**
+     * A translated copy of a feature, that sorts like the original one.
+     */
+    private static class TranslatedFeature extends BasicFeature {
+        private final Feature original;
+
+        TranslatedFeature(Feature original, AffineTransformation translation) {
+            super(original.getSchema());
+            this.original = original;
+            for (int i = 0; i < original.getSchema().getAttributeCount(); i++) {
+                setAttribute(i, original.getAttribute(i));
+            }
+            setGeometry(translation.transform(original.getGeometry()));
+        }
+
+        @Override
+        public int compareTo(Feature o) {
+            return original.compareTo(o instanceof TranslatedFeature ? ((TranslatedFeature) o).original : o);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+
+/**
+ * Estimates the dominant translation between two feature collections, for
+ * example a reference layer that was digitized on a shifted imagery.
+ * <p>
+ * A sample of the target features is taken. For each sampled target, the
+ * candidate with the nearest centroid (within the maximum offset) votes for
+ * the offset between the two centroids. Votes are accumulated in a grid of
+ * bins, and the offset is the mean of the votes around the most popular bin.
+ * Nearest neighbours which are not real matches scatter their votes over many
+ * bins, so they do not disturb the result as long as most features are shifted
+ * by the same amount.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class OffsetEstimator {
+
+    private final double maxOffset;
+    private final double binSize;
+    private final int maxSamples;
+    private int minVotes = 5;
+    private double minSupport = 0.2;
+
+    private int sampleCount;
+    private int voteCount;
+    private int supportCount;
+
+    /**
+     * @param maxOffset the largest offset to look for
+     */
+    public OffsetEstimator(double maxOffset) {
+        this(maxOffset, Math.max(maxOffset / 50, 0.25), 1000);
+    }
+
+    /**
+     * @param maxOffset the largest offset to look for
+     * @param binSize the size of the bins in which the votes are accumulated
+     * @param maxSamples the maximum number of target features sampled
+     */
+    public OffsetEstimator(double maxOffset, double binSize, int maxSamples) {
+        if (maxOffset <= 0 || binSize <= 0 || maxSamples <= 0) {
+            throw new IllegalArgumentException("maxOffset, binSize and maxSamples must be positive");
+        }
+        this.maxOffset = maxOffset;
+        this.binSize = binSize;
+        this.maxSamples = maxSamples;
+    }
+
+    /**
+     * Sets the minimum number of votes the winning bin and its neighbours must
+     * have for the estimation to be accepted. Default is 5.
+     * @param minVotes the minimum number of supporting votes
+     */
+    public void setMinVotes(int minVotes) {
+        this.minVotes = minVotes;
+    }
+
+    /**
+     * Sets the minimum fraction of the sampled targets that must support the
+     * winning offset for the estimation to be accepted. Default is 0.2.
+     * @param minSupport the minimum fraction of supporting samples
+     */
+    public void setMinSupport(double minSupport) {
+        this.minSupport = minSupport;
+    }
+
+    /**
+     * Estimates the offset to add to the target features to bring them over
+     * the candidate features.
+     * @param targetFC the features to be shifted, typically the reference
+     * @param candidateFC the features to shift to. Should be indexed, as it is
+     * queried once per sample.
+     * @return the estimated offset (as a vector), or null if no dominant offset
+     * was found
+     */
+    public Coordinate estimate(FeatureCollection targetFC, FeatureCollection candidateFC) {
+        sampleCount = 0;
+        voteCount = 0;
+        supportCount = 0;
+        List<Feature> targets = targetFC.getFeatures();
+        if (targets.isEmpty() || candidateFC.isEmpty()) {
+            return null;
+        }
+        Map<Feature, Coordinate> candidateCentroids = new IdentityHashMap<>();
+        List<double[]> votes = new ArrayList<>();
+        Map<Long, Integer> bins = new HashMap<>();
+        double step = Math.max(1.0, (double) targets.size() / maxSamples);
+        Envelope window = new Envelope();
+        for (double d = 0; d < targets.size(); d += step) {
+            Feature target = targets.get((int) d);
+            sampleCount++;
+            Coordinate t = centroid(target.getGeometry());
+            if (t == null) {
+                continue;
+            }
+            window.init(t.x - maxOffset, t.x + maxOffset, t.y - maxOffset, t.y + maxOffset);
+            Coordinate nearest = null;
+            double nearestDistance = maxOffset;
+            for (Feature candidate : candidateFC.query(window)) {
+                Coordinate c = candidateCentroids.computeIfAbsent(candidate, f -> centroid(f.getGeometry()));
+                if (c == null) {
+                    continue;
+                }
+                double distance = t.distance(c);
+                if (distance <= nearestDistance) {
+                    nearest = c;
+                    nearestDistance = distance;
+                }
+            }
+            if (nearest == null) {
+                continue;
+            }
+            double[] vote = {nearest.x - t.x, nearest.y - t.y};
+            votes.add(vote);
+            bins.merge(binKey(bin(vote[0]), bin(vote[1])), 1, Integer::sum);
+        }
+        voteCount = votes.size();
+        if (votes.isEmpty()) {
+            return null;
+        }
+        // Smooth the histogram with a 3x3 kernel, so an offset lying on a bin
+        // border doesn't split its votes.
+        long bestBin = 0;
+        int bestCount = -1;
+        for (Long key : bins.keySet()) {
+            int bx = (int) (key >> 32);
+            int by = (int) (long) key;
+            int count = 0;
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    count += bins.getOrDefault(binKey(bx + i, by + j), 0);
+                }
+            }
+            if (count > bestCount) {
+                bestCount = count;
+                bestBin = key;
+            }
+        }
+        int bestX = (int) (bestBin >> 32);
+        int bestY = (int) bestBin;
+        double sumX = 0;
+        double sumY = 0;
+        for (double[] vote : votes) {
+            if (Math.abs(bin(vote[0]) - bestX) <= 1 && Math.abs(bin(vote[1]) - bestY) <= 1) {
+                sumX += vote[0];
+                sumY += vote[1];
+                supportCount++;
+            }
+        }
+        if (supportCount < minVotes || supportCount < minSupport * sampleCount) {
+            return null;
+        }
+        return new Coordinate(sumX / supportCount, sumY / supportCount);
+    }
+
+    /**
+     * @return the number of target features sampled by the last estimation
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return the number of samples which found a candidate in the last estimation
+     */
+    public int getVoteCount() {
+        return voteCount;
+    }
+
+    /**
+     * @return the number of votes supporting the result of the last estimation
+     */
+    public int getSupportCount() {
+        return supportCount;
+    }
+
+    private int bin(double value) {
+        return (int) Math.floor(value / binSize);
+    }
+
+    private static long binKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    private static Coordinate centroid(Geometry geometry) {
+        if (geometry == null || geometry.isEmpty()) {
+            return null;
+        }
+        return geometry.getCentroid().getCoordinate();
+    }
+}
@@ -0,0 +1,46 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import org.locationtech.jts.geom.Geometry;
+
+import com.vividsolutions.jcs.algorithm.PartialHausdorffDistance;
+import com.vividsolutions.jcs.algorithm.SegmentIndex;
+
+/**
+ * Uses a partial Hausdorff distance, which ignores a given fraction of
+ * outlying points. More robust than the {@link HausdorffDistanceMatcher} on
+ * ways, and fast on long ones.
+ * <p>
+ * Class not part of the original JCS code.
+ * @see PartialHausdorffDistance
+ */
+public class PartialHausdorffDistanceMatcher extends AbstractDistanceMatcher {
+
+    private final double fraction;
+    private final SegmentIndex.Cache segmentIndexes = new SegmentIndex.Cache();
+
+    public PartialHausdorffDistanceMatcher() {
+        this(0, 0.9);
+    }
+
+    /**
+     * @param maxDistance the maximum distance, which will give a score of 0.
+     * @param fraction the fraction of the points (from 0 to 1) which must be
+     * within the distance, e.g. 0.9.
+     */
+    public PartialHausdorffDistanceMatcher(double maxDistance, double fraction) {
+        super();
+        setMaxDistance(maxDistance);
+        this.fraction = fraction;
+    }
+
+    @Override
+    protected double distance(Geometry target, Geometry candidate) {
+        SegmentIndex targetIndex = segmentIndexes.get(target);
+        SegmentIndex candidateIndex = segmentIndexes.get(candidate);
+        double distance = PartialHausdorffDistance.distance(targetIndex, candidateIndex, fraction,
+                maxDistance > 0 ? maxDistance / 2 : 0,
+                maxDistance > 0 ? maxDistance : Double.POSITIVE_INFINITY);
+        // Infinity only means "above the maximum distance".
+        return Double.isInfinite(distance) ? Double.MAX_VALUE : distance;
+    }
+}
@@ -0,0 +1,208 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.task.TaskMonitor;
+
+/**
+ * Joins point features to the polygon features containing them, typically
+ * address nodes to buildings.
+ * <p>
+ * Point targets are looked up in an STRtree of the candidate polygons, and
+ * tested with a PreparedGeometry: a polygon covering the point gets a score
+ * of 1. Only points which are outside of any polygon are scored against the
+ * edges of the polygons within the maximum distance, with a score decreasing
+ * linearly with the distance to the nearest edge.
+ * <p>
+ * Polygon targets are matched the same way against the point candidates.
+ * Other targets and candidates are ignored. The result usually needs to be
+ * disambiguated, as a building may contain several addresses.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class PointInPolygonFCMatchFinder implements FCMatchFinder {
+
+    private final double maxDistance;
+
+    /**
+     * @param maxDistance the maximum distance between a point outside of
+     * any polygon and the edges of a polygon for them to match. 0 to only
+     * match points inside polygons.
+     */
+    public PointInPolygonFCMatchFinder(double maxDistance) {
+        this.maxDistance = Math.max(0, maxDistance);
+    }
+
+    @Override
+    public Map<Feature, Matches> match(
+        FeatureCollection targetFC,
+        FeatureCollection candidateFC,
+        TaskMonitor monitor) {
+        monitor.allowCancellationRequests();
+        monitor.report("Finding matches");
+        Map<Feature, Matches> map = new HashMap<>();
+        STRtree polygonIndex = null;
+        int featuresProcessed = 0;
+        int totalFeatures = targetFC.size();
+        Envelope window = new Envelope();
+        for (Iterator<Feature> i = targetFC.iterator(); i.hasNext() && !monitor.isCancelRequested();) {
+            Feature target = i.next();
+            featuresProcessed++;
+            monitor.report(featuresProcessed, totalFeatures, "features");
+            Matches matches = new Matches(candidateFC.getFeatureSchema());
+            Geometry geometry = target.getGeometry();
+            if (geometry instanceof Point && !geometry.isEmpty()) {
+                if (polygonIndex == null) {
+                    polygonIndex = buildPolygonIndex(candidateFC);
+                }
+                matchPoint((Point) geometry, polygonIndex, window, matches);
+            } else if (geometry instanceof Polygonal && !geometry.isEmpty()) {
+                matchPolygon(geometry, candidateFC, window, matches);
+            }
+            map.put(target, matches);
+        }
+        return map;
+    }
+
+    private static STRtree buildPolygonIndex(FeatureCollection candidateFC) {
+        STRtree index = new STRtree(10);
+        for (Feature candidate : candidateFC) {
+            Geometry geometry = candidate.getGeometry();
+            if (geometry instanceof Polygonal && !geometry.isEmpty()) {
+                index.insert(geometry.getEnvelopeInternal(), new IndexedPolygon(candidate, geometry));
+            }
+        }
+        index.build();
+        return index;
+    }
+
+    private void matchPoint(Point point, STRtree polygonIndex, Envelope window, Matches matches) {
+        double x = point.getX();
+        double y = point.getY();
+        window.init(x, x, y, y);
+        polygonIndex.query(window, item -> {
+            IndexedPolygon polygon = (IndexedPolygon) item;
+            if (polygon.getPrepared().covers(point)) {
+                matches.add(polygon.feature, 1);
+            }
+        });
+        if (!matches.isEmpty() || maxDistance == 0) {
+            return;
+        }
+        // The point is outside of any polygon: look for the nearest edges.
+        window.init(x - maxDistance, x + maxDistance, y - maxDistance, y + maxDistance);
+        polygonIndex.query(window, item -> {
+            IndexedPolygon polygon = (IndexedPolygon) item;
+            double score = score(x, y, polygon.geometry);
+            if (score > 0) {
+                matches.add(polygon.feature, score);
+            }
+        });
+    }
+
+    private void matchPolygon(Geometry polygon, FeatureCollection candidateFC, Envelope window, Matches matches) {
+        window.init(polygon.getEnvelopeInternal());
+        window.expandBy(maxDistance);
+        PreparedGeometry prepared = null;
+        for (Feature candidate : candidateFC.query(window)) {
+            Geometry geometry = candidate.getGeometry();
+            if (!(geometry instanceof Point) || geometry.isEmpty()) {
+                continue;
+            }
+            if (prepared == null) {
+                prepared = PreparedGeometryFactory.prepare(polygon);
+            }
+            if (prepared.covers(geometry)) {
+                matches.add(candidate, 1);
+            } else if (maxDistance > 0) {
+                double score = score(((Point) geometry).getX(), ((Point) geometry).getY(), polygon);
+                if (score > 0) {
+                    matches.add(candidate, score);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores a point outside of a polygon from its distance to the nearest edge.
+     */
+    private double score(double x, double y, Geometry polygonal) {
+        Envelope envelope = polygonal.getEnvelopeInternal();
+        double dx = Math.max(0, Math.max(envelope.getMinX() - x, x - envelope.getMaxX()));
+        double dy = Math.max(0, Math.max(envelope.getMinY() - y, y - envelope.getMaxY()));
+        if (dx * dx + dy * dy >= maxDistance * maxDistance) {
+            return 0;
+        }
+        double distance = Double.MAX_VALUE;
+        for (int i = 0; i < polygonal.getNumGeometries(); i++) {
+            Polygon polygon = (Polygon) polygonal.getGeometryN(i);
+            distance = Math.min(distance, ringDistance(x, y, polygon.getExteriorRing().getCoordinateSequence()));
+            for (int j = 0; j < polygon.getNumInteriorRing(); j++) {
+                distance = Math.min(distance, ringDistance(x, y, polygon.getInteriorRingN(j).getCoordinateSequence()));
+            }
+        }
+        return Math.max(0, 1 - distance / maxDistance);
+    }
+
+    private static double ringDistance(double x, double y, CoordinateSequence ring) {
+        double minSquared = Double.MAX_VALUE;
+        for (int i = 1; i < ring.size(); i++) {
+            minSquared = Math.min(minSquared, segmentDistanceSquared(x, y,
+                    ring.getX(i - 1), ring.getY(i - 1), ring.getX(i), ring.getY(i)));
+        }
+        return Math.sqrt(minSquared);
+    }
+
+    static double segmentDistanceSquared(double x, double y, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double r = lengthSquared == 0 ? 0 : ((x - ax) * dx + (y - ay) * dy) / lengthSquared;
+        if (r <= 0) {
+            dx = x - ax;
+            dy = y - ay;
+        } else if (r >= 1) {
+            dx = x - bx;
+            dy = y - by;
+        } else {
+            dx = x - (ax + r * dx);
+            dy = y - (ay + r * dy);
+        }
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * A polygon feature in the index, prepared on first containment test.
+     */
+    private static class IndexedPolygon {
+        private final Feature feature;
+        private final Geometry geometry;
+        private PreparedGeometry prepared;
+
+        IndexedPolygon(Feature feature, Geometry geometry) {
+            this.feature = feature;
+            this.geometry = geometry;
+        }
+
+        PreparedGeometry getPrepared() {
+            if (prepared == null) {
+                prepared = PreparedGeometryFactory.prepare(geometry);
+            }
+            return prepared;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.locationtech.jts.geom.Envelope;
+
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureUtil;
+import com.vividsolutions.jump.geom.SweepJoin;
+import com.vividsolutions.jump.task.TaskMonitor;
+
+/**
+ * Same result as a {@link BasicFCMatchFinder} whose matcher is a
+ * {@link WindowMatcher} chained with the given matcher, but the window
+ * candidates of all the targets are found at once with a {@link SweepJoin}
+ * instead of one spatial index query per target. Faster for batch runs on
+ * large collections.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class SweepJoinFCMatchFinder implements FCMatchFinder {
+
+    private final double buffer;
+    private final FeatureMatcher matcher;
+
+    /**
+     * @param buffer for each target, the window is its envelope extended on each
+     * side by this amount
+     * @param matcher applied to each target and the candidates of its window
+     */
+    public SweepJoinFCMatchFinder(double buffer, FeatureMatcher matcher) {
+        this.buffer = buffer;
+        this.matcher = matcher;
+    }
+
+    @Override
+    public Map<Feature, Matches> match(
+        FeatureCollection targetFC,
+        FeatureCollection candidateFC,
+        TaskMonitor monitor) {
+        monitor.allowCancellationRequests();
+        monitor.report("Joining targets and candidates");
+        List<Feature> targets = targetFC.getFeatures();
+        List<Feature> candidates = candidateFC.getFeatures();
+        int[][] windows = windows(targets, candidates);
+        monitor.report("Finding matches");
+        Map<Feature, Matches> map = new TreeMap<>();
+        for (int t = 0; t < targets.size() && !monitor.isCancelRequested(); t++) {
+            monitor.report(t + 1, targets.size(), "features");
+            List<Feature> window = new ArrayList<>(windows[t].length);
+            for (int c : windows[t]) {
+                window.add(candidates.get(c));
+            }
+            Feature target = targets.get(t);
+            map.put(target, matcher.match(target, new Matches(candidateFC.getFeatureSchema(), window)));
+        }
+        return map;
+    }
+
+    /**
+     * @return for each target, the sorted indices of the candidates in its window
+     */
+    private int[][] windows(List<Feature> targets, List<Feature> candidates) {
+        int[] counts = new int[targets.size()];
+        int[][] pairs = {new int[Math.max(16, 2 * targets.size())]};
+        int[] size = {0};
+        SweepJoin.join(envelopes(targets), buffer, envelopes(candidates), (t, c) -> {
+            if (size[0] == pairs[0].length) {
+                pairs[0] = Arrays.copyOf(pairs[0], 2 * pairs[0].length);
+            }
+            pairs[0][size[0]++] = t;
+            pairs[0][size[0]++] = c;
+            counts[t]++;
+        });
+        int[][] windows = new int[targets.size()][];
+        for (int t = 0; t < windows.length; t++) {
+            windows[t] = new int[counts[t]];
+            counts[t] = 0;
+        }
+        for (int k = 0; k < size[0]; k += 2) {
+            int t = pairs[0][k];
+            windows[t][counts[t]++] = pairs[0][k + 1];
+        }
+        for (int[] window : windows) {
+            Arrays.sort(window);
+        }
+        return windows;
+    }
+
+    private static Envelope[] envelopes(List<Feature> features) {
+        Envelope[] envelopes = new Envelope[features.size()];
+        for (int i = 0; i < envelopes.length; i++) {
+            envelopes[i] = FeatureUtil.getEnvelope(features.get(i));
+        }
+        return envelopes;
+    }
+}
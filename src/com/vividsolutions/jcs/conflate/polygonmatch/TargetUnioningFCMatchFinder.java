@@ -35,26 +35,26 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
-import java.util.TreeSet;
 
-import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.operation.union.UnaryUnionOp;
 import org.locationtech.jts.util.Assert;
 import com.vividsolutions.jump.feature.BasicFeature;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
 import com.vividsolutions.jump.feature.FeatureDataset;
 import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.feature.FeatureUtil;
 import com.vividsolutions.jump.feature.IndexedFeatureCollection;
+import com.vividsolutions.jump.feature.LazyGeometryFeature;
 import com.vividsolutions.jump.task.TaskMonitor;
-import com.vividsolutions.jump.util.CollectionUtil;
-import com.vividsolutions.jump.util.CoordinateArrays;
 
 /**
  *  An FCMatchFinder wrapper that also treats unions of adjacent target features
@@ -75,6 +75,7 @@ import com.vividsolutions.jump.util.CoordinateArrays;
 public class TargetUnioningFCMatchFinder implements FCMatchFinder {
     private FCMatchFinder matchFinder;
     private int maxCompositeSize;
+    private CompositeGenerator compositeGenerator;
     /**
      *@param  maxCompositeSize  the maximum number of adjacent target features to
      *      try combining
@@ -109,8 +110,7 @@ public class TargetUnioningFCMatchFinder implements FCMatchFinder {
         targetToMatchesMap.putAll(filteredTargetToMatchesMap);
         return targetToMatchesMap;
     }
-    private List<Feature> lastTargetConstituents;
-    private List<Integer> lastUnionIDs;
+    private Map<Feature, Integer> lastUnionIDs;
     private void createUnionIDs(final Map<Feature, Matches> compositeTargetFeatureToMatchesMap, TaskMonitor monitor) {
         monitor.report("Creating union IDs");
         List<Feature> compositeTargets = new ArrayList<>(compositeTargetFeatureToMatchesMap.keySet());
@@ -122,8 +122,7 @@ public class TargetUnioningFCMatchFinder implements FCMatchFinder {
                 return s1 < s2 ? -1 : s1 > s2 ? 1 : 0;
             }
         });
-        lastTargetConstituents = new ArrayList<>();
-        lastUnionIDs = new ArrayList<>();
+        lastUnionIDs = new IdentityHashMap<>();
         int unionID = 0;
         for (int i = 0; i < compositeTargets.size(); i++) {
             monitor.report(i+1, compositeTargets.size(), "unions");
@@ -133,8 +132,7 @@ public class TargetUnioningFCMatchFinder implements FCMatchFinder {
             }
             unionID++;
             for (Feature targetConstituent : compositeTarget.getFeatures()) {
-                lastTargetConstituents.add(targetConstituent);
-                lastUnionIDs.add(Integer.valueOf(unionID));
+                lastUnionIDs.put(targetConstituent, Integer.valueOf(unionID));
             }
         }
     }
@@ -142,7 +140,7 @@ public class TargetUnioningFCMatchFinder implements FCMatchFinder {
         FeatureCollection fc,
         TaskMonitor monitor) {
         FeatureCollection compositeFC = new FeatureDataset(fc.getFeatureSchema());
-        Set<CompositeFeature> composites = createCompositeSet(fc, monitor);
+        List<CompositeFeature> composites = createCompositeSet(fc, monitor);
         add(composites, compositeFC, monitor);
         return new IndexedFeatureCollection(compositeFC);
     }
@@ -156,7 +154,7 @@ public class TargetUnioningFCMatchFinder implements FCMatchFinder {
         Map<Feature, Matches> compositeTargetToMatchesMap,
         FeatureSchema candidateSchema,
         TaskMonitor monitor) {
-        List<Feature> targetConstituentsEncountered = new ArrayList<>();
+        Set<Feature> targetConstituentsEncountered = Collections.newSetFromMap(new IdentityHashMap<>());
         List<Feature> compositeTargets = new ArrayList<>();
         List<Feature> candidates = new ArrayList<>();
         List<Double> scores = new ArrayList<>();
@@ -186,55 +184,6 @@ public class TargetUnioningFCMatchFinder implements FCMatchFinder {
         }
         return newMap;
     }
-    private List<Feature> featuresWithCommonEdge(Feature feature, FeatureCollection fc) {
-        List<Feature> featuresWithCommonEdge = new ArrayList<>();
-        List<Feature> candidates = fc.query(feature.getGeometry().getEnvelopeInternal());
-        for (Feature candidate : candidates) {
-            if (feature == candidate
-                || shareEdge(feature.getGeometry(), candidate.getGeometry())) {
-                featuresWithCommonEdge.add(candidate);
-            }
-        }
-        return featuresWithCommonEdge;
-    }
-    protected boolean shareEdge(Geometry a, Geometry b) {
-        Set<Edge> aEdges = edges(a);
-        Set<Edge> bEdges = edges(b);
-        for (Edge bEdge : bEdges) {
-            if (aEdges.contains(bEdge)) {
-                return true;
-            }
-        }
-        return false;
-    }
-    private static class Edge implements Comparable<Edge> {
-        private Coordinate p0, p1;
-        public Edge(Coordinate a, Coordinate b) {
-            if (a.compareTo(b) < 1) {
-                p0 = a;
-                p1 = b;
-            } else {
-                p0 = b;
-                p1 = a;
-            }
-        }
-        @Override
-        public int compareTo(Edge other) {
-            int result = p0.compareTo(other.p0);
-            if (result != 0)
-                return result;
-            return p1.compareTo(other.p1);
-        }
-    }
-    private Set<Edge> edges(Geometry g) {
-        Set<Edge> edges = new TreeSet<>();
-        for (Coordinate[] coordinates : CoordinateArrays.toCoordinateArrays(g, false)) {
-            for (int j = 1; j < coordinates.length; j++) { //1
-                edges.add(new Edge(coordinates[j], coordinates[j - 1]));
-            }
-        }
-        return edges;
-    }
     /**
      *  Splits each composite target into its constituent features.
      */
@@ -257,51 +206,138 @@ public class TargetUnioningFCMatchFinder implements FCMatchFinder {
         }
         return newMap;
     }
-    private Set<CompositeFeature> createCompositeSet(FeatureCollection fc, TaskMonitor monitor) {
+    private List<CompositeFeature> createCompositeSet(FeatureCollection fc, TaskMonitor monitor) {
         monitor.report("Creating composites of adjacent features");
-        int featuresProcessed = 0;
-        int totalFeatures = fc.getFeatures().size();
-        //Use a Set to prevent duplicate composites [Jon Aquino]
-        Set<CompositeFeature> composites = new HashSet<>();
-        for (Iterator<Feature> i = fc.getFeatures().iterator();
-            i.hasNext() && !monitor.isCancelRequested();
-            ) {
-            Feature feature = i.next();
-            featuresProcessed++;
-            monitor.report(featuresProcessed, totalFeatures, "features");
-            List<Feature> featuresWithCommonEdge = featuresWithCommonEdge(feature, fc);
-            for (Iterator<List<Feature>> j =
-                CollectionUtil
-                    .combinations(featuresWithCommonEdge, maxCompositeSize, feature)
-                    .iterator();
-                j.hasNext() && !monitor.isCancelRequested();
-                ) {
-                List<Feature> combination = j.next();
-                composites.add(new CompositeFeature(fc.getFeatureSchema(), combination));
+        //Each composite is generated once, no Set needed to prevent duplicates
+        List<CompositeFeature> composites = new ArrayList<>();
+        //A composite is grown from the one without its last constituent, whose union is reused
+        Map<List<Feature>, CompositeFeature> compositesByConstituents = new HashMap<>();
+        compositeGenerator = new CompositeGenerator(fc.getFeatures());
+        compositeGenerator.generate(maxCompositeSize, combination -> {
+            CompositeFeature parent = combination.size() > 1
+                ? compositesByConstituents.get(combination.subList(0, combination.size() - 1)) : null;
+            CompositeFeature composite = new CompositeFeature(fc.getFeatureSchema(), combination, parent);
+            if (combination.size() < maxCompositeSize) {
+                compositesByConstituents.put(combination, composite);
             }
-        }
+            composites.add(composite);
+        }, monitor);
+        monitor.report("Created " + compositeGenerator.getCompositeCount() + " composites, up to "
+            + compositeGenerator.getMaxCompositeCount() + " per feature");
         return composites;
     }
+    /**
+     * Method not part of the original JCS code.
+     * @param target a target feature of the last call to match
+     * @return the number of composites the target feature was part of
+     */
+    public int getCompositeCount(Feature target) {
+        return compositeGenerator == null ? 0 : compositeGenerator.getCompositeCount(target);
+    }
 
-    public static class CompositeFeature extends BasicFeature {
+    /**
+     * A union of adjacent target features. The union is only computed when the
+     * geometry is first needed (the envelope is known from the constituents),
+     * from the union of the composite it was grown from if any, which is shared
+     * by all the composites grown from it.
+     */
+    public static class CompositeFeature extends BasicFeature implements LazyGeometryFeature {
         private List<Feature> features;
+        private CompositeFeature parent;
+        private Envelope envelope;
+        private boolean geometryBuilt;
         private int hashCode;
         public CompositeFeature(FeatureSchema schema, List<Feature> features) {
+            this(schema, features, null);
+        }
+        /**
+         * Constructor not part of the original JCS code.
+         * @param schema the feature schema
+         * @param features the constituents
+         * @param parent the composite of all the constituents but the last one,
+         * whose union is reused, or null
+         */
+        public CompositeFeature(FeatureSchema schema, List<Feature> features, CompositeFeature parent) {
             super(schema);
             this.features = features;
-            Geometry union = features.get(0).getGeometry();
+            this.parent = parent;
+            envelope = new Envelope();
             hashCode = features.get(0).hashCode();
-            for (int i = 1; i < features.size(); i++) {
-                Feature feature = features.get(i);
-                union = union.union(feature.getGeometry());
+            for (Feature feature : features) {
+                envelope.expandToInclude(FeatureUtil.getEnvelope(feature));
                 hashCode = Math.min(hashCode, feature.hashCode());
             }
-            setGeometry(union);
         }
         public List<Feature> getFeatures() {
             return features;
         }
         @Override
+        public Envelope getEnvelope() {
+            return envelope;
+        }
+        @Override
+        public synchronized boolean isGeometryBuilt() {
+            return geometryBuilt;
+        }
+        @Override
+        public synchronized Geometry getGeometry() {
+            if (!geometryBuilt) {
+                Geometry union;
+                if (features.size() == 1) {
+                    union = features.get(0).getGeometry();
+                } else if (parent != null) {
+                    union = parent.getGeometry().union(features.get(features.size() - 1).getGeometry());
+                } else {
+                    List<Geometry> geometries = new ArrayList<>();
+                    for (Feature feature : features) {
+                        geometries.add(feature.getGeometry());
+                    }
+                    union = UnaryUnionOp.union(geometries);
+                }
+                setGeometry(union);
+            }
+            return (Geometry) super.getAttribute(getSchema().getGeometryIndex());
+        }
+        @Override
+        public synchronized void setGeometry(Geometry geometry) {
+            super.setGeometry(geometry);
+            geometryBuilt = true;
+            parent = null;
+            envelope = geometry.getEnvelopeInternal();
+        }
+        @Override
+        public Object getAttribute(int i) {
+            if (i == getSchema().getGeometryIndex()) {
+                return getGeometry();
+            }
+            return super.getAttribute(i);
+        }
+        @Override
+        public Object[] getAttributes() {
+            getGeometry();
+            return super.getAttributes();
+        }
+        /**
+         * Compares the constituents, without building the unions.
+         */
+        @Override
+        public int compareTo(Feature o) {
+            if (!(o instanceof CompositeFeature)) {
+                return super.compareTo(o);
+            }
+            List<Feature> otherFeatures = ((CompositeFeature) o).features;
+            if (features.size() != otherFeatures.size()) {
+                return features.size() < otherFeatures.size() ? -1 : 1;
+            }
+            for (int i = 0; i < features.size(); i++) {
+                int result = features.get(i).compareTo(otherFeatures.get(i));
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+        @Override
         public boolean equals(Object obj) {
             Assert.isTrue(obj instanceof CompositeFeature, obj.getClass().toString());
             CompositeFeature other = (CompositeFeature) obj;
@@ -325,8 +361,6 @@ public class TargetUnioningFCMatchFinder implements FCMatchFinder {
         fc.addAll(features);
     }
     public Integer getUnionID(Feature target) {
-        int i = lastTargetConstituents.indexOf(target);
-        if (i == -1) { return null; }
-        return lastUnionIDs.get(i);
+        return lastUnionIDs.get(target);
     }
 }
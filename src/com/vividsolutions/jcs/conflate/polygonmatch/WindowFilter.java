@@ -37,6 +37,8 @@ package com.vividsolutions.jcs.conflate.polygonmatch;
 import org.locationtech.jts.geom.Envelope;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureUtil;
+import com.vividsolutions.jump.feature.PointFeatureCollection;
 import com.vividsolutions.jump.geom.EnvelopeUtil;
 
 /**
@@ -70,8 +72,12 @@ public class WindowFilter implements FeatureMatcher {
    */
     @Override
   public Matches match(Feature target, FeatureCollection candidates) {
-    Envelope window = new Envelope(target.getGeometry().getEnvelopeInternal());
-    window = EnvelopeUtil.expand(window, buffer);
-    return new Matches(candidates.getFeatureSchema(), candidates.query(window));
+    Envelope window = EnvelopeUtil.expand(FeatureUtil.getEnvelope(target), buffer);
+    if (candidates instanceof PointFeatureCollection) {
+      return WindowMatcher.queryPoints(window, (PointFeatureCollection) candidates);
+    }
+    Matches matches = new Matches(candidates.getFeatureSchema());
+    candidates.query(window, candidate -> matches.add(candidate, 1));
+    return matches;
   }
 }
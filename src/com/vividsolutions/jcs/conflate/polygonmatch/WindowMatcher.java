@@ -37,7 +37,8 @@ package com.vividsolutions.jcs.conflate.polygonmatch;
 import org.locationtech.jts.geom.Envelope;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
-import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureUtil;
+import com.vividsolutions.jump.feature.PointFeatureCollection;
 import com.vividsolutions.jump.geom.EnvelopeUtil;
 
 /**
@@ -78,8 +79,25 @@ public class WindowMatcher implements FeatureMatcher {
    */
     @Override
   public Matches match(Feature target, FeatureCollection candidates) {
-    Envelope window = new Envelope(target.getGeometry().getEnvelopeInternal());
-    window = EnvelopeUtil.expand(window, buffer);
-    return new Matches(new FeatureDataset(candidates.query(window), candidates.getFeatureSchema(), window));
+    Envelope window = EnvelopeUtil.expand(FeatureUtil.getEnvelope(target), buffer);
+    if (candidates instanceof PointFeatureCollection) {
+      return queryPoints(window, (PointFeatureCollection) candidates);
+    }
+    // Stream the candidates into the Matches, without intermediate lists
+    Matches matches = new Matches(candidates.getFeatureSchema());
+    candidates.query(window, candidate -> matches.add(candidate, 1));
+    return matches;
+  }
+
+  /**
+   * Queries the coordinate arrays of a node-only collection, without looking
+   * at the geometries.
+   * Method not part of the original JCS code.
+   */
+  static Matches queryPoints(Envelope window, PointFeatureCollection points) {
+    Matches matches = new Matches(points.getFeatureSchema());
+    points.query(window.getMinX(), window.getMinY(), window.getMaxX(), window.getMaxY(),
+        i -> matches.add(points.getFeature(i), 1));
+    return matches;
   }
 }
@@ -34,6 +34,7 @@ package com.vividsolutions.jump.feature;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.locationtech.jts.geom.Envelope;
 
@@ -86,6 +87,20 @@ public interface FeatureCollection extends Iterable<Feature> {
      */
     List<Feature> query(Envelope envelope);
 
+    /**
+     * Visits the features whose envelopes intersect the given envelope, without
+     * building a result list. Implementations backed by an index override it to
+     * stream the features straight from the index.
+     * Method not part of the original JCS code.
+     * @param envelope the envelope to query against
+     * @param visitor receives each feature whose envelope intersects the given envelope
+     */
+    default void query(Envelope envelope, Consumer<Feature> visitor) {
+        for (Feature feature : query(envelope)) {
+            visitor.accept(feature);
+        }
+    }
+
     /**
      * Adds a feature to this collection.
      * @param feature a Feature to add to the end of this collection
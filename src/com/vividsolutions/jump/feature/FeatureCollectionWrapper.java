@@ -36,6 +36,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.util.Assert;
@@ -116,6 +117,11 @@ public abstract class FeatureCollectionWrapper implements FeatureCollection {
         return fc.query(envelope);
     }
 
+    @Override
+	public void query(Envelope envelope, Consumer<Feature> visitor) {
+        fc.query(envelope, visitor);
+    }
+
     @Override
 	public void add(Feature feature) {
         fc.add(feature);
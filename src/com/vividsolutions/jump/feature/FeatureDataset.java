@@ -32,22 +32,36 @@
 package com.vividsolutions.jump.feature;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 import org.locationtech.jts.geom.Envelope;
 
+import com.vividsolutions.jump.geom.GridIndex;
+
 /**
  * Basic implementation of FeatureCollection.
+ * <p>
+ * Queries scan the features linearly, until the collection is queried twice
+ * without being modified in between: a grid index of the features is then
+ * built, and used by the following queries until the next modification.
  */
 public class FeatureDataset implements FeatureCollection {
+    /** Smaller collections are always scanned linearly. */
+    private static final int MIN_INDEXED_SIZE = 64;
+
     private FeatureSchema featureSchema;
 
-    //<<TODO>> Possibly use hashtable to do spatial indexing [Jon Aquino]
     private List<Feature> features;
     private Envelope envelope = null;
+    /** Grid index of the features, by position in the features list. */
+    private GridIndex index;
+    private int queriesSinceChange;
 
     /**
      * Creates a FeatureDataset, initialized with a group of Features.
@@ -113,6 +127,7 @@ public class FeatureDataset implements FeatureCollection {
     /**
      * Because the envelope is cached, the envelope may be incorrect if you
      * later change a Feature's geometry using Feature#setGeometry.
+     * The same goes for the spatial index, see {@link #invalidateEnvelope()}.
      */
     @Override
     public Envelope getEnvelope() {
@@ -120,8 +135,7 @@ public class FeatureDataset implements FeatureCollection {
             envelope = new Envelope();
 
             for (Feature feature : features) {
-                envelope.expandToInclude(feature.getGeometry()
-                                                .getEnvelopeInternal());
+                envelope.expandToInclude(FeatureUtil.getEnvelope(feature));
             }
         }
 
@@ -154,21 +168,78 @@ public class FeatureDataset implements FeatureCollection {
         //<<TODO:NAMING>> Rename this method to getFeatures(Envelope), to parallel
         //getFeatures() [Jon Aquino]
         List<Feature> queryResult = new ArrayList<>();
+        query(envelope, queryResult::add);
+
+        return queryResult;
+    }
 
-        for (Feature feature : features) {
-            if (feature.getGeometry().getEnvelopeInternal().intersects(envelope)) {
-                queryResult.add(feature);
+    /**
+     * Visits the features in the order of the collection, using the grid
+     * index when the collection is queried repeatedly.
+     */
+    @Override
+    public void query(Envelope envelope, Consumer<Feature> visitor) {
+        if (!envelope.intersects(getEnvelope())) {
+            return;
+        }
+        GridIndex grid = getIndex();
+        if (grid == null) {
+            for (Feature feature : features) {
+                if (FeatureUtil.getEnvelope(feature).intersects(envelope)) {
+                    visitor.accept(feature);
+                }
             }
+            return;
         }
+        Positions positions = new Positions();
+        grid.query(envelope.getMinX(), envelope.getMinY(), envelope.getMaxX(), envelope.getMaxY(), positions);
+        // Keep the order of the linear scan
+        Arrays.sort(positions.positions, 0, positions.size);
+        for (int i = 0; i < positions.size; i++) {
+            visitor.accept(features.get(positions.positions[i]));
+        }
+    }
 
-        return queryResult;
+    /**
+     * @return the grid index, or null while the collection is small or has
+     * not been queried twice since its last modification
+     */
+    private GridIndex getIndex() {
+        if (index == null && features.size() >= MIN_INDEXED_SIZE && ++queriesSinceChange >= 2) {
+            GridIndex grid = new GridIndex();
+            for (Feature feature : features) {
+                grid.insert(FeatureUtil.getEnvelope(feature), feature);
+            }
+            index = grid;
+        }
+        return index;
+    }
+
+    private void invalidateIndex() {
+        index = null;
+        queriesSinceChange = 0;
+    }
+
+    /** The positions of the features found by a grid query. */
+    private static final class Positions implements IntConsumer {
+        private int[] positions = new int[16];
+        private int size;
+
+        @Override
+        public void accept(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, 2 * size);
+            }
+            positions[size++] = position;
+        }
     }
 
     @Override
     public void add(Feature feature) {
         features.add(feature);
+        invalidateIndex();
         if (envelope != null) {
-            envelope.expandToInclude(feature.getGeometry().getEnvelopeInternal());
+            envelope.expandToInclude(FeatureUtil.getEnvelope(feature));
         }
     }
 
@@ -215,19 +286,42 @@ public class FeatureDataset implements FeatureCollection {
 
     @Override
     public Iterator<Feature> iterator() {
-        return features.iterator();
+        Iterator<Feature> iterator = features.iterator();
+        return new Iterator<Feature>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Feature next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                invalidateEnvelope();
+            }
+        };
     }
 
+    /**
+     * Drops the cached envelope and spatial index, to call after changing the
+     * geometry of a feature of the collection.
+     */
     public void invalidateEnvelope() {
         envelope = null;
+        invalidateIndex();
     }
 
     @Override
     public void addAll(Collection<? extends Feature> features) {
         this.features.addAll(features);
+        invalidateIndex();
         if (envelope != null) {
             for (Feature feature : features) {
-                envelope.expandToInclude(feature.getGeometry().getEnvelopeInternal());
+                envelope.expandToInclude(FeatureUtil.getEnvelope(feature));
             }
         }
     }
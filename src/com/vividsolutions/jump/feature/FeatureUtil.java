@@ -1,8 +1,24 @@
 package com.vividsolutions.jump.feature;
 
+import org.locationtech.jts.geom.Envelope;
+
 public class FeatureUtil {
 
 	private static int lastID = 0;
 
 	public static int nextID() { return ++lastID; }
+
+	/**
+	 * Returns the envelope of the feature geometry, without building the
+	 * geometry of a {@link LazyGeometryFeature}.
+	 * Method not part of the original JCS code.
+	 * @param feature the feature
+	 * @return the envelope of its geometry
+	 */
+	public static Envelope getEnvelope(Feature feature) {
+		if (feature instanceof LazyGeometryFeature) {
+			return ((LazyGeometryFeature) feature).getEnvelope();
+		}
+		return feature.getGeometry().getEnvelopeInternal();
+	}
 }
@@ -34,14 +34,26 @@ package com.vividsolutions.jump.feature;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.index.SpatialIndex;
+import org.locationtech.jts.index.quadtree.Quadtree;
 import org.locationtech.jts.index.strtree.STRtree;
 
+import com.vividsolutions.jump.geom.DynamicSpatialIndex;
+import com.vividsolutions.jump.geom.GridIndex;
+
 /**
  *  An IndexedFeatureCollection creates a new collection which is backed by a
  *  FeatureCollection, but which is indexed for query purposes.
+ *  <p>
+ *  The default STRtree index is packed when it is first queried, and can't be
+ *  modified afterwards. Collections indexed with a {@link DynamicSpatialIndex}
+ *  (see {@link #createModifiable(FeatureCollection)}) or a {@link Quadtree}
+ *  support the add and remove operations, which update the index
+ *  incrementally. So do the collections indexed with a {@link GridIndex},
+ *  which is rebuilt on the next query.
  */
 public class IndexedFeatureCollection extends FeatureCollectionWrapper {
     private SpatialIndex spatialIndex;
@@ -49,6 +61,7 @@ public class IndexedFeatureCollection extends FeatureCollectionWrapper {
     public IndexedFeatureCollection(FeatureCollection fc) {
         //Based on tests on Victoria ICI data, 10 is an optimum node-capacity for
         //fast queries. [Jon Aquino]
+        //See SpatialIndexType.createIndex for an index chosen from the data.
         this(fc, new STRtree(10));
     }
 
@@ -59,14 +72,45 @@ public class IndexedFeatureCollection extends FeatureCollectionWrapper {
         createIndex();
     }
 
+    /**
+     * Creates a collection indexed with a {@link DynamicSpatialIndex}, which
+     * can be modified without rebuilding the whole index after each change.
+     * Method not part of the original JCS code.
+     * @param fc the features to index
+     * @return a modifiable indexed collection, backed by the given collection
+     */
+    public static IndexedFeatureCollection createModifiable(FeatureCollection fc) {
+        return new IndexedFeatureCollection(fc, new DynamicSpatialIndex(10));
+    }
+
+    /**
+     * Method not part of the original JCS code.
+     * @return true if the index supports insertions and removals after it
+     * has been queried
+     */
+    public boolean isModifiable() {
+        return spatialIndex instanceof DynamicSpatialIndex || spatialIndex instanceof Quadtree
+                || spatialIndex instanceof GridIndex;
+    }
+
+    private void checkModifiable() {
+        if (!isModifiable()) {
+            throw new UnsupportedOperationException("Index cannot be modified");
+        }
+    }
+
     @Override
 	public void add(Feature feature) {
-        throw new UnsupportedOperationException("Index cannot be modified");
+        checkModifiable();
+        super.add(feature);
+        spatialIndex.insert(FeatureUtil.getEnvelope(feature), feature);
     }
 
     @Override
 	public void remove(Feature feature) {
-        throw new UnsupportedOperationException("Index cannot be modified");
+        checkModifiable();
+        super.remove(feature);
+        spatialIndex.remove(FeatureUtil.getEnvelope(feature), feature);
     }
 
     @Override
@@ -79,7 +123,7 @@ public class IndexedFeatureCollection extends FeatureCollectionWrapper {
         List<Feature> result = new ArrayList<>();
 
         for (Feature f : candidate) {
-            if (env.intersects(f.getGeometry().getEnvelopeInternal())) {
+            if (env.intersects(FeatureUtil.getEnvelope(f))) {
                 result.add(f);
             }
         }
@@ -87,24 +131,54 @@ public class IndexedFeatureCollection extends FeatureCollectionWrapper {
         return result;
     }
 
+    /**
+     * Streams the features from the index, without the intermediate lists.
+     * Method not part of the original JCS code.
+     */
+    @Override
+	public void query(Envelope env, Consumer<Feature> visitor) {
+        spatialIndex.query(env, item -> {
+            Feature f = (Feature) item;
+            if (env.intersects(FeatureUtil.getEnvelope(f))) {
+                visitor.accept(f);
+            }
+        });
+    }
+
     private void createIndex() {
         for (Feature f : this) {
-            spatialIndex.insert(f.getGeometry().getEnvelopeInternal(), f);
+            spatialIndex.insert(FeatureUtil.getEnvelope(f), f);
         }
     }
 
     @Override
 	public void addAll(Collection<? extends Feature> features) {
-        throw new UnsupportedOperationException("Index cannot be modified");
+        checkModifiable();
+        super.addAll(features);
+        for (Feature f : features) {
+            spatialIndex.insert(FeatureUtil.getEnvelope(f), f);
+        }
     }
 
     @Override
 	public Collection<Feature> remove(Envelope env) {
-        throw new UnsupportedOperationException("Index cannot be modified");
+        checkModifiable();
+        List<Feature> features = query(env);
+        removeAll(features);
+        return features;
     }
 
     @Override
 	public void removeAll(Collection<Feature> features) {
-        throw new UnsupportedOperationException("Index cannot be modified");
+        checkModifiable();
+        super.removeAll(features);
+        if (spatialIndex instanceof GridIndex) {
+            // one pass, instead of a linear search per feature
+            ((GridIndex) spatialIndex).removeAll(features);
+            return;
+        }
+        for (Feature f : features) {
+            spatialIndex.remove(FeatureUtil.getEnvelope(f), f);
+        }
     }
 }
@@ -0,0 +1,24 @@
+package com.vividsolutions.jump.feature;
+
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * A Feature whose geometry is expensive to build, and is only built when
+ * {@link Feature#getGeometry()} is first called. Its envelope is known
+ * beforehand, so it can be indexed and queried without building the geometry
+ * (see {@link FeatureUtil#getEnvelope(Feature)}).
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public interface LazyGeometryFeature extends Feature {
+
+    /**
+     * @return the envelope of the geometry, without building it
+     */
+    Envelope getEnvelope();
+
+    /**
+     * @return true if the geometry has already been built
+     */
+    boolean isGeometryBuilt();
+}
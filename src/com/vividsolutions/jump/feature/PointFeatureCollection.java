@@ -0,0 +1,256 @@
+package com.vividsolutions.jump.feature;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+
+/**
+ * A read-only FeatureCollection of point features, for node to node matching.
+ * <p>
+ * The coordinates are copied once into flat arrays, and indexed with a
+ * uniform grid stored in two int arrays. Queries and distance computations
+ * can then run on the arrays without touching the geometries. Matchers which
+ * know about this class (window and distance matchers) use
+ * {@link #query(double, double, double, double, IntConsumer)} and the
+ * coordinate accessors directly.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class PointFeatureCollection implements FeatureCollection {
+
+    /** Target average number of points per grid cell. */
+    private static final int POINTS_PER_CELL = 2;
+
+    private final FeatureSchema featureSchema;
+    private final List<Feature> features;
+    private final double[] xs;
+    private final double[] ys;
+    private final Map<Feature, Integer> indices;
+    private final Envelope envelope = new Envelope();
+
+    private double cellSize;
+    private int columns;
+    private int rows;
+    /** Start in cellItems of the points of each cell, plus a final end marker. */
+    private int[] cellStarts;
+    /** The point indices, sorted by cell. */
+    private int[] cellItems;
+
+    /**
+     * Copies the coordinates of the given point features.
+     * @param fc features which all have a non-empty Point geometry
+     * @throws IllegalArgumentException if a feature is not a point
+     */
+    public PointFeatureCollection(FeatureCollection fc) {
+        this.featureSchema = fc.getFeatureSchema();
+        this.features = new ArrayList<>(fc.getFeatures());
+        int n = features.size();
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.indices = new IdentityHashMap<>(n);
+        for (int i = 0; i < n; i++) {
+            Geometry geometry = features.get(i).getGeometry();
+            if (!(geometry instanceof Point) || geometry.isEmpty()) {
+                throw new IllegalArgumentException("Not a point feature: " + geometry);
+            }
+            xs[i] = ((Point) geometry).getX();
+            ys[i] = ((Point) geometry).getY();
+            envelope.expandToInclude(xs[i], ys[i]);
+            indices.put(features.get(i), i);
+        }
+        buildGrid();
+    }
+
+    /**
+     * @param features the features to test
+     * @return true if all features have a non-empty Point geometry
+     */
+    public static boolean containsOnlyPoints(Iterable<Feature> features) {
+        for (Feature feature : features) {
+            if (feature instanceof LazyGeometryFeature) {
+                // Composites or relations, no need to build their geometry to know
+                return false;
+            }
+            Geometry geometry = feature.getGeometry();
+            if (!(geometry instanceof Point) || geometry.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void buildGrid() {
+        int n = xs.length;
+        double width = envelope.getWidth();
+        double height = envelope.getHeight();
+        int cells = Math.max(1, n / POINTS_PER_CELL);
+        // Square cells, but not thinner than the extent divided by the number
+        // of cells, so aligned points don't create a huge number of cells.
+        cellSize = Math.max(Math.sqrt(width * height / cells), Math.max(width, height) / cells);
+        cellSize = Math.max(cellSize, 1e-9);
+        columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        // Counting sort of the points by cell.
+        cellStarts = new int[columns * rows + 1];
+        int[] pointCells = new int[n];
+        for (int i = 0; i < n; i++) {
+            pointCells[i] = cell(column(xs[i]), row(ys[i]));
+            cellStarts[pointCells[i] + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStarts[c + 1] += cellStarts[c];
+        }
+        int[] next = new int[columns * rows];
+        System.arraycopy(cellStarts, 0, next, 0, next.length);
+        cellItems = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellItems[next[pointCells[i]]++] = i;
+        }
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - envelope.getMinX()) / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - envelope.getMinY()) / cellSize)));
+    }
+
+    private int cell(int column, int row) {
+        return row * columns + column;
+    }
+
+    /**
+     * Visits the index of each point inside the given bounds.
+     * @param minX the minimum x of the query
+     * @param minY the minimum y of the query
+     * @param maxX the maximum x of the query
+     * @param maxY the maximum y of the query
+     * @param visitor receives the index of each point found
+     */
+    public void query(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+        if (xs.length == 0 || maxX < envelope.getMinX() || minX > envelope.getMaxX()
+                || maxY < envelope.getMinY() || minY > envelope.getMaxY()) {
+            return;
+        }
+        int minColumn = column(minX);
+        int maxColumn = column(maxX);
+        int maxRow = row(maxY);
+        for (int r = row(minY); r <= maxRow; r++) {
+            for (int c = minColumn; c <= maxColumn; c++) {
+                int cell = cell(c, r);
+                for (int k = cellStarts[cell]; k < cellStarts[cell + 1]; k++) {
+                    int i = cellItems[k];
+                    double x = xs[i];
+                    double y = ys[i];
+                    if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                        visitor.accept(i);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param feature a feature of this collection
+     * @return the index of the feature, or -1 if it does not belong to this collection
+     */
+    public int indexOf(Feature feature) {
+        Integer index = indices.get(feature);
+        return index == null ? -1 : index;
+    }
+
+    public Feature getFeature(int index) {
+        return features.get(index);
+    }
+
+    public double getX(int index) {
+        return xs[index];
+    }
+
+    public double getY(int index) {
+        return ys[index];
+    }
+
+    @Override
+    public FeatureSchema getFeatureSchema() {
+        return featureSchema;
+    }
+
+    @Override
+    public Envelope getEnvelope() {
+        return envelope;
+    }
+
+    @Override
+    public int size() {
+        return features.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return features.isEmpty();
+    }
+
+    @Override
+    public List<Feature> getFeatures() {
+        return Collections.unmodifiableList(features);
+    }
+
+    @Override
+    public Iterator<Feature> iterator() {
+        return getFeatures().iterator();
+    }
+
+    @Override
+    public List<Feature> query(Envelope env) {
+        List<Feature> result = new ArrayList<>();
+        query(env.getMinX(), env.getMinY(), env.getMaxX(), env.getMaxY(), i -> result.add(features.get(i)));
+        return result;
+    }
+
+    @Override
+    public void query(Envelope env, Consumer<Feature> visitor) {
+        query(env.getMinX(), env.getMinY(), env.getMaxX(), env.getMaxY(), i -> visitor.accept(features.get(i)));
+    }
+
+    @Override
+    public void add(Feature feature) {
+        throw new UnsupportedOperationException("Index cannot be modified");
+    }
+
+    @Override
+    public void addAll(Collection<? extends Feature> features) {
+        throw new UnsupportedOperationException("Index cannot be modified");
+    }
+
+    @Override
+    public void removeAll(Collection<Feature> features) {
+        throw new UnsupportedOperationException("Index cannot be modified");
+    }
+
+    @Override
+    public void remove(Feature feature) {
+        throw new UnsupportedOperationException("Index cannot be modified");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Index cannot be modified");
+    }
+
+    @Override
+    public Collection<Feature> remove(Envelope env) {
+        throw new UnsupportedOperationException("Index cannot be modified");
+    }
+}
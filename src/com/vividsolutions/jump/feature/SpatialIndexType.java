@@ -0,0 +1,153 @@
+package com.vividsolutions.jump.feature;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.SpatialIndex;
+import org.locationtech.jts.index.hprtree.HPRtree;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import com.vividsolutions.jump.geom.DynamicSpatialIndex;
+import com.vividsolutions.jump.geom.GridIndex;
+
+/**
+ * The spatial index implementations which can back an
+ * {@link IndexedFeatureCollection}, and the choice of one for given data
+ * (see {@link #createIndex(FeatureCollection)}).
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public enum SpatialIndexType {
+    /** Sort-Tile-Recursive packed R-tree, the historical default. */
+    STRTREE {
+        @Override
+        public SpatialIndex create(int nodeCapacity) {
+            return new STRtree(nodeCapacity);
+        }
+    },
+    /** R-tree packed along a Hilbert curve, with its nodes in flat arrays. */
+    HPRTREE {
+        @Override
+        public SpatialIndex create(int nodeCapacity) {
+            return new HPRtree(nodeCapacity);
+        }
+    },
+    /** Uniform grid, the node capacity being the average number of items per cell. */
+    GRID {
+        @Override
+        public SpatialIndex create(int nodeCapacity) {
+            return new GridIndex(nodeCapacity);
+        }
+    },
+    /** Packed STRtree plus incremental changes, see {@link DynamicSpatialIndex}. */
+    DYNAMIC {
+        @Override
+        public SpatialIndex create(int nodeCapacity) {
+            return new DynamicSpatialIndex(nodeCapacity);
+        }
+    };
+
+    /** Target average number of items per cell of the grids. */
+    private static final int GRID_ITEMS_PER_CELL = 4;
+    /**
+     * The grid is not used when the features are so clustered that a query
+     * would look at more than this factor times the average cell load: its
+     * build is about ten times faster than the one of the trees, which
+     * compensates slower queries up to this point.
+     * See SpatialIndexBenchmark for the measures behind these constants.
+     */
+    static final int MAX_GRID_LOAD_FACTOR = 64;
+    /** Node capacity of the R-trees, measured as the best on OSM-like data. */
+    private static final int TREE_NODE_CAPACITY = 8;
+
+    /**
+     * @param nodeCapacity the maximum number of children of a node, or the
+     * average number of items per cell for a grid
+     * @return a new empty index
+     */
+    public abstract SpatialIndex create(int nodeCapacity);
+
+    /**
+     * Chooses the index for the given features, from their number and density.
+     * <p>
+     * The uniform grid has the fastest build and queries on most data, even on
+     * towns of dense buildings among sparse points, but degenerates when most
+     * features are packed in a small part of the extent (a city and a few far
+     * away points): the grid cells are then much larger than the dense area.
+     * The load of the cells containing the features is estimated with a coarse
+     * grid, and the packed Hilbert R-tree is used instead when it is too high.
+     * @param fc the features to index
+     * @return the type of index to use
+     */
+    public static SpatialIndexType choose(FeatureCollection fc) {
+        return estimateGridLoadFactor(fc) > MAX_GRID_LOAD_FACTOR ? HPRTREE : GRID;
+    }
+
+    /**
+     * Estimates the load of the grid cells containing the features, with a
+     * coarse grid of the same number of cells as the index.
+     * @param fc the features to index
+     * @return the average number of features in the cell of a feature, divided
+     * by the average number of items per cell: about 1 for uniform data, and
+     * 0 for too few features
+     */
+    static double estimateGridLoadFactor(FeatureCollection fc) {
+        int n = fc.size();
+        if (n < 2 * GRID_ITEMS_PER_CELL) {
+            return 0;
+        }
+        Envelope extent = new Envelope();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int i = 0;
+        for (Feature feature : fc) {
+            Envelope envelope = FeatureUtil.getEnvelope(feature);
+            if (i == n || envelope.isNull()) {
+                continue;
+            }
+            xs[i] = (envelope.getMinX() + envelope.getMaxX()) / 2;
+            ys[i] = (envelope.getMinY() + envelope.getMaxY()) / 2;
+            extent.expandToInclude(xs[i], ys[i]);
+            i++;
+        }
+        n = i;
+        // Same number of cells as the grid, square cells over the extent
+        int cells = Math.max(1, n / GRID_ITEMS_PER_CELL);
+        double cellSize = Math.max(Math.sqrt(extent.getArea() / cells), Math.max(extent.getWidth(),
+                extent.getHeight()) / cells);
+        if (!(cellSize > 0)) {
+            return 0;
+        }
+        int columns = Math.max(1, (int) Math.ceil(extent.getWidth() / cellSize));
+        int rows = Math.max(1, (int) Math.ceil(extent.getHeight() / cellSize));
+        int[] counts = new int[columns * rows];
+        for (int k = 0; k < n; k++) {
+            int column = Math.min(columns - 1, (int) ((xs[k] - extent.getMinX()) / cellSize));
+            int row = Math.min(rows - 1, (int) ((ys[k] - extent.getMinY()) / cellSize));
+            counts[row * columns + column]++;
+        }
+        // Average load of the cell of a feature: sum of count^2 / n
+        double load = 0;
+        for (int count : counts) {
+            load += (double) count * count;
+        }
+        return load / n / GRID_ITEMS_PER_CELL;
+    }
+
+    /**
+     * @return the node capacity giving the best queries for this type of
+     * index, or the average number of items per cell for a grid
+     */
+    public int getDefaultNodeCapacity() {
+        return this == GRID ? GRID_ITEMS_PER_CELL : TREE_NODE_CAPACITY;
+    }
+
+    /**
+     * Creates the index chosen by {@link #choose(FeatureCollection)}, with
+     * its default node capacity. The features are not inserted.
+     * @param fc the features to index
+     * @return a new empty index
+     */
+    public static SpatialIndex createIndex(FeatureCollection fc) {
+        SpatialIndexType type = choose(fc);
+        return type.create(type.getDefaultNodeCapacity());
+    }
+}
@@ -0,0 +1,176 @@
+package com.vividsolutions.jump.geom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.ItemVisitor;
+import org.locationtech.jts.index.SpatialIndex;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.locationtech.jts.index.strtree.STRtree;
+
+/**
+ * A SpatialIndex supporting insertions and removals at any time, with query
+ * times close to the ones of a packed STRtree.
+ * <p>
+ * The items are bulk-loaded in an STRtree on the first query. The items
+ * inserted afterwards go to a {@link Quadtree}, and the removed items of the
+ * STRtree are remembered in an identity set. When these changes reach a
+ * fraction of the size of the STRtree, it is packed again with all the items.
+ * Each change then costs a Quadtree update plus an amortized part of the
+ * repacking, which are both logarithmic in the number of items.
+ * <p>
+ * Items are compared by identity, and the envelope given to
+ * {@link #remove(Envelope, Object)} is ignored: the envelope given at
+ * insertion is used.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class DynamicSpatialIndex implements SpatialIndex {
+
+    /**
+     * Minimum number of changes before repacking, for the small indexes.
+     * See DynamicSpatialIndexBenchmark for the measures behind the two constants.
+     */
+    private static final int MIN_CHANGES = 64;
+    /** The STRtree is repacked when the changes reach 1/REPACK_RATIO of its size. */
+    private static final int REPACK_RATIO = 4;
+
+    private final int nodeCapacity;
+    private final int minChanges;
+    private final int repackRatio;
+    /** All the items, with their envelope. */
+    private final Map<Object, Entry> entries = new IdentityHashMap<>();
+    private STRtree packed;
+    private int packedSize;
+    /** The items inserted since the STRtree was packed. */
+    private Quadtree inserted = new Quadtree();
+    /** The items of the STRtree which have been removed since it was packed. */
+    private Set<Object> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int changes;
+
+    /**
+     * @param nodeCapacity the node capacity of the packed STRtree
+     */
+    public DynamicSpatialIndex(int nodeCapacity) {
+        this(nodeCapacity, MIN_CHANGES, REPACK_RATIO);
+    }
+
+    /**
+     * @param nodeCapacity the node capacity of the packed STRtree
+     * @param minChanges the minimum number of changes before repacking
+     * @param repackRatio the STRtree is repacked when the changes reach 1/repackRatio of its size
+     */
+    DynamicSpatialIndex(int nodeCapacity, int minChanges, int repackRatio) {
+        this.nodeCapacity = nodeCapacity;
+        this.minChanges = minChanges;
+        this.repackRatio = repackRatio;
+    }
+
+    public DynamicSpatialIndex() {
+        this(10);
+    }
+
+    @Override
+    public void insert(Envelope itemEnv, Object item) {
+        Entry entry = new Entry(itemEnv, item);
+        Entry previous = entries.put(item, entry);
+        if (packed == null) {
+            return;
+        }
+        if (previous != null && !inserted.remove(previous.envelope, previous)) {
+            removed.add(item);
+        }
+        inserted.insert(entry.envelope, entry);
+        changed();
+    }
+
+    @Override
+    public boolean remove(Envelope itemEnv, Object item) {
+        Entry entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        if (packed != null) {
+            if (!inserted.remove(entry.envelope, entry)) {
+                removed.add(item);
+            }
+            changed();
+        }
+        return true;
+    }
+
+    private void changed() {
+        changes++;
+        if (changes > Math.max(minChanges, packedSize / repackRatio)) {
+            // Pack again on the next query
+            packed = null;
+        }
+    }
+
+    private void pack() {
+        STRtree tree = new STRtree(nodeCapacity);
+        for (Entry entry : entries.values()) {
+            tree.insert(entry.envelope, entry.item);
+        }
+        tree.build();
+        packed = tree;
+        packedSize = entries.size();
+        inserted = new Quadtree();
+        removed.clear();
+        changes = 0;
+    }
+
+    @Override
+    public void query(Envelope searchEnv, ItemVisitor visitor) {
+        if (packed == null) {
+            pack();
+        }
+        if (removed.isEmpty()) {
+            packed.query(searchEnv, visitor);
+        } else {
+            packed.query(searchEnv, item -> {
+                if (!removed.contains(item)) {
+                    visitor.visitItem(item);
+                }
+            });
+        }
+        if (changes > 0) {
+            // The quadtree returns the items of all the nodes intersecting the envelope
+            inserted.query(searchEnv, item -> {
+                Entry entry = (Entry) item;
+                if (entry.envelope.intersects(searchEnv)) {
+                    visitor.visitItem(entry.item);
+                }
+            });
+        }
+    }
+
+    @Override
+    public List<Object> query(Envelope searchEnv) {
+        List<Object> result = new ArrayList<>();
+        query(searchEnv, result::add);
+        return result;
+    }
+
+    /**
+     * @return the number of items in the index
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final Envelope envelope;
+        private final Object item;
+
+        Entry(Envelope envelope, Object item) {
+            this.envelope = envelope;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.vividsolutions.jump.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.ItemVisitor;
+import org.locationtech.jts.index.SpatialIndex;
+
+/**
+ * A SpatialIndex storing the items in the cells of a uniform grid.
+ * <p>
+ * The item bounds are kept in flat arrays, and the grid is built on the first
+ * query with a counting sort of the items by cell, so it has no per-item node
+ * objects. Items larger than a cell are stored in each cell they overlap, and
+ * reported once, from the cell containing the lower left corner of the
+ * intersection of their envelope with the query.
+ * <p>
+ * The grid is rebuilt on the first query following an insertion or a removal,
+ * which makes it suited to data which is bulk-loaded and rarely modified, with
+ * a roughly uniform density: on clustered data, most of the cells are empty or
+ * overloaded.
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class GridIndex implements SpatialIndex {
+
+    /** Upper bound of the number of cells per item. */
+    private static final int MAX_CELLS_PER_ITEM = 4;
+
+    private final int itemsPerCell;
+    private final List<Object> items = new ArrayList<>();
+    private double[] bounds = new double[64];
+
+    private boolean built;
+    private double originX;
+    private double originY;
+    private double cellSize;
+    private int columns;
+    private int rows;
+    /** Start in cellItems of the items of each cell, plus a final end marker. */
+    private int[] cellStarts;
+    /** The item indices, sorted by cell. */
+    private int[] cellItems;
+
+    /**
+     * @param itemsPerCell the target average number of items per cell
+     */
+    public GridIndex(int itemsPerCell) {
+        this.itemsPerCell = Math.max(1, itemsPerCell);
+    }
+
+    public GridIndex() {
+        this(4);
+    }
+
+    /**
+     * Inserts the item. Items with a null envelope are kept, so that the
+     * positions of the items follow the insertion order, but never found.
+     */
+    @Override
+    public void insert(Envelope itemEnv, Object item) {
+        int i = items.size();
+        if (4 * i + 4 > bounds.length) {
+            bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+        }
+        if (itemEnv.isNull()) {
+            // min > max: never intersects anything
+            bounds[4 * i] = bounds[4 * i + 1] = Double.POSITIVE_INFINITY;
+            bounds[4 * i + 2] = bounds[4 * i + 3] = Double.NEGATIVE_INFINITY;
+        } else {
+            bounds[4 * i] = itemEnv.getMinX();
+            bounds[4 * i + 1] = itemEnv.getMinY();
+            bounds[4 * i + 2] = itemEnv.getMaxX();
+            bounds[4 * i + 3] = itemEnv.getMaxY();
+        }
+        items.add(item);
+        built = false;
+    }
+
+    /**
+     * Removes the item, and moves the last item in its place.
+     * The removal is linear in the number of items.
+     */
+    @Override
+    public boolean remove(Envelope itemEnv, Object item) {
+        for (int i = items.size() - 1; i >= 0; i--) {
+            if (items.get(i) == item) {
+                int last = items.size() - 1;
+                items.set(i, items.get(last));
+                items.remove(last);
+                System.arraycopy(bounds, 4 * last, bounds, 4 * i, 4);
+                built = false;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the given items, in one pass over the items.
+     * @param removedItems the items to remove, compared by identity
+     * @return the number of items removed
+     */
+    public int removeAll(Iterable<?> removedItems) {
+        Map<Object, Boolean> removedSet = new IdentityHashMap<>();
+        for (Object item : removedItems) {
+            removedSet.put(item, Boolean.TRUE);
+        }
+        int kept = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (!removedSet.containsKey(items.get(i))) {
+                items.set(kept, items.get(i));
+                System.arraycopy(bounds, 4 * i, bounds, 4 * kept, 4);
+                kept++;
+            }
+        }
+        int removed = items.size() - kept;
+        items.subList(kept, items.size()).clear();
+        if (removed > 0) {
+            built = false;
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all the items.
+     */
+    public void clear() {
+        items.clear();
+        built = false;
+    }
+
+    /**
+     * @return the number of items in the index
+     */
+    public int size() {
+        return items.size();
+    }
+
+    private void build() {
+        int n = items.size();
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double itemSizes = 0;
+        int indexed = 0;
+        for (int i = 0; i < n; i++) {
+            if (isNull(i)) {
+                continue;
+            }
+            indexed++;
+            minX = Math.min(minX, bounds[4 * i]);
+            minY = Math.min(minY, bounds[4 * i + 1]);
+            maxX = Math.max(maxX, bounds[4 * i + 2]);
+            maxY = Math.max(maxY, bounds[4 * i + 3]);
+            itemSizes += Math.max(bounds[4 * i + 2] - bounds[4 * i], bounds[4 * i + 3] - bounds[4 * i + 1]);
+        }
+        if (indexed == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        double width = maxX - minX;
+        double height = maxY - minY;
+        int cells = Math.max(1, indexed / itemsPerCell);
+        // Square cells, not thinner than the extent divided by the number of
+        // cells (aligned items), and not much smaller than the items.
+        cellSize = Math.max(Math.sqrt(width * height / cells), Math.max(width, height) / cells);
+        cellSize = Math.max(cellSize, indexed == 0 ? 0 : itemSizes / indexed / 2);
+        cellSize = Math.max(cellSize, 1e-9);
+        originX = minX;
+        originY = minY;
+        columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        if ((long) columns * rows > (long) MAX_CELLS_PER_ITEM * Math.max(indexed, 1)) {
+            // Flat extents with tiny items, cap the number of cells
+            double scale = Math.sqrt((double) columns * rows / (MAX_CELLS_PER_ITEM * Math.max(indexed, 1)));
+            cellSize *= scale;
+            columns = Math.max(1, (int) Math.ceil(width / cellSize));
+            rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        }
+        // Counting sort of the items by cell, an item being in all the cells it overlaps
+        cellStarts = new int[columns * rows + 1];
+        for (int i = 0; i < n; i++) {
+            if (isNull(i)) {
+                continue;
+            }
+            int maxColumn = column(bounds[4 * i + 2]);
+            int maxRow = row(bounds[4 * i + 3]);
+            for (int r = row(bounds[4 * i + 1]); r <= maxRow; r++) {
+                for (int c = column(bounds[4 * i]); c <= maxColumn; c++) {
+                    cellStarts[r * columns + c + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStarts[c + 1] += cellStarts[c];
+        }
+        int[] next = Arrays.copyOf(cellStarts, columns * rows);
+        cellItems = new int[cellStarts[columns * rows]];
+        for (int i = 0; i < n; i++) {
+            if (isNull(i)) {
+                continue;
+            }
+            int maxColumn = column(bounds[4 * i + 2]);
+            int maxRow = row(bounds[4 * i + 3]);
+            for (int r = row(bounds[4 * i + 1]); r <= maxRow; r++) {
+                for (int c = column(bounds[4 * i]); c <= maxColumn; c++) {
+                    cellItems[next[r * columns + c]++] = i;
+                }
+            }
+        }
+        built = true;
+    }
+
+    private boolean isNull(int i) {
+        return bounds[4 * i] > bounds[4 * i + 2];
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - originX) / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - originY) / cellSize)));
+    }
+
+    @Override
+    public void query(Envelope searchEnv, ItemVisitor visitor) {
+        if (searchEnv.isNull()) {
+            return;
+        }
+        query(searchEnv.getMinX(), searchEnv.getMinY(), searchEnv.getMaxX(), searchEnv.getMaxY(),
+                i -> visitor.visitItem(items.get(i)));
+    }
+
+    /**
+     * Visits the position of each item whose bounds intersect the given bounds.
+     * The position of an item is the number of items inserted before it, minus
+     * the removed ones (see {@link #getItem(int)}).
+     * @param minX the minimum x of the query
+     * @param minY the minimum y of the query
+     * @param maxX the maximum x of the query
+     * @param maxY the maximum y of the query
+     * @param visitor receives the position of each item found
+     */
+    public void query(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+        if (items.isEmpty()) {
+            return;
+        }
+        if (!built) {
+            build();
+        }
+        int minColumn = column(minX);
+        int maxColumn = column(maxX);
+        int minRow = row(minY);
+        int maxRow = row(maxY);
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minColumn; c <= maxColumn; c++) {
+                int cell = r * columns + c;
+                for (int k = cellStarts[cell]; k < cellStarts[cell + 1]; k++) {
+                    int i = cellItems[k];
+                    int b = 4 * i;
+                    if (bounds[b] > maxX || bounds[b + 2] < minX || bounds[b + 1] > maxY || bounds[b + 3] < minY) {
+                        continue;
+                    }
+                    // Only report the item from one cell: the first cell of
+                    // the intersection, clamped to the query
+                    if ((c == minColumn || column(bounds[b]) == c) && (r == minRow || row(bounds[b + 1]) == r)) {
+                        visitor.accept(i);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param position the position of an item, as visited by
+     * {@link #query(double, double, double, double, IntConsumer)}
+     * @return the item
+     */
+    public Object getItem(int position) {
+        return items.get(position);
+    }
+
+    @Override
+    public List<Object> query(Envelope searchEnv) {
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> result = new ArrayList<>();
+        query(searchEnv, result::add);
+        return result;
+    }
+}
@@ -0,0 +1,226 @@
+package com.vividsolutions.jump.geom;
+
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * A plane-sweep join of two sets of envelopes: both sets are sorted once by
+ * their minimum x, then swept along the x axis (stripe by stripe), keeping the
+ * envelopes crossing the sweep line in two small active lists. All the
+ * intersecting pairs are found in one pass, from flat coordinate arrays,
+ * without any per-query allocation (unlike one spatial index query per
+ * envelope).
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class SweepJoin {
+
+    private static final int MAX_STRIPES = 4096;
+
+    /**
+     * Receives the intersecting pairs.
+     */
+    @FunctionalInterface
+    public interface PairVisitor {
+        /**
+         * @param a the index of the envelope in the first set
+         * @param b the index of the envelope in the second set
+         */
+        void visit(int a, int b);
+    }
+
+    private SweepJoin() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * Visits each pair of intersecting envelopes, once.
+     * @param as the first set of envelopes. Null envelopes never intersect.
+     * @param buffer the distance by which the envelopes of the first set are expanded
+     * @param bs the second set of envelopes
+     * @param visitor receives the intersecting pairs
+     */
+    public static void join(Envelope[] as, double buffer, Envelope[] bs, PairVisitor visitor) {
+        double[] aBounds = bounds(as, buffer);
+        double[] bBounds = bounds(bs, 0);
+        int[] aOrder = sortByMinX(aBounds, as.length);
+        int[] bOrder = sortByMinX(bBounds, bs.length);
+        if (aOrder.length == 0 || bOrder.length == 0) {
+            return;
+        }
+        // A sweep along x alone keeps all the envelopes of a vertical strip
+        // active, so the plane is also cut in horizontal stripes, swept one by
+        // one. A pair is only reported in the stripe of max(minY), to visit it once.
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double heights = 0;
+        for (int[] order : new int[][] {aOrder, bOrder}) {
+            double[] bounds = order == aOrder ? aBounds : bBounds;
+            for (int i : order) {
+                minY = Math.min(minY, bounds[4 * i + 2]);
+                maxY = Math.max(maxY, bounds[4 * i + 3]);
+                heights += bounds[4 * i + 3] - bounds[4 * i + 2];
+            }
+        }
+        double meanHeight = heights / (aOrder.length + bOrder.length);
+        // all the envelopes flat on the same line: 0 / 0
+        int stripeCount = meanHeight > 0 && maxY > minY
+                ? (int) Math.max(1, Math.min(MAX_STRIPES, (maxY - minY) / (2 * meanHeight))) : 1;
+        Stripes stripes = new Stripes(minY, maxY, stripeCount);
+        int[][] aStripes = stripes.split(aOrder, aBounds);
+        int[][] bStripes = stripes.split(bOrder, bBounds);
+        int[] aActive = new int[aOrder.length];
+        int[] bActive = new int[bOrder.length];
+        for (int s = 0; s < stripeCount; s++) {
+            int[] aItems = aStripes[s];
+            int[] bItems = bStripes[s];
+            int aActiveSize = 0;
+            int bActiveSize = 0;
+            int i = 0;
+            int j = 0;
+            while (i < aItems.length && (j < bItems.length || bActiveSize > 0)) {
+                if (j >= bItems.length || aBounds[4 * aItems[i]] <= bBounds[4 * bItems[j]]) {
+                    int a = aItems[i++];
+                    bActiveSize = scan(a, aBounds, bActive, bActiveSize, bBounds, stripes, s, visitor, false);
+                    aActive[aActiveSize++] = a;
+                } else {
+                    int b = bItems[j++];
+                    aActiveSize = scan(b, bBounds, aActive, aActiveSize, aBounds, stripes, s, visitor, true);
+                    bActive[bActiveSize++] = b;
+                }
+            }
+            while (j < bItems.length && aActiveSize > 0) {
+                int b = bItems[j++];
+                aActiveSize = scan(b, bBounds, aActive, aActiveSize, aBounds, stripes, s, visitor, true);
+            }
+        }
+    }
+
+    /**
+     * Compares the new envelope with the active envelopes of the other set,
+     * dropping the ones which are behind the sweep line.
+     * @return the new size of the active list
+     */
+    private static int scan(int item, double[] itemBounds, int[] active, int activeSize,
+            double[] activeBounds, Stripes stripes, int stripe, PairVisitor visitor, boolean swap) {
+        double minX = itemBounds[4 * item];
+        double minY = itemBounds[4 * item + 2];
+        double maxY = itemBounds[4 * item + 3];
+        int kept = 0;
+        for (int k = 0; k < activeSize; k++) {
+            int other = active[k];
+            if (activeBounds[4 * other + 1] < minX) {
+                continue;
+            }
+            active[kept++] = other;
+            double otherMinY = activeBounds[4 * other + 2];
+            if (otherMinY <= maxY && activeBounds[4 * other + 3] >= minY
+                    && stripes.stripe(Math.max(minY, otherMinY)) == stripe) {
+                if (swap) {
+                    visitor.visit(other, item);
+                } else {
+                    visitor.visit(item, other);
+                }
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Horizontal stripes of equal height.
+     */
+    private static class Stripes {
+        private final double minY;
+        private final double height;
+        private final int count;
+
+        Stripes(double minY, double maxY, int count) {
+            this.minY = minY;
+            this.height = (maxY - minY) / count;
+            this.count = count;
+        }
+
+        int stripe(double y) {
+            if (!(height > 0)) {
+                return 0;
+            }
+            return Math.max(0, Math.min(count - 1, (int) ((y - minY) / height)));
+        }
+
+        /**
+         * @return for each stripe, the envelopes crossing it, still sorted by minimum x
+         */
+        int[][] split(int[] order, double[] bounds) {
+            int[] sizes = new int[count];
+            for (int i : order) {
+                for (int s = stripe(bounds[4 * i + 2]); s <= stripe(bounds[4 * i + 3]); s++) {
+                    sizes[s]++;
+                }
+            }
+            int[][] stripes = new int[count][];
+            for (int s = 0; s < count; s++) {
+                stripes[s] = new int[sizes[s]];
+                sizes[s] = 0;
+            }
+            for (int i : order) {
+                for (int s = stripe(bounds[4 * i + 2]); s <= stripe(bounds[4 * i + 3]); s++) {
+                    stripes[s][sizes[s]++] = i;
+                }
+            }
+            return stripes;
+        }
+    }
+
+    /**
+     * @return minX, maxX, minY, maxY of each envelope, one after the other
+     */
+    private static double[] bounds(Envelope[] envelopes, double buffer) {
+        double[] bounds = new double[4 * envelopes.length];
+        for (int i = 0; i < envelopes.length; i++) {
+            Envelope e = envelopes[i];
+            bounds[4 * i] = e.isNull() ? Double.NaN : e.getMinX() - buffer;
+            bounds[4 * i + 1] = e.isNull() ? Double.NaN : e.getMaxX() + buffer;
+            bounds[4 * i + 2] = e.isNull() ? Double.NaN : e.getMinY() - buffer;
+            bounds[4 * i + 3] = e.isNull() ? Double.NaN : e.getMaxY() + buffer;
+        }
+        return bounds;
+    }
+
+    /**
+     * @return the indices of the non-null envelopes, sorted by minimum x
+     */
+    private static int[] sortByMinX(double[] bounds, int count) {
+        int n = 0;
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (!Double.isNaN(bounds[4 * i])) {
+                order[n++] = i;
+            }
+        }
+        int[] sorted = new int[n];
+        System.arraycopy(order, 0, sorted, 0, n);
+        mergeSort(sorted, new int[n], 0, n, bounds);
+        return sorted;
+    }
+
+    private static void mergeSort(int[] items, int[] buffer, int from, int to, double[] bounds) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(items, buffer, from, middle, bounds);
+        mergeSort(items, buffer, middle, to, bounds);
+        if (bounds[4 * items[middle - 1]] <= bounds[4 * items[middle]]) {
+            return;
+        }
+        System.arraycopy(items, from, buffer, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < middle && bounds[4 * buffer[i]] <= bounds[4 * buffer[j]])) {
+                items[k] = buffer[i++];
+            } else {
+                items[k] = buffer[j++];
+            }
+        }
+    }
+}
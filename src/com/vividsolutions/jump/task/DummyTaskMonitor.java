@@ -0,0 +1,31 @@
+package com.vividsolutions.jump.task;
+
+/**
+ * A TaskMonitor that ignores the reports and never requests cancellation,
+ * for tasks run without a user interface (tests, batch processing).
+ * <p>
+ * Class not part of the original JCS code.
+ */
+public class DummyTaskMonitor implements TaskMonitor {
+
+    @Override
+    public void report(String description) {
+    }
+
+    @Override
+    public void report(int itemsDone, int totalItems, String itemDescription) {
+    }
+
+    @Override
+    public void report(Exception exception) {
+    }
+
+    @Override
+    public void allowCancellationRequests() {
+    }
+
+    @Override
+    public boolean isCancelRequested() {
+        return false;
+    }
+}
@@ -50,29 +50,35 @@ public class CollectionUtil {
         int maxCombinationSize,
         E mandatoryItem) {
         List<List<E>> combinations = new ArrayList<>();
+        //Only the combinations up to maxCombinationSize are enumerated, instead of
+        //filtering the 2^N ones
+        addCombinations(original, 0, maxCombinationSize, mandatoryItem,
+            new ArrayList<E>(), false, combinations);
+        return combinations;
+    }
 
-        //Combinations are given by the bits of each binary number from 1 to 2^N
-        for (int i = 1; i <= ((int) Math.pow(2, original.size()) - 1); i++) {
-            List<E> combination = new ArrayList<>();
-
-            for (int j = 0; j < original.size(); j++) {
-                if ((i & (int) Math.pow(2, j)) > 0) {
-                    combination.add(original.get(j));
-                }
-            }
-
-            if (combination.size() > maxCombinationSize) {
-                continue;
+    private static <E> void addCombinations(
+        List<E> original,
+        int start,
+        int maxCombinationSize,
+        E mandatoryItem,
+        List<E> combination,
+        boolean containsMandatoryItem,
+        List<List<E>> combinations) {
+        for (int j = start; j < original.size(); j++) {
+            E item = original.get(j);
+            boolean containsItem = containsMandatoryItem
+                || (mandatoryItem != null && mandatoryItem.equals(item));
+            combination.add(item);
+            if (mandatoryItem == null || containsItem) {
+                combinations.add(new ArrayList<>(combination));
             }
-
-            if ((mandatoryItem != null) && !combination.contains(mandatoryItem)) {
-                continue;
+            if (combination.size() < maxCombinationSize) {
+                addCombinations(original, j + 1, maxCombinationSize, mandatoryItem,
+                    combination, containsItem, combinations);
             }
-
-            combinations.add(combination);
+            combination.remove(combination.size() - 1);
         }
-
-        return combinations;
     }
 
     public static void removeKeys(Collection<?> keys, Map<?,?> map) {
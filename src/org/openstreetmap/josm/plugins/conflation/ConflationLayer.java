@@ -7,24 +7,36 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Point;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.geom.Ellipse2D;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.Point2D;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.function.IntPredicate;
 
 import javax.swing.Action;
 import javax.swing.Icon;
 
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
 import org.openstreetmap.josm.actions.RenameLayerAction;
 import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.ProjectionBounds;
+import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
+import org.openstreetmap.josm.data.preferences.DoubleProperty;
+import org.openstreetmap.josm.data.projection.Projection;
 import org.openstreetmap.josm.gui.MapView;
 import org.openstreetmap.josm.gui.dialogs.LayerListDialog;
 import org.openstreetmap.josm.gui.dialogs.LayerListPopup;
 import org.openstreetmap.josm.gui.layer.Layer;
 import org.openstreetmap.josm.tools.ImageProvider;
+import org.openstreetmap.josm.tools.Logging;
 
 /**
  * A layer to show arrows and other symbols to indicate what primitives have been matched.
@@ -32,6 +44,15 @@ import org.openstreetmap.josm.tools.ImageProvider;
  */
 public class ConflationLayer extends Layer {
 
+    /**
+     * Scale (east/north units per pixel) from which the matches are drawn as
+     * clusters instead of arrows.
+     */
+    public static final DoubleProperty CLUSTER_SCALE = new DoubleProperty("conflation.layer.cluster-scale", 10.0);
+
+    /** Minimum size of the cluster cells, in pixels. */
+    private static final int CLUSTER_CELL_PIXELS = 40;
+
     protected SimpleMatchList matches;
     protected IntPredicate isMatchSelected;;
 
@@ -41,54 +62,222 @@ public class ConflationLayer extends Layer {
         this.isMatchSelected = isMatchSelected;
     }
 
+    /**
+     * The subject and reference centers of the matches, in east/north, with an
+     * index of the segments joining them. Rebuilt when the match list is modified,
+     * the projection changes, or the matched objects are moved (see
+     * {@link ConflationLayer#invalidatePositions()}).
+     */
+    private static final class MatchSegments {
+        final SimpleMatchList matches;
+        final int modCount;
+        final Projection projection;
+        final double[] coordinates;
+        final double[] scores;
+        final STRtree index = new STRtree();
+        /** The clusters of each zoom bucket, computed when first painted. */
+        final Map<Integer, Map<Long, Cluster>> clustersByBucket = new HashMap<>();
+
+        MatchSegments(SimpleMatchList matches, Projection projection) {
+            this.matches = matches;
+            this.modCount = matches.getModCount();
+            this.projection = projection;
+            int size = matches.size();
+            coordinates = new double[4 * size];
+            scores = new double[size];
+            for (int i = 0; i < size; i++) {
+                SimpleMatch match = matches.get(i);
+                OsmPrimitive reference = match.getReferenceObject();
+                OsmPrimitive subject = match.getSubjectObject();
+                if (reference == null || subject == null) {
+                    continue;
+                }
+                EastNorth p1 = ConflationUtils.getCenter(subject, projection);
+                EastNorth p2 = ConflationUtils.getCenter(reference, projection);
+                if (p1 == null || p2 == null || !p1.isValid() || !p2.isValid()) {
+                    continue;
+                }
+                coordinates[4 * i] = p1.east();
+                coordinates[4 * i + 1] = p1.north();
+                coordinates[4 * i + 2] = p2.east();
+                coordinates[4 * i + 3] = p2.north();
+                scores[i] = ((Number) match.getScore()).doubleValue();
+                index.insert(new Envelope(p1.east(), p2.east(), p1.north(), p2.north()), i);
+            }
+            index.build();
+        }
+
+        boolean isValid(SimpleMatchList currentMatches, Projection currentProjection) {
+            return matches == currentMatches && modCount == currentMatches.getModCount()
+                    && projection == currentProjection;
+        }
+
+        /**
+         * Bins the matches, by the middle of their segment, in square cells of
+         * {@code cellSize(bucket)}.
+         * @param bucket the zoom bucket
+         * @return the clusters, by cell key
+         */
+        Map<Long, Cluster> getClusters(int bucket) {
+            return clustersByBucket.computeIfAbsent(bucket, b -> {
+                double cellSize = cellSize(b);
+                Map<Long, Cluster> clusters = new HashMap<>();
+                index.query(new Envelope(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                        Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY), item -> {
+                    int i = (Integer) item;
+                    double x = (coordinates[4 * i] + coordinates[4 * i + 2]) / 2;
+                    double y = (coordinates[4 * i + 1] + coordinates[4 * i + 3]) / 2;
+                    long key = cellKey((long) Math.floor(x / cellSize), (long) Math.floor(y / cellSize));
+                    clusters.computeIfAbsent(key, k -> new Cluster()).add(x, y, scores[i]);
+                });
+                return clusters;
+            });
+        }
+    }
+
+    /**
+     * The matches of a cell: their number, mean score and mean position.
+     */
+    private static final class Cluster {
+        int count;
+        double sumX;
+        double sumY;
+        double sumScores;
+
+        void add(double x, double y, double score) {
+            count++;
+            sumX += x;
+            sumY += y;
+            sumScores += score;
+        }
+    }
+
+    /**
+     * @param bucket a zoom bucket, the binary logarithm of the scale
+     * @return the size of the cells of the bucket, in east/north units
+     */
+    private static double cellSize(int bucket) {
+        return CLUSTER_CELL_PIXELS * Math.pow(2, bucket + 1);
+    }
+
+    private static long cellKey(long column, long row) {
+        return (column << 32) ^ (row & 0xffffffffL);
+    }
+
+    private MatchSegments segments;
+
     /**
      * Draw symbols connecting matched primitives.
      */
     @Override
     public void paint(final Graphics2D g, final MapView mv, Bounds bounds) {
+        long start = System.nanoTime();
         Graphics2D g2 = g;
         BasicStroke line = new BasicStroke(3, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
         g2.setStroke(line);
 
+        Projection projection = mv.getProjection();
+        MatchSegments cached = segments;
+        if (cached == null || !cached.isValid(matches, projection)) {
+            cached = new MatchSegments(matches, projection);
+            segments = cached;
+        }
+        final MatchSegments current = cached;
+        // Visible area, grown by the size of the arrow heads
+        ProjectionBounds view = mv.getProjectionBounds();
+        Envelope visible = new Envelope(view.minEast, view.maxEast, view.minNorth, view.maxNorth);
+        visible.expandBy((15 + line.getLineWidth()) * mv.getScale());
+
+        if (mv.getScale() >= CLUSTER_SCALE.get()) {
+            int clusters = paintClusters(g2, mv, current, visible);
+            Logging.debug("Conflation layer: {0} clusters of {1} matches painted in {2} ms",
+                    clusters, matches.size(), (System.nanoTime() - start) / 1000000);
+            return;
+        }
+
         final double PHI = Math.toRadians(20);
         final double cosPHI = Math.cos(PHI);
         final double sinPHI = Math.sin(PHI);
-        int size = matches.size();
-        for (int i = 0; i < size; i++) {
-            SimpleMatch match = matches.get(i);
-            if (isMatchSelected.test(i)) {
-                g2.setColor(Color.blue);
-            } else {
-                g2.setColor(Color.cyan);
+        final GeneralPath selectedPath = new GeneralPath();
+        final GeneralPath unselectedPath = new GeneralPath();
+        final int[] drawn = new int[1];
+        current.index.query(visible, item -> {
+            int i = (Integer) item;
+            double[] c = current.coordinates;
+            GeneralPath path = isMatchSelected.test(i) ? selectedPath : unselectedPath;
+            // we have a pair, so draw line between them
+            Point2D p1 = mv.getPoint2D(new EastNorth(c[4 * i], c[4 * i + 1]));
+            Point2D p2 = mv.getPoint2D(new EastNorth(c[4 * i + 2], c[4 * i + 3]));
+            path.moveTo(p1.getX(), p1.getY());
+            path.lineTo(p2.getX(), p2.getY());
+
+            // draw arrow head
+            final double segmentLength = p1.distance(p2);
+            if (segmentLength != 0.0) {
+                final double l = (10. + line.getLineWidth()) / segmentLength;
+
+                final double sx = l * (p1.getX() - p2.getX());
+                final double sy = l * (p1.getY() - p2.getY());
+
+                path.moveTo(p2.getX() + cosPHI * sx - sinPHI * sy, p2.getY() + sinPHI * sx + cosPHI * sy);
+                path.lineTo(p2.getX(), p2.getY());
+                path.lineTo(p2.getX() + cosPHI * sx + sinPHI * sy, p2.getY() - sinPHI * sx + cosPHI * sy);
             }
-            OsmPrimitive reference = match.getReferenceObject();
-            OsmPrimitive subject = match.getSubjectObject();
-            if (reference != null && subject != null) {
-                GeneralPath path = new GeneralPath();
-                // we have a pair, so draw line between them
-                Point p1 = mv.getPoint(ConflationUtils.getCenter(subject));
-                Point p2 = mv.getPoint(ConflationUtils.getCenter(reference));
-                path.moveTo(p1.x, p1.y);
-                path.lineTo(p2.x, p2.y);
-                //logger.info(String.format("Line %d,%d to %d,%d", p1.x, p1.y, p2.x, p2.y));
-
-                // draw arrow head
-                if (true) {
-                    final double segmentLength = p1.distance(p2);
-                    if (segmentLength != 0.0) {
-                        final double l = (10. + line.getLineWidth()) / segmentLength;
-
-                        final double sx = l * (p1.x - p2.x);
-                        final double sy = l * (p1.y - p2.y);
-
-                        path.moveTo(p2.x + cosPHI * sx - sinPHI * sy, p2.y + sinPHI * sx + cosPHI * sy);
-                        path.lineTo(p2.x, p2.y);
-                        path.lineTo(p2.x + cosPHI * sx + sinPHI * sy, p2.y - sinPHI * sx + cosPHI * sy);
-                    }
+            drawn[0]++;
+        });
+        // selected matches on top
+        g2.setColor(Color.cyan);
+        g2.draw(unselectedPath);
+        g2.setColor(Color.blue);
+        g2.draw(selectedPath);
+        Logging.debug("Conflation layer: {0} of {1} matches painted in {2} ms",
+                drawn[0], matches.size(), (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Draws a disc per cell of the visible area, sized by the number of matches
+     * and colored by their mean score, from red (0) to green (1). The number of
+     * cells drawn only depends on the size of the view.
+     * @return the number of clusters painted
+     */
+    private static int paintClusters(Graphics2D g2, MapView mv, MatchSegments current, Envelope visible) {
+        // Cells of CLUSTER_CELL_PIXELS to twice as much, so the clusters of a bucket are reused while zooming
+        int bucket = (int) Math.floor(Math.log(mv.getScale()) / Math.log(2));
+        double cellSize = cellSize(bucket);
+        Map<Long, Cluster> clusters = current.getClusters(bucket);
+        g2.setStroke(new BasicStroke(1));
+        g2.setFont(g2.getFont().deriveFont(Font.BOLD));
+        FontMetrics metrics = g2.getFontMetrics();
+        int painted = 0;
+        long minColumn = (long) Math.floor(visible.getMinX() / cellSize);
+        long maxColumn = (long) Math.floor(visible.getMaxX() / cellSize);
+        long minRow = (long) Math.floor(visible.getMinY() / cellSize);
+        long maxRow = (long) Math.floor(visible.getMaxY() / cellSize);
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long column = minColumn; column <= maxColumn; column++) {
+                Cluster cluster = clusters.get(cellKey(column, row));
+                if (cluster == null) {
+                    continue;
+                }
+                Point2D p = mv.getPoint2D(new EastNorth(cluster.sumX / cluster.count, cluster.sumY / cluster.count));
+                double radius = Math.min(CLUSTER_CELL_PIXELS / 2.0, 6 + 4 * Math.log10(cluster.count));
+                float score = (float) Math.max(0, Math.min(1, cluster.sumScores / cluster.count));
+                Color color = Color.getHSBColor(score / 3, 0.9f, 0.9f);
+                Ellipse2D disc = new Ellipse2D.Double(p.getX() - radius, p.getY() - radius, 2 * radius, 2 * radius);
+                g2.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 180));
+                g2.fill(disc);
+                g2.setColor(Color.darkGray);
+                g2.draw(disc);
+                if (cluster.count > 1) {
+                    String text = Integer.toString(cluster.count);
+                    g2.setColor(Color.black);
+                    g2.drawString(text, (float) (p.getX() - metrics.stringWidth(text) / 2.0),
+                            (float) (p.getY() + metrics.getAscent() / 2.0 - 1));
                 }
-                g2.draw(path);
+                painted++;
             }
         }
+        return painted;
     }
 
     @Override
@@ -143,6 +332,15 @@ public class ConflationLayer extends Layer {
 
     public void setMatches(SimpleMatchList matches) {
         this.matches = matches;
+        this.segments = null;
         // TODO: does repaint automatically occur?
     }
+
+    /**
+     * Forgets the positions of the matches, to compute them again on the next
+     * paint, after the matched objects have been moved or reshaped.
+     */
+    public void invalidatePositions() {
+        this.segments = null;
+    }
 }
@@ -4,7 +4,9 @@ package org.openstreetmap.josm.plugins.conflation;
 
 import static org.openstreetmap.josm.tools.I18n.marktr;
 import static org.openstreetmap.josm.tools.I18n.tr;
+import static org.openstreetmap.josm.tools.I18n.trn;
 
+import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.Dialog;
 import java.awt.GraphicsEnvironment;
@@ -14,15 +16,17 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.function.IntPredicate;
-import java.util.function.Predicate;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -30,6 +34,7 @@ import java.util.stream.Stream;
 import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
@@ -38,6 +43,8 @@ import javax.swing.ListSelectionModel;
 import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import javax.swing.event.ListSelectionEvent;
@@ -62,6 +69,7 @@ import org.openstreetmap.josm.data.osm.event.SelectionEventManager;
 import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
 import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
 import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.Notification;
 import org.openstreetmap.josm.gui.PleaseWaitRunnable;
 import org.openstreetmap.josm.gui.PrimitiveRenderer;
 import org.openstreetmap.josm.gui.SideButton;
@@ -74,11 +82,12 @@ import org.openstreetmap.josm.gui.layer.LayerManager.LayerRemoveEvent;
 import org.openstreetmap.josm.gui.widgets.PopupMenuLauncher;
 import org.openstreetmap.josm.io.OsmTransferException;
 import org.openstreetmap.josm.plugins.conflation.command.ConflateMatchCommand;
+import org.openstreetmap.josm.plugins.conflation.command.ConflateMatchesCommand;
 import org.openstreetmap.josm.plugins.conflation.command.ConflateUnmatchedObjectCommand;
 import org.openstreetmap.josm.plugins.conflation.command.MoveMatchToUnmatchedCommand;
 import org.openstreetmap.josm.plugins.conflation.command.RemoveMatchCommand;
 import org.openstreetmap.josm.plugins.conflation.command.RemoveUnmatchedObjectCommand;
-import org.openstreetmap.josm.plugins.conflation.command.StopOnErrorSequenceCommand;
+import org.openstreetmap.josm.plugins.conflation.config.DefaultPromptTextField;
 import org.openstreetmap.josm.plugins.conflation.config.SettingsDialog;
 import org.openstreetmap.josm.spi.preferences.IPreferences;
 import org.openstreetmap.josm.tools.InputMapUtils;
@@ -99,6 +108,7 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
     final UnmatchedObjectListModel referenceOnlyListModel;
     final JList<OsmPrimitive> subjectOnlyList;
     final UnmatchedObjectListModel subjectOnlyListModel;
+    final DefaultPromptTextField unmatchedFilterField;
     ConflationLayer conflationLayer; // may be null
     final SimpleMatchesTableModel matchTableModel;
     SimpleMatchList matches = new SimpleMatchList();;
@@ -195,6 +205,14 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
         tabbedPane.addTab(tr("Reference only"), new JScrollPane(referenceOnlyList));
         tabbedPane.addTab(tr("Subject only"), new JScrollPane(subjectOnlyList));
 
+        // filter of the unmatched objects, by type, key or tag
+        unmatchedFilterField = new DefaultPromptTextField(20, tr("Filter unmatched objects (e.g. way building=yes)"));
+        unmatchedFilterField.setToolTipText(tr("Only show the unmatched objects having all these types, keys or key=value tags"));
+        unmatchedFilterField.getDocument().addDocumentListener(new UnmatchedFilterListener());
+        JPanel listsPanel = new JPanel(new BorderLayout());
+        listsPanel.add(unmatchedFilterField, BorderLayout.NORTH);
+        listsPanel.add(tabbedPane, BorderLayout.CENTER);
+
         conflateAction = new ConflateAction();
         conflateButton = new SideButton(conflateAction);
         // TODO: don't need this arrow box now, but likely will shortly
@@ -222,7 +240,7 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
         subjectOnlyListModel.addListDataListener(unmatchedListener);
         referenceOnlyListModel.addListDataListener(unmatchedListener);
 
-        createLayout(tabbedPane, false, Arrays.asList(new SideButton[]{
+        createLayout(listsPanel, false, Arrays.asList(new SideButton[]{
                 new SideButton(new ConfigureAction()),
                 conflateButton,
                 removeButton
@@ -257,10 +275,17 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
                 tr(marktr("Matches ({0})"), matches.size()));
         tabbedPane.setTitleAt(
                 tabbedPane.indexOfComponent(referenceOnlyList.getParent().getParent()),
-                tr(marktr("Reference only ({0})"), referenceOnlyListModel.getSize()));
+                tr(marktr("Reference only ({0})"), getCountText(referenceOnlyListModel)));
         tabbedPane.setTitleAt(
                 tabbedPane.indexOfComponent(subjectOnlyList.getParent().getParent()),
-                tr(marktr("Subject only ({0})"), subjectOnlyListModel.getSize()));
+                tr(marktr("Subject only ({0})"), getCountText(subjectOnlyListModel)));
+    }
+
+    private static String getCountText(UnmatchedObjectListModel model) {
+        if (model.getSize() == model.getUnfilteredSize()) {
+            return Integer.toString(model.getSize());
+        }
+        return tr("{0} of {1}", model.getSize(), model.getUnfilteredSize());
     }
 
     private Component getSelectedTabComponent() {
@@ -469,26 +494,12 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
             ListSelectionModel refOnlySelModel = referenceOnlyList.getSelectionModel();
             ListSelectionModel subOnlySelModel = subjectOnlyList.getSelectionModel();
             ListSelectionModel matchSelModel = matchTable.getSelectionModel();
-            if ((newSelection.size() <= 50) &&
-                    (matches.size() >= 400 || referenceOnlyListModel.getSize() >= 400 || subjectOnlyListModel.getSize() >= 400)) {
-                refOnlySelModel.setValueIsAdjusting(true);
-                refOnlySelModel.clearSelection();
-                subOnlySelModel.setValueIsAdjusting(true);
-                subOnlySelModel.clearSelection();
-                matchSelModel.setValueIsAdjusting(true);
-                matchSelModel.clearSelection();
-                newSelection.forEach(this::addPrimitiveToSelection);
-                refOnlySelModel.setValueIsAdjusting(false);
-                subOnlySelModel.setValueIsAdjusting(false);
-                matchSelModel.setValueIsAdjusting(false);
-            } else {
-                HashSet<OsmPrimitive> selectionSet = new HashSet<>(newSelection);
-                Predicate<SimpleMatch> isMatchSelected = (m) ->
-                    selectionSet.contains(m.getReferenceObject()) || selectionSet.contains(m.getSubjectObject());
-                select(matchSelModel, matches.size(), (i) -> isMatchSelected.test(matches.get(matchTable.convertRowIndexToModel(i))));
-                select(refOnlySelModel, referenceOnlyListModel.getSize(), (i) -> selectionSet.contains(referenceOnlyListModel.getElementAt(i)));
-                select(subOnlySelModel, subjectOnlyListModel.getSize(), (i) -> selectionSet.contains(subjectOnlyListModel.getElementAt(i)));
-            }
+            // Only the rows of the selected primitives are looked up, with the
+            // indices of the match list and of the list models
+            select(matchSelModel, getMatchRows(newSelection.stream().flatMap(
+                    p -> Stream.of(matches.getMatchByReference(p), matches.getMatchBySubject(p)))));
+            select(refOnlySelModel, getRows(referenceOnlyListModel, newSelection));
+            select(subOnlySelModel, getRows(subjectOnlyListModel, newSelection));
             if (matchSelModel.getMinSelectionIndex() >= 0) {
                 tabbedPane.setSelectedIndex(0);
                 matchTable.scrollRectToVisible(new Rectangle(matchTable.getCellRect(matchSelModel.getMinSelectionIndex(), 0, true)));
@@ -502,17 +513,35 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
         }
     }
 
-    private static void select(ListSelectionModel selectionModel, int size, IntPredicate predicate) {
+    /**
+     * @param selectedMatches matches, possibly null or repeated
+     * @return the rows of the match table showing these matches, in any order
+     */
+    private int[] getMatchRows(Stream<SimpleMatch> selectedMatches) {
+        return selectedMatches.filter(m -> m != null).mapToInt(matches::indexOf)
+                .filter(i -> i >= 0).map(matchTable::convertRowIndexToView).filter(i -> i >= 0).toArray();
+    }
+
+    /**
+     * @return the rows of the list model showing these primitives, in any order
+     */
+    private static int[] getRows(UnmatchedObjectListModel listModel, Collection<OsmPrimitive> primitives) {
+        return primitives.stream().mapToInt(listModel::indexOf).filter(i -> i >= 0).toArray();
+    }
+
+    /**
+     * Replaces the selection by the given rows, adding each run of consecutive rows as one interval.
+     */
+    private static void select(ListSelectionModel selectionModel, int[] rows) {
+        Arrays.sort(rows);
         selectionModel.setValueIsAdjusting(true);
         selectionModel.clearSelection();
-        int i = 0;
-        while (i < size) {
-            while (i < size && !predicate.test(i)) i++;
-            if (i == size) break;
-            int j = i + 1;
-            while (j < size && predicate.test(j)) j++;
-            selectionModel.addSelectionInterval(i, j - 1);
-            i = j + 1;
+        for (int i = 0; i < rows.length; i++) {
+            int start = i;
+            while (i + 1 < rows.length && rows[i + 1] <= rows[i] + 1) {
+                i++;
+            }
+            selectionModel.addSelectionInterval(rows[start], rows[i]);
         }
         selectionModel.setValueIsAdjusting(false);
     }
@@ -524,28 +553,6 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
             jlist.ensureIndexIsVisible(index);
     }
 
-    private void addPrimitiveToSelection(OsmPrimitive object) {
-        SimpleMatch c = matches.getMatchByReference(object);
-        if (c == null) {
-            c = matches.getMatchBySubject(object);
-        }
-        if (c != null) {
-            int index = matches.indexOf(c);
-            if (index >= 0) {
-                index = matchTable.convertRowIndexToView(index);
-                matchTable.getSelectionModel().addSelectionInterval(index, index);
-            }
-        }
-        int index = referenceOnlyListModel.indexOf(object);
-        if (index >= 0) {
-            referenceOnlyList.getSelectionModel().addSelectionInterval(index, index);
-        }
-        index = subjectOnlyListModel.indexOf(object);
-        if (index >= 0) {
-            subjectOnlyList.getSelectionModel().addSelectionInterval(index, index);
-        }
-    }
-
     //    protected static class ConflateMenuItem extends JMenuItem implements ActionListener {
     //        public ConflateMenuItem(String name) {
     //            super(name);
@@ -693,12 +700,9 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
         }
 
         private void restoreSelection() {
-            select(matchTable.getSelectionModel(), matches.size(),
-                    (i) -> oldMatchesSelection.contains(matches.get(matchTable.convertRowIndexToModel(i))));
-            select(referenceOnlyList.getSelectionModel(), referenceOnlyListModel.getSize(),
-                    (i) -> oldReferenceOnlySelection.contains(referenceOnlyListModel.getElementAt(i)));
-            select(subjectOnlyList.getSelectionModel(), subjectOnlyListModel.getSize(),
-                    (i) -> oldSubjectOnlySelection.contains(subjectOnlyListModel.getElementAt(i)));
+            select(matchTable.getSelectionModel(), getMatchRows(oldMatchesSelection.stream()));
+            select(referenceOnlyList.getSelectionModel(), getRows(referenceOnlyListModel, oldReferenceOnlySelection));
+            select(subjectOnlyList.getSelectionModel(), getRows(subjectOnlyListModel, oldSubjectOnlySelection));
             if ((matchTable.getSelectedRow() < 0) && nextMatchSelection != null) {
                 // If there is no match selected, we select a new one
                 int index = matchTable.convertRowIndexToView(matches.indexOf(nextMatchSelection));
@@ -814,14 +818,19 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
         }
 
         private void conflateMatchActionPerformed() {
-            List<Command> cmds = getSelectedMatchesStream().map(
-                    (match) -> new ConflateMatchCommand(match, matches, settings)).collect(Collectors.toList());
-            if (cmds.size() == 1) {
-                UndoRedoHandler.getInstance().add(cmds.get(0));
-            } else if (cmds.size() > 1) {
-                Command seqCmd = new StopOnErrorSequenceCommand(
-                        settings.subjectDataSet, tr(marktr("Conflate {0} objects"), cmds.size()), true, cmds);
-                UndoRedoHandler.getInstance().add(seqCmd);
+            Collection<SimpleMatch> selectedMatches = getSelectedMatches();
+            if (selectedMatches.size() == 1) {
+                UndoRedoHandler.getInstance().add(
+                        new ConflateMatchCommand(selectedMatches.iterator().next(), matches, settings));
+            } else if (selectedMatches.size() > 1) {
+                ConflateMatchesCommand cmd = new ConflateMatchesCommand(selectedMatches, matches, settings);
+                UndoRedoHandler.getInstance().add(cmd);
+                // the deferred matches stay in the list, selected, for review
+                int nbDeferred = cmd.getDeferredMatches().size();
+                if (nbDeferred > 0) {
+                    new Notification(trn("{0} match was deferred for review", "{0} matches were deferred for review",
+                            nbDeferred, nbDeferred)).setIcon(JOptionPane.INFORMATION_MESSAGE).show();
+                }
             }
         }
 
@@ -993,25 +1002,11 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
         if (settings != null) {
             DataSet dataSet = event.getDataset();
             if (dataSet == settings.referenceDataSet) {
-                for (OsmPrimitive p : event.getPrimitives()) {
-                    SimpleMatch m = primitivesRemovedMatchByReference.remove(p);
-                    if (m != null) {
-                        matches.add(m);
-                    }
-                    if (primitivesRemovedReferenceOnly.remove(p)) {
-                        referenceOnlyListModel.addElement(p);
-                    }
-                }
+                restorePrimitives(event.getPrimitives(), primitivesRemovedMatchByReference,
+                        primitivesRemovedReferenceOnly, referenceOnlyListModel);
             } else if (dataSet == settings.subjectDataSet) {
-                for (OsmPrimitive p : event.getPrimitives()) {
-                    SimpleMatch m = primitivesRemovedMatchBySubject.remove(p);
-                    if (m != null) {
-                        matches.add(m);
-                    }
-                    if (primitivesRemovedSubjectOnly.remove(p)) {
-                        subjectOnlyListModel.addElement(p);
-                    }
-                }
+                restorePrimitives(event.getPrimitives(), primitivesRemovedMatchBySubject,
+                        primitivesRemovedSubjectOnly, subjectOnlyListModel);
             }
         }
     }
@@ -1022,45 +1017,137 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
         if (settings != null) {
             DataSet dataSet = event.getDataset();
             if (dataSet == settings.referenceDataSet) {
-                for (OsmPrimitive p : event.getPrimitives()) {
-                    SimpleMatch m = matches.getMatchByReference(p);
-                    if (m != null) {
-                        primitivesRemovedMatchByReference.put(p, m);
-                        matches.remove(m);
-                    }
-                    if (referenceOnlyListModel.removeElement(p)) {
-                        primitivesRemovedReferenceOnly.add(p);
-                    }
-                }
+                removePrimitives(event.getPrimitives(), matches::getMatchByReference,
+                        primitivesRemovedMatchByReference, primitivesRemovedReferenceOnly, referenceOnlyListModel);
             } else if (dataSet == settings.subjectDataSet) {
-                for (OsmPrimitive p : event.getPrimitives()) {
-                    SimpleMatch m = matches.getMatchBySubject(p);
-                    if (m != null) {
-                        primitivesRemovedMatchBySubject.put(p, m);
-                        matches.remove(m);
-                    }
-                    if (subjectOnlyListModel.removeElement(p)) {
-                        primitivesRemovedSubjectOnly.add(p);
-                    }
-                }
+                removePrimitives(event.getPrimitives(), matches::getMatchBySubject,
+                        primitivesRemovedMatchBySubject, primitivesRemovedSubjectOnly, subjectOnlyListModel);
             }
         }
     }
 
+    /**
+     * Applies the changes of a DataSet event to the lists in a single update, so
+     * the table and the lists only receive one event whatever the number of
+     * primitives (e.g. when undoing the conflation of thousands of objects).
+     */
+    private void updateLists(Runnable update) {
+        matches.beginUpdate();
+        referenceOnlyListModel.beginUpdate();
+        subjectOnlyListModel.beginUpdate();
+        try {
+            update.run();
+        } finally {
+            matches.endUpdate();
+            referenceOnlyListModel.endUpdate();
+            subjectOnlyListModel.endUpdate();
+        }
+    }
+
+    private void removePrimitives(Collection<? extends OsmPrimitive> primitives,
+            Function<OsmPrimitive, SimpleMatch> matchOf, Map<OsmPrimitive, SimpleMatch> removedMatches,
+            Set<OsmPrimitive> removedObjects, UnmatchedObjectListModel listModel) {
+        List<SimpleMatch> matchesToRemove = new ArrayList<>();
+        List<OsmPrimitive> objectsToRemove = new ArrayList<>();
+        for (OsmPrimitive p : primitives) {
+            SimpleMatch m = matchOf.apply(p);
+            if (m != null) {
+                removedMatches.put(p, m);
+                matchesToRemove.add(m);
+            }
+            if (listModel.contains(p)) {
+                objectsToRemove.add(p);
+            }
+        }
+        if (!matchesToRemove.isEmpty() || !objectsToRemove.isEmpty()) {
+            removedObjects.addAll(objectsToRemove);
+            updateLists(() -> {
+                matches.removeAll(matchesToRemove);
+                listModel.removeAll(objectsToRemove);
+            });
+        }
+    }
+
+    private void restorePrimitives(Collection<? extends OsmPrimitive> primitives,
+            Map<OsmPrimitive, SimpleMatch> removedMatches, Set<OsmPrimitive> removedObjects,
+            UnmatchedObjectListModel listModel) {
+        if (removedMatches.isEmpty() && removedObjects.isEmpty()) {
+            // e.g. objects added by a conflation
+            return;
+        }
+        List<SimpleMatch> matchesToRestore = new ArrayList<>();
+        List<OsmPrimitive> objectsToRestore = new ArrayList<>();
+        for (OsmPrimitive p : primitives) {
+            SimpleMatch m = removedMatches.remove(p);
+            if (m != null) {
+                matchesToRestore.add(m);
+            }
+            if (removedObjects.remove(p)) {
+                objectsToRestore.add(p);
+            }
+        }
+        if (!matchesToRestore.isEmpty() || !objectsToRestore.isEmpty()) {
+            updateLists(() -> {
+                matches.addAll(matchesToRestore);
+                listModel.addAll(objectsToRestore);
+            });
+        }
+    }
+
     @Override
     public void tagsChanged(TagsChangedEvent event) {
+        OsmPrimitive p = event.getPrimitive();
+        referenceOnlyListModel.updateElement(p);
+        subjectOnlyListModel.updateElement(p);
     }
 
     @Override
     public void nodeMoved(NodeMovedEvent event) {
+        invalidateMatchPositions(event.getPrimitives());
     }
 
     @Override
     public void wayNodesChanged(WayNodesChangedEvent event) {
+        invalidateMatchPositions(event.getPrimitives());
     }
 
     @Override
     public void relationMembersChanged(RelationMembersChangedEvent event) {
+        invalidateMatchPositions(event.getPrimitives());
+    }
+
+    /**
+     * The arrows of the conflation layer are cached, and follow the matched objects only
+     * when told they may have moved. Changes to objects which are not matched, nor part
+     * of a matched way or relation, keep the cache.
+     */
+    private void invalidateMatchPositions(Collection<? extends OsmPrimitive> primitives) {
+        if (conflationLayer != null && containsMatchedObject(primitives)) {
+            conflationLayer.invalidatePositions();
+        }
+    }
+
+    /**
+     * @return true if one of the primitives, or one of the ways and relations
+     * referring to them, directly or not, is a matched object
+     */
+    private boolean containsMatchedObject(Collection<? extends OsmPrimitive> primitives) {
+        if (matches.isEmpty()) {
+            return false;
+        }
+        Set<OsmPrimitive> visited = new HashSet<>();
+        Deque<OsmPrimitive> stack = new ArrayDeque<>(primitives);
+        while (!stack.isEmpty()) {
+            OsmPrimitive p = stack.pop();
+            if (!visited.add(p)) {
+                continue;
+            }
+            if (matches.getMatchBySubject(p) != null || matches.getMatchByReference(p) != null) {
+                return true;
+            }
+            stack.addAll(p.getReferrers());
+        }
+        return false;
     }
 
     @Override
@@ -1069,44 +1156,28 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
 
     @Override
     public void dataChanged(DataChangedEvent event) {
+        invalidateMatchPositions(event.getPrimitives());
         // In case of primitive re-added because of Undo action, restore the
         // corresponding conflation lists case.
         if (settings != null) {
             DataSet dataSet = event.getDataset();
             if (dataSet == settings.referenceDataSet) {
-                primitivesRemovedMatchByReference.entrySet().removeIf(entry -> {
-                    if (!entry.getKey().isDeleted()) {
-                        matches.add(entry.getValue());
-                        return true;
-                    }
-                    return false;
-                });
-                primitivesRemovedReferenceOnly.removeIf(osmPrimitive -> {
-                    if (!osmPrimitive.isDeleted()) {
-                        referenceOnlyListModel.addElement(osmPrimitive);
-                        return true;
-                    }
-                    return false;
-                });
+                restoreUndeletedPrimitives(primitivesRemovedMatchByReference,
+                        primitivesRemovedReferenceOnly, referenceOnlyListModel);
             } else if (dataSet == settings.subjectDataSet) {
-                primitivesRemovedMatchBySubject.entrySet().removeIf(entry -> {
-                    if (!entry.getKey().isDeleted()) {
-                        matches.add(entry.getValue());
-                        return true;
-                    }
-                    return false;
-                });
-                primitivesRemovedSubjectOnly.removeIf(osmPrimitive -> {
-                    if (!osmPrimitive.isDeleted()) {
-                        subjectOnlyListModel.addElement(osmPrimitive);
-                        return true;
-                    }
-                    return false;
-                });
+                restoreUndeletedPrimitives(primitivesRemovedMatchBySubject,
+                        primitivesRemovedSubjectOnly, subjectOnlyListModel);
             }
         }
     }
 
+    private void restoreUndeletedPrimitives(Map<OsmPrimitive, SimpleMatch> removedMatches,
+            Set<OsmPrimitive> removedObjects, UnmatchedObjectListModel listModel) {
+        restorePrimitives(Stream.concat(removedMatches.keySet().stream(), removedObjects.stream())
+                .filter(osmPrimitive -> !osmPrimitive.isDeleted())
+                .collect(Collectors.toSet()), removedMatches, removedObjects, listModel);
+    }
+
     /* ---------------------------------------------------------------------------------- */
     /* LayerChangeListener                                                                */
     /* ---------------------------------------------------------------------------------- */
@@ -1171,6 +1242,30 @@ implements DataSelectionListener, DataSetListener, SimpleMatchListListener, Laye
         });
     }
 
+    class UnmatchedFilterListener implements DocumentListener {
+
+        private void filterChanged() {
+            String filter = unmatchedFilterField.getText();
+            referenceOnlyListModel.setFilter(filter);
+            subjectOnlyListModel.setFilter(filter);
+        }
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            filterChanged();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            filterChanged();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            filterChanged();
+        }
+    }
+
     class UnmatchedListDataListener implements ListDataListener {
 
         @Override
@@ -5,15 +5,16 @@ package org.openstreetmap.josm.plugins.conflation;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.PrimitiveData;
-import org.openstreetmap.josm.data.osm.visitor.MergeSourceBuildingVisitor;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.MapFrame;
 
 /**
  * Utilities class.
@@ -22,27 +23,38 @@ public final class ConflationUtils {
 
     private ConflationUtils() {}
 
+    /**
+     * @param prim the primitive
+     * @return the projected center of the bounding box of the primitive, with the
+     * projection of the map view, or the current projection if there is no map
+     */
     public static EastNorth getCenter(OsmPrimitive prim) {
+        MapFrame map = MainApplication.getMap();
+        return getCenter(prim, map != null ? map.mapView.getProjection() : ProjectionRegistry.getProjection());
+    }
+
+    /**
+     * @param prim the primitive
+     * @param projection the projection to use
+     * @return the projected center of the bounding box of the primitive
+     */
+    public static EastNorth getCenter(OsmPrimitive prim, Projection projection) {
         LatLon center = prim.getBBox().getTopLeft().getCenter(prim.getBBox().getBottomRight());
-        return MainApplication.getMap().mapView.getProjection().latlon2eastNorth(center);
+        return projection.latlon2eastNorth(center);
     }
 
     public static List<PrimitiveData> copyObjects(DataSet sourceDataSet, OsmPrimitive primitive) {
         return copyObjects(sourceDataSet, Collections.singleton(primitive));
     }
 
+    /**
+     * Copies the primitives, with the nodes of the ways and the members of the relations.
+     * To copy several groups of primitives sharing nodes, use a single {@link PrimitiveCopier}.
+     * @param sourceDataSet the DataSet of the primitives
+     * @param primitives the primitives to copy
+     * @return the data of the copies, with the same ids as the primitives
+     */
     public static List<PrimitiveData> copyObjects(DataSet sourceDataSet, Collection<OsmPrimitive> primitives) {
-
-        Collection<OsmPrimitive> origSelection = sourceDataSet.getSelected();
-        sourceDataSet.setSelected(primitives);
-        MergeSourceBuildingVisitor builder = new MergeSourceBuildingVisitor(sourceDataSet);
-
-        DataSet newDataSet = builder.build();
-        //restore selection
-        sourceDataSet.setSelected(origSelection);
-
-        return newDataSet.allPrimitives().stream()
-                .map(p -> p.save())
-                .collect(Collectors.toList());
+        return new PrimitiveCopier().copy(primitives);
     }
 }
@@ -9,48 +9,160 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.swing.JOptionPane;
 
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.gui.Notification;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.gui.util.GuiHelper;
-import org.openstreetmap.josm.plugins.jts.JTSConverter;
 import org.openstreetmap.josm.tools.Logging;
 
 import com.vividsolutions.jcs.conflate.polygonmatch.FCMatchFinder;
 import com.vividsolutions.jcs.conflate.polygonmatch.Matches;
+import com.vividsolutions.jcs.conflate.polygonmatch.OffsetCorrectingFCMatchFinder;
 import com.vividsolutions.jump.feature.AttributeType;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
 import com.vividsolutions.jump.feature.FeatureDataset;
 import com.vividsolutions.jump.feature.FeatureSchema;
 import com.vividsolutions.jump.feature.IndexedFeatureCollection;
+import com.vividsolutions.jump.feature.PointFeatureCollection;
+import com.vividsolutions.jump.feature.SpatialIndexType;
 import com.vividsolutions.jump.task.TaskMonitor;
 
 public final class MatchesComputation {
 
     private MatchesComputation() {}
 
+    /**
+     * The result of a matching: the matches, the objects left without match, and
+     * the objects ignored as their geometry cannot be converted to JTS.
+     */
+    public static final class Result {
+        private final List<SimpleMatch> matches;
+        private final List<OsmPrimitive> referenceOnly;
+        private final List<OsmPrimitive> subjectOnly;
+        private final Map<OsmPrimitive, Throwable> errors;
+
+        Result(List<SimpleMatch> matches, List<OsmPrimitive> referenceOnly, List<OsmPrimitive> subjectOnly,
+                Map<OsmPrimitive, Throwable> errors) {
+            this.matches = matches;
+            this.referenceOnly = referenceOnly;
+            this.subjectOnly = subjectOnly;
+            this.errors = errors;
+        }
+
+        /**
+         * @return the matches found
+         */
+        public List<SimpleMatch> getMatches() {
+            return matches;
+        }
+
+        /**
+         * @return the reference objects without match, in the order they were given
+         */
+        public List<OsmPrimitive> getReferenceOnly() {
+            return referenceOnly;
+        }
+
+        /**
+         * @return the subject objects without match, in the order they were given
+         */
+        public List<OsmPrimitive> getSubjectOnly() {
+            return subjectOnly;
+        }
+
+        /**
+         * @return the objects ignored, with the error of the conversion of their geometry
+         */
+        public Map<OsmPrimitive, Throwable> getErrors() {
+            return errors;
+        }
+    }
+
     /**
      * Generates a list of matches from the given user settings.
+     * The objects whose geometry cannot be converted are removed from the selections of the settings.
      * @param settings the setting to use: list of objects to match, the match finder to use...
      * @param monitor progress monitor for report
      * @return the list of match found
      */
     public static Collection<SimpleMatch> generateMatches(SimpleMatchSettings settings, ProgressMonitor monitor) {
+        Result result = computeMatches(settings.referenceSelection, settings.subjectSelection,
+                settings.matchFinder, settings.searchDistance, settings.maxOffset, monitor);
+        if (!result.getErrors().isEmpty()) {
+            GuiHelper.runInEDT(() -> new Notification(
+                    tr("Some items where ignored as their geometry is not compatible with the JTS library")
+                    ).setIcon(JOptionPane.WARNING_MESSAGE).show());
+            settings.referenceSelection.removeAll(result.getErrors().keySet());
+            settings.subjectSelection.removeAll(result.getErrors().keySet());
+        }
+        return result.getMatches();
+    }
+
+    /**
+     * Matches all the tagged objects of two DataSets, without user interface.
+     * @param reference the DataSet of the reference objects
+     * @param subject the DataSet of the subject objects
+     * @param finder the match finder to use
+     * @return the matches and the objects without match
+     */
+    public static Result computeMatches(DataSet reference, DataSet subject, FCMatchFinder finder) {
+        return computeMatches(getTaggedPrimitives(reference), getTaggedPrimitives(subject), finder,
+                Double.NaN, 0, NullProgressMonitor.INSTANCE);
+    }
+
+    private static List<OsmPrimitive> getTaggedPrimitives(DataSet dataSet) {
+        return dataSet.allNonDeletedCompletePrimitives().stream()
+                .filter(OsmPrimitive::isTagged).collect(Collectors.toList());
+    }
+
+    /**
+     * Matches the given objects, without user interface. The distances of the matches are
+     * computed from the centers of the JTS geometries, so no map view is needed.
+     * @param referenceSelection the reference objects
+     * @param subjectSelection the subject objects
+     * @param matchFinder the match finder to use
+     * @param searchDistance the largest distance at which two objects can match, used to
+     * skip the reference objects far from the subject, or NaN to keep them all
+     * @param maxOffset the largest systematic shift of the reference to compensate, or 0
+     * @param monitor progress monitor for report
+     * @return the matches and the objects without match
+     */
+    public static Result computeMatches(Collection<OsmPrimitive> referenceSelection,
+            Collection<OsmPrimitive> subjectSelection, FCMatchFinder matchFinder,
+            double searchDistance, double maxOffset, ProgressMonitor monitor) {
         monitor.subTask("Generating matches");
 
         // create Features and collections from primitive selections
         HashSet<OsmPrimitive> allPrimitives = new HashSet<>();
-        HashSet<OsmPrimitive> refPrimitives = new HashSet<>(settings.referenceSelection);
-        HashSet<OsmPrimitive> subPrimitives = new HashSet<>(settings.subjectSelection);
+        HashSet<OsmPrimitive> refPrimitives = new HashSet<>(referenceSelection);
+        HashSet<OsmPrimitive> subPrimitives = new HashSet<>(subjectSelection);
+        int pruned = pruneUnreachableReferences(refPrimitives, subPrimitives, searchDistance + maxOffset);
+        if (pruned > 0) {
+            Logging.info("Conflation: {0} of {1} reference objects skipped, farther than {2} from the subject",
+                    pruned, referenceSelection.size(), searchDistance + maxOffset);
+        }
         allPrimitives.addAll(refPrimitives);
         allPrimitives.addAll(subPrimitives);
 
@@ -60,21 +172,8 @@ public final class MatchesComputation {
         FeatureCollection allFeatures = allFeaturesAndErrors.getKey();
         HashMap<OsmPrimitive, Throwable> allErrors = allFeaturesAndErrors.getValue();
 
-        if (! allErrors.isEmpty()) {
-            GuiHelper.runInEDT(() -> new Notification(
-                    tr("Some items where ignored as their geometry is not compatible with the JTS library")
-                    ).setIcon(JOptionPane.WARNING_MESSAGE).show());
-            for (Map.Entry<OsmPrimitive, Throwable> entry : allErrors.entrySet()) {
-                if (refPrimitives.contains(entry.getKey())) {
-                    refPrimitives.remove(entry.getKey());
-                    settings.referenceSelection.remove(entry.getKey());
-                }
-                if (subPrimitives.contains(entry.getKey())) {
-                    subPrimitives.remove(entry.getKey());
-                    settings.subjectSelection.remove(entry.getKey());
-                }
-            }
-        }
+        refPrimitives.removeAll(allErrors.keySet());
+        subPrimitives.removeAll(allErrors.keySet());
 
 
         FeatureCollection refColl = new FeatureDataset(allFeatures.getFeatureSchema());
@@ -89,8 +188,15 @@ public final class MatchesComputation {
 
 
         // Index the collection for efficient search with WindowMatcher
-        refColl = new IndexedFeatureCollection(refColl);
-        subColl = new IndexedFeatureCollection(subColl);
+        if (PointFeatureCollection.containsOnlyPoints(refColl) && PointFeatureCollection.containsOnlyPoints(subColl)) {
+            // Node to node matching: window and distance matchers work directly on coordinate arrays
+            refColl = new PointFeatureCollection(refColl);
+            subColl = new PointFeatureCollection(subColl);
+        } else {
+            // Grid or packed R-tree, depending on how clustered the data is
+            refColl = new IndexedFeatureCollection(refColl, SpatialIndexType.createIndex(refColl));
+            subColl = new IndexedFeatureCollection(subColl, SpatialIndexType.createIndex(subColl));
+        }
 
         //TODO: pass to MatchFinderPanel to use as hint/default for DistanceMatchers
         // get maximum possible distance so scores can be scaled (FIXME: not quite accurate)
@@ -103,25 +209,51 @@ public final class MatchesComputation {
         //     envelope.getMaxY());
 
         // build matcher
-        FCMatchFinder finder = settings.matchFinder;
+        FCMatchFinder finder = matchFinder;
+        OffsetCorrectingFCMatchFinder offsetCorrectingFinder = null;
+        if (maxOffset > 0) {
+            // Compensate a systematic shift of the reference, so tight windows still find the candidates
+            offsetCorrectingFinder = new OffsetCorrectingFCMatchFinder(maxOffset, finder);
+            finder = offsetCorrectingFinder;
+        }
 
         // FIXME: ignore/filter duplicate objects (i.e. same object in both sets)
-        // FIXME: fix match functions to work on point/linestring features as well
+        // Note: the area based matchers (SymDiff, Compactness, AngleHistogram...) are meant for
+        // polygons, use the FrechetDistance, PartialHausdorffDistance or LineOverlap matchers for ways.
         // find matches
         Map<Feature, Matches> map = finder.match(refColl, subColl, new TaskMonitorJosmAdapter(monitor));
+        if (offsetCorrectingFinder != null) {
+            Coordinate offset = offsetCorrectingFinder.getEstimatedOffset();
+            if (offset != null) {
+                Logging.info("Conflation: reference shifted by ({0}, {1}) before matching", offset.x, offset.y);
+            } else {
+                Logging.info("Conflation: no dominant offset found between reference and subject");
+            }
+        }
 
         monitor.subTask("Finishing");
 
         // convert to simple one-to-one match
         ArrayList<SimpleMatch> list = new ArrayList<>();
+        Set<OsmPrimitive> matched = new HashSet<>();
         for (Map.Entry<Feature, Matches> entry: map.entrySet()) {
             OsmFeature target = (OsmFeature) entry.getKey();
             OsmFeature subject = (OsmFeature) entry.getValue().getTopMatch();
-            if (target != null && subject != null)
+            if (target != null && subject != null) {
+                // distance between the centers of the projected geometries, as ConflationUtils.getCenter
+                double distance = target.getGeometry().getEnvelopeInternal().centre()
+                        .distance(subject.getGeometry().getEnvelopeInternal().centre());
                 list.add(new SimpleMatch(target.getPrimitive(), subject.getPrimitive(),
-                        entry.getValue().getTopScore()));
+                        entry.getValue().getTopScore(), distance));
+                matched.add(target.getPrimitive());
+                matched.add(subject.getPrimitive());
+            }
         }
-        return list;
+        List<OsmPrimitive> referenceOnly = referenceSelection.stream()
+                .filter(p -> !matched.contains(p) && !allErrors.containsKey(p)).collect(Collectors.toList());
+        List<OsmPrimitive> subjectOnly = subjectSelection.stream()
+                .filter(p -> !matched.contains(p) && !allErrors.containsKey(p)).collect(Collectors.toList());
+        return new Result(list, referenceOnly, subjectOnly, allErrors);
     }
 
     /**
@@ -140,21 +272,109 @@ public final class MatchesComputation {
         return schema;
     }
 
+    /**
+     * Removes from the reference primitives the ones which cannot match any subject
+     * primitive, comparing their bounding boxes with the extent of the subject grown
+     * by the search distance, so they are not converted to JTS geometries.
+     * The primitives without a bounding box, and the ones also in the subject, are kept.
+     * @param refPrimitives the reference primitives, modified
+     * @param subPrimitives the subject primitives
+     * @param distance the largest distance at which two primitives can match
+     * @return the number of reference primitives removed
+     */
+    static int pruneUnreachableReferences(Set<OsmPrimitive> refPrimitives, Set<OsmPrimitive> subPrimitives,
+            double distance) {
+        if (Double.isNaN(distance) || Double.isInfinite(distance) || subPrimitives.isEmpty()) {
+            return 0;
+        }
+        Projection projection = ProjectionRegistry.getProjection();
+        Envelope extent = new Envelope();
+        for (OsmPrimitive primitive : subPrimitives) {
+            Envelope envelope = getEastNorthEnvelope(primitive, projection);
+            if (envelope == null) {
+                // Unknown subject extent, keep everything
+                return 0;
+            }
+            extent.expandToInclude(envelope);
+        }
+        extent.expandBy(distance);
+        int pruned = 0;
+        for (Iterator<OsmPrimitive> it = refPrimitives.iterator(); it.hasNext();) {
+            OsmPrimitive primitive = it.next();
+            Envelope envelope = getEastNorthEnvelope(primitive, projection);
+            if (envelope != null && !extent.intersects(envelope) && !subPrimitives.contains(primitive)) {
+                it.remove();
+                pruned++;
+            }
+        }
+        return pruned;
+    }
+
+    /**
+     * @return the envelope of the projected corners of the bounding box of the
+     * primitive, or null if it has no valid bounding box
+     */
+    private static Envelope getEastNorthEnvelope(OsmPrimitive primitive, Projection projection) {
+        BBox bbox = primitive.getBBox();
+        if (bbox == null || !bbox.isValid()) {
+            return null;
+        }
+        Envelope envelope = new Envelope();
+        double[] lats = {bbox.getBottomRightLat(), bbox.getTopLeftLat()};
+        double[] lons = {bbox.getTopLeftLon(), bbox.getBottomRightLon()};
+        for (double lat : lats) {
+            for (double lon : lons) {
+                EastNorth eastNorth = projection.latlon2eastNorth(new LatLon(lat, lon));
+                if (eastNorth == null || !eastNorth.isValid()) {
+                    return null;
+                }
+                envelope.expandToInclude(eastNorth.east(), eastNorth.north());
+            }
+        }
+        return envelope;
+    }
+
     private static AbstractMap.SimpleEntry<FeatureCollection,HashMap<OsmPrimitive, Throwable>>
         createFeatureCollection(Collection<OsmPrimitive> prims/*, ProgressMonitor monitor*/)
     {
         FeatureDataset dataset = new FeatureDataset(createSchema(prims));
         HashMap<OsmPrimitive, Throwable> errorset = new HashMap<OsmPrimitive, Throwable>();
-        //TODO: use factory instead of passing converter
-        JTSConverter converter = new JTSConverter(true);
+        // Multipolygon relations are joined into rings here, their geometry is only built when used
+        List<OsmPrimitive> convertible = new ArrayList<>(prims.size());
+        int relations = 0;
         for (OsmPrimitive prim : prims) {
-            // Relations not supported yet
+            if (!(prim instanceof Relation)) {
+                convertible.add(prim);
+            } else if (OsmRelationFeature.isSupported(prim)) {
+                try {
+                    dataset.add(new OsmRelationFeature((Relation) prim));
+                    relations++;
+                } catch (RuntimeException e) {
+                    Logger.getLogger(MatchesComputation.class.getName()).log(Level.WARNING, "Element skipped: cannot convert OSM relation to JTS feature", e);
+                    errorset.put(prim, e);
+                }
+            }
+        }
+        // Project each distinct node once, then build the geometries in parallel
+        PooledGeometryConverter converter = new PooledGeometryConverter(convertible);
+        Logging.debug("Conflation: converting {0} primitives, {1} distinct nodes, {2} multipolygons",
+                convertible.size(), converter.getNodeCount(), relations);
+        OsmFeature[] features = new OsmFeature[convertible.size()];
+        Throwable[] errors = new Throwable[convertible.size()];
+        IntStream.range(0, convertible.size()).parallel().forEach(i -> {
             try {
-                if (!(prim instanceof Relation))
-                    dataset.add(new OsmFeature(prim, converter));
+                OsmPrimitive prim = convertible.get(i);
+                features[i] = new OsmFeature(prim, converter.convert(prim));
             } catch (Throwable e) {
-                Logger.getLogger(MatchesComputation.class.getName()).log(Level.WARNING, "Element skipped: cannot convert OSM primitive geometry to JTS feature", e);
-                errorset.put(prim, e);
+                errors[i] = e;
+            }
+        });
+        for (int i = 0; i < features.length; i++) {
+            if (errors[i] != null) {
+                Logger.getLogger(MatchesComputation.class.getName()).log(Level.WARNING, "Element skipped: cannot convert OSM primitive geometry to JTS feature", errors[i]);
+                errorset.put(convertible.get(i), errors[i]);
+            } else {
+                dataset.add(features[i]);
             }
         }
         return new AbstractMap.SimpleEntry<FeatureCollection,HashMap<OsmPrimitive, Throwable>>(dataset, errorset);
@@ -168,6 +388,7 @@ public final class MatchesComputation {
         private final ProgressMonitor josmMonitor;
         private final HashMap<String, String> translations = new HashMap<>();
         {
+            translations.put("Estimating offset", tr("Estimating offset"));
             translations.put("Finding matches", tr("Finding matches"));
             translations.put("Sorting scores", tr("Sorting scores"));
             translations.put("Discarding inferior matches", tr("Discarding inferior matches"));
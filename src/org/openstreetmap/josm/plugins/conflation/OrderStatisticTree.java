@@ -0,0 +1,412 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A sorted set of distinct elements, which can also be accessed by position
+ * like a sorted list: {@link #add(Object)}, {@link #remove(Object)},
+ * {@link #get(int)} and {@link #indexOf(Object)} take O(log n) time.
+ * <p>
+ * It is a weight-balanced binary search tree, each node knowing the size of
+ * its subtree. A subtree is rebuilt, in linear time, when one of its children
+ * gets more than 3/4 of its nodes, so the height stays below 2.5 log2(n). The
+ * same linear rebuild is used for the bulk operations, which merge the sorted
+ * elements with the sorted content instead of inserting them one by one.
+ * <p>
+ * Elements comparing equal are considered identical: only the first one is kept.
+ * This class is not thread-safe.
+ *
+ * @param <E> the type of the elements
+ */
+final class OrderStatisticTree<E> implements Iterable<E> {
+
+    private static final class Node<E> {
+        E value;
+        Node<E> left;
+        Node<E> right;
+        int size = 1;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+
+    private final Comparator<? super E> comparator;
+    private Node<E> root;
+    private int modCount;
+    /** Position of the element found by the last insertion or removal, or -1. */
+    private int lastIndex;
+
+    /**
+     * @param comparator the order of the elements
+     */
+    public OrderStatisticTree(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * @return the number of elements
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * @return true if there is no element
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * @param index the position of the element, in ascending order
+     * @return the element
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public E get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * @param element an element
+     * @return the position of the element comparing equal to the given one, or -1
+     */
+    public int indexOf(E element) {
+        Node<E> node = root;
+        int rank = 0;
+        while (node != null) {
+            int c = comparator.compare(element, node.value);
+            if (c < 0) {
+                node = node.left;
+            } else if (c > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param element an element
+     * @return true if an element compares equal to the given one
+     */
+    public boolean contains(E element) {
+        return indexOf(element) >= 0;
+    }
+
+    /**
+     * Inserts the element at its sorted position.
+     * @param element the element to add
+     * @return the position of the added element, or -1 if an equal element was already present
+     */
+    public int add(E element) {
+        root = insert(root, element, 0);
+        if (lastIndex >= 0) {
+            modCount++;
+        }
+        return lastIndex;
+    }
+
+    private Node<E> insert(Node<E> node, E element, int rank) {
+        if (node == null) {
+            lastIndex = rank;
+            return new Node<>(element);
+        }
+        int c = comparator.compare(element, node.value);
+        if (c < 0) {
+            node.left = insert(node.left, element, rank);
+        } else if (c > 0) {
+            node.right = insert(node.right, element, rank + size(node.left) + 1);
+        } else {
+            lastIndex = -1;
+            return node;
+        }
+        if (lastIndex < 0) {
+            return node;
+        }
+        node.size++;
+        return balance(node);
+    }
+
+    /**
+     * Removes the element comparing equal to the given one.
+     * @param element the element to remove
+     * @return the position the removed element had, or -1 if it was not present
+     */
+    public int remove(E element) {
+        root = delete(root, element, 0);
+        if (lastIndex >= 0) {
+            modCount++;
+        }
+        return lastIndex;
+    }
+
+    private Node<E> delete(Node<E> node, E element, int rank) {
+        if (node == null) {
+            lastIndex = -1;
+            return null;
+        }
+        int c = comparator.compare(element, node.value);
+        if (c < 0) {
+            node.left = delete(node.left, element, rank);
+        } else if (c > 0) {
+            node.right = delete(node.right, element, rank + size(node.left) + 1);
+        } else {
+            lastIndex = rank + size(node.left);
+            if (node.left == null) {
+                return node.right;
+            } else if (node.right == null) {
+                return node.left;
+            }
+            Node<E> min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            node.value = min.value;
+            node.right = deleteMin(node.right);
+        }
+        if (lastIndex < 0) {
+            return node;
+        }
+        node.size--;
+        return balance(node);
+    }
+
+    private Node<E> deleteMin(Node<E> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        node.size--;
+        return balance(node);
+    }
+
+    private Node<E> balance(Node<E> node) {
+        int max = Math.max(size(node.left), size(node.right));
+        if (node.size > 3 && 4L * max > 3L * node.size) {
+            List<E> values = new ArrayList<>(node.size);
+            collect(node, values);
+            return build(values, 0, values.size());
+        }
+        return node;
+    }
+
+    private static <E> void collect(Node<E> node, List<E> values) {
+        while (node != null) {
+            collect(node.left, values);
+            values.add(node.value);
+            node = node.right;
+        }
+    }
+
+    private static <E> Node<E> build(List<E> values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node<E> node = new Node<>(values.get(middle));
+        node.left = build(values, from, middle);
+        node.right = build(values, middle + 1, to);
+        node.size = to - from;
+        return node;
+    }
+
+    /**
+     * @return the elements, in ascending order
+     */
+    public List<E> toList() {
+        List<E> values = new ArrayList<>(size());
+        collect(root, values);
+        return values;
+    }
+
+    private List<E> sortedDistinct(Collection<? extends E> elements) {
+        List<E> sorted = new ArrayList<>(elements);
+        sorted.sort(comparator);
+        int kept = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            if (kept == 0 || comparator.compare(sorted.get(kept - 1), sorted.get(i)) != 0) {
+                sorted.set(kept++, sorted.get(i));
+            }
+        }
+        return sorted.subList(0, kept);
+    }
+
+    /**
+     * Whether a bulk operation of the given size should merge and rebuild the
+     * whole tree, rather than update it element by element.
+     */
+    private boolean isBulk(int count) {
+        int n = size();
+        return (long) count * (33 - Integer.numberOfLeadingZeros(n)) > n;
+    }
+
+    /**
+     * Adds the elements which are not already present.
+     * @param elements the elements to add
+     * @return the positions of the added elements after the insertion, in
+     * ascending order: inserting the elements one by one in this order gives
+     * the same positions
+     */
+    public int[] addAll(Collection<? extends E> elements) {
+        List<E> added = sortedDistinct(elements);
+        int[] indices = new int[added.size()];
+        int count = 0;
+        if (!isBulk(added.size())) {
+            // In ascending order, the later insertions do not move the earlier ones
+            for (E element : added) {
+                int index = add(element);
+                if (index >= 0) {
+                    indices[count++] = index;
+                }
+            }
+        } else {
+            List<E> current = toList();
+            List<E> merged = new ArrayList<>(current.size() + added.size());
+            int i = 0;
+            for (E element : added) {
+                while (i < current.size() && comparator.compare(current.get(i), element) < 0) {
+                    merged.add(current.get(i++));
+                }
+                if (i < current.size() && comparator.compare(current.get(i), element) == 0) {
+                    continue;
+                }
+                indices[count++] = merged.size();
+                merged.add(element);
+            }
+            merged.addAll(current.subList(i, current.size()));
+            root = build(merged, 0, merged.size());
+            if (count > 0) {
+                modCount++;
+            }
+        }
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Removes the elements comparing equal to the given ones.
+     * @param elements the elements to remove
+     * @return the positions the removed elements had before the removal, in
+     * ascending order: removing the elements one by one in the reverse order
+     * gives the same positions
+     */
+    public int[] removeAll(Collection<? extends E> elements) {
+        List<E> removed = sortedDistinct(elements);
+        int[] indices = new int[removed.size()];
+        int count = 0;
+        if (!isBulk(removed.size())) {
+            // In descending order, the later removals do not move the earlier ones
+            for (int k = removed.size() - 1; k >= 0; k--) {
+                int index = remove(removed.get(k));
+                if (index >= 0) {
+                    indices[count++] = index;
+                }
+            }
+            for (int k = 0; k < count / 2; k++) {
+                int index = indices[k];
+                indices[k] = indices[count - 1 - k];
+                indices[count - 1 - k] = index;
+            }
+        } else {
+            List<E> current = toList();
+            List<E> kept = new ArrayList<>(current.size());
+            int k = 0;
+            for (int i = 0; i < current.size(); i++) {
+                E element = current.get(i);
+                while (k < removed.size() && comparator.compare(removed.get(k), element) < 0) {
+                    k++;
+                }
+                if (k < removed.size() && comparator.compare(removed.get(k), element) == 0) {
+                    indices[count++] = i;
+                } else {
+                    kept.add(element);
+                }
+            }
+            root = build(kept, 0, kept.size());
+            if (count > 0) {
+                modCount++;
+            }
+        }
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Removes all the elements.
+     */
+    public void clear() {
+        if (root != null) {
+            root = null;
+            modCount++;
+        }
+    }
+
+    /**
+     * Returns an iterator over the elements in ascending order, which does not
+     * support removal.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final Deque<Node<E>> stack = new ArrayDeque<>();
+            private final int expectedModCount = modCount;
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node<E> node) {
+                for (; node != null; node = node.left) {
+                    stack.push(node);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<E> node = stack.pop();
+                pushLeft(node.right);
+                return node.value;
+            }
+        };
+    }
+}
@@ -5,6 +5,7 @@ package org.openstreetmap.josm.plugins.conflation;
 import java.util.Map;
 import java.util.Objects;
 
+import org.locationtech.jts.geom.Geometry;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.plugins.jts.JTSConverter;
 
@@ -22,6 +23,24 @@ public class OsmFeature extends AbstractBasicFeature {
      * TODO: update from underlying primitive
      */
     public OsmFeature(OsmPrimitive prim, JTSConverter jtsConverter) {
+        this(prim, (jtsConverter != null ? jtsConverter : new JTSConverter(true)).convert(Objects.requireNonNull(prim)));
+    }
+
+    /**
+     * Create a feature with an already converted geometry
+     * @param prim the primitive
+     * @param geometry the geometry of the primitive, in east/north coordinates
+     */
+    public OsmFeature(OsmPrimitive prim, Geometry geometry) {
+        this(prim);
+        setGeometry(geometry);
+    }
+
+    /**
+     * Create a feature whose geometry is set later
+     * @param prim the primitive
+     */
+    protected OsmFeature(OsmPrimitive prim) {
         super(new FeatureSchema());
         this.primitive = Objects.requireNonNull(prim);
         Map<String, String> keys = prim.getKeys();
@@ -31,12 +50,6 @@ public class OsmFeature extends AbstractBasicFeature {
             this.getSchema().addAttribute(key, AttributeType.STRING);
             setAttribute(key, value);
         });
-        final JTSConverter converter;
-        if (jtsConverter != null)
-            converter = jtsConverter;
-        else
-            converter = new JTSConverter(true);
-        setGeometry(converter.convert(prim));
     }
 
     @Override
@@ -0,0 +1,253 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.locationtech.jts.algorithm.PointLocation;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.osm.MultipolygonBuilder;
+import org.openstreetmap.josm.data.osm.MultipolygonBuilder.JoinedPolygon;
+import org.openstreetmap.josm.data.osm.MultipolygonBuilder.JoinedPolygonCreationException;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+
+import com.vividsolutions.jump.feature.LazyGeometryFeature;
+
+/**
+ * The feature of a multipolygon (or boundary) relation.
+ * <p>
+ * The member ways are joined into rings when the feature is created, so an
+ * invalid relation (unclosed ring, incomplete member...) is reported like the
+ * other conversion errors, and the envelope is known to index the feature. The
+ * polygons are only built when the geometry is first used, so large relations
+ * out of reach of any candidate are never built.
+ * <p>
+ * The built geometries are cached per relation, as long as the relation, its
+ * ways and their nodes have the same versions, are not modified, and the
+ * projection did not change.
+ */
+final class OsmRelationFeature extends OsmFeature implements LazyGeometryFeature {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private static final Map<Relation, CachedGeometry> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final class CachedGeometry {
+        final long signature;
+        final Projection projection;
+        final Geometry geometry;
+
+        CachedGeometry(long signature, Projection projection, Geometry geometry) {
+            this.signature = signature;
+            this.projection = projection;
+            this.geometry = geometry;
+        }
+    }
+
+    private final Projection projection = ProjectionRegistry.getProjection();
+    private final Envelope envelope = new Envelope();
+    private List<List<Node>> outerRings = new ArrayList<>();
+    private List<List<Node>> innerRings = new ArrayList<>();
+    /** Hash of the ids and versions of the relation and its members, or 0 if something is modified. */
+    private long signature;
+    private boolean geometryBuilt;
+
+    /**
+     * Joins the member ways of the relation into rings.
+     * @param relation a multipolygon or boundary relation
+     * @throws IllegalArgumentException if the relation is incomplete, or its
+     * ways cannot be joined into closed rings
+     */
+    OsmRelationFeature(Relation relation) {
+        super(relation);
+        if (!relation.isMultipolygon()) {
+            throw new IllegalArgumentException("Relation " + relation.getUniqueId() + " is not a multipolygon");
+        }
+        if (relation.hasIncompleteMembers()) {
+            throw new IllegalArgumentException("Relation " + relation.getUniqueId() + " has incomplete members");
+        }
+        boolean unmodified = !relation.isNew() && !relation.isModified();
+        signature = 31L * relation.getUniqueId() + relation.getVersion();
+        List<Way> outerWays = new ArrayList<>();
+        List<Way> innerWays = new ArrayList<>();
+        for (RelationMember member : relation.getMembers()) {
+            if (!member.isWay()) {
+                // label or admin_centre nodes, subareas...
+                continue;
+            }
+            Way way = member.getWay();
+            if ("inner".equals(member.getRole())) {
+                innerWays.add(way);
+            } else if ("outer".equals(member.getRole()) || member.getRole().isEmpty()) {
+                outerWays.add(way);
+            } else {
+                continue;
+            }
+            unmodified &= !way.isModified();
+            signature = 31 * signature + 31L * way.getUniqueId() + way.getVersion();
+            for (Node node : way.getNodes()) {
+                EastNorth eastNorth = node.getEastNorth();
+                if (eastNorth == null) {
+                    throw new IllegalArgumentException("Node " + node.getUniqueId() + " has no coordinates");
+                }
+                envelope.expandToInclude(eastNorth.east(), eastNorth.north());
+                unmodified &= !node.isModified();
+                signature = 31 * signature + 31L * node.getUniqueId() + node.getVersion();
+            }
+        }
+        if (outerWays.isEmpty()) {
+            throw new IllegalArgumentException("Relation " + relation.getUniqueId() + " has no outer way");
+        }
+        joinRings(relation, outerWays, outerRings);
+        joinRings(relation, innerWays, innerRings);
+        if (!unmodified) {
+            signature = 0;
+        }
+    }
+
+    /**
+     * Joins the ways into closed rings with the {@link MultipolygonBuilder} of
+     * JOSM, as the validator and the renderer do.
+     */
+    private static void joinRings(Relation relation, List<Way> ways, List<List<Node>> rings) {
+        List<JoinedPolygon> polygons;
+        try {
+            polygons = MultipolygonBuilder.joinWays(ways);
+        } catch (JoinedPolygonCreationException e) {
+            throw new IllegalArgumentException("Relation " + relation.getUniqueId()
+                    + " has invalid rings: " + e.getMessage(), e);
+        }
+        for (JoinedPolygon polygon : polygons) {
+            // The nodes of a joined polygon do not repeat the first one
+            List<Node> ring = new ArrayList<>(polygon.nodes);
+            if (ring.size() < 3) {
+                throw new IllegalArgumentException("Relation " + relation.getUniqueId()
+                        + " has a ring with less than 3 nodes");
+            }
+            ring.add(ring.get(0));
+            rings.add(ring);
+        }
+    }
+
+    @Override
+    public Envelope getEnvelope() {
+        return envelope;
+    }
+
+    @Override
+    public synchronized boolean isGeometryBuilt() {
+        return geometryBuilt;
+    }
+
+    @Override
+    public synchronized Geometry getGeometry() {
+        if (!geometryBuilt) {
+            Relation relation = (Relation) getPrimitive();
+            CachedGeometry cached = signature != 0 ? CACHE.get(relation) : null;
+            if (cached != null && cached.signature == signature && cached.projection == projection) {
+                setGeometry(cached.geometry);
+            } else {
+                setGeometry(buildGeometry());
+                if (signature != 0) {
+                    CACHE.put(relation, new CachedGeometry(signature, projection, getBuiltGeometry()));
+                }
+            }
+        }
+        return getBuiltGeometry();
+    }
+
+    private Geometry getBuiltGeometry() {
+        return (Geometry) super.getAttribute(getSchema().getGeometryIndex());
+    }
+
+    @Override
+    public synchronized void setGeometry(Geometry geometry) {
+        super.setGeometry(geometry);
+        geometryBuilt = true;
+        outerRings = null;
+        innerRings = null;
+    }
+
+    @Override
+    public Object getAttribute(int i) {
+        if (i == getSchema().getGeometryIndex()) {
+            return getGeometry();
+        }
+        return super.getAttribute(i);
+    }
+
+    @Override
+    public Object[] getAttributes() {
+        getGeometry();
+        return super.getAttributes();
+    }
+
+    private static LinearRing createRing(List<Node> nodes) {
+        Coordinate[] coordinates = new Coordinate[nodes.size()];
+        for (int i = 0; i < coordinates.length; i++) {
+            EastNorth eastNorth = nodes.get(i).getEastNorth();
+            coordinates[i] = new Coordinate(eastNorth.east(), eastNorth.north());
+        }
+        return GEOMETRY_FACTORY.createLinearRing(coordinates);
+    }
+
+    /**
+     * Builds a polygon per outer ring, with the inner rings it contains.
+     * An inner ring in several outer rings (island in a lake in an island)
+     * goes to the smallest one, and an inner ring in no outer ring is ignored.
+     */
+    private Geometry buildGeometry() {
+        List<LinearRing> shells = new ArrayList<>(outerRings.size());
+        List<List<LinearRing>> holes = new ArrayList<>(outerRings.size());
+        for (List<Node> ring : outerRings) {
+            shells.add(createRing(ring));
+            holes.add(new ArrayList<>());
+        }
+        for (List<Node> ring : innerRings) {
+            LinearRing hole = createRing(ring);
+            Coordinate point = hole.getCoordinateN(0);
+            int best = -1;
+            for (int i = 0; i < shells.size(); i++) {
+                LinearRing shell = shells.get(i);
+                if (shell.getEnvelopeInternal().covers(hole.getEnvelopeInternal())
+                        && PointLocation.isInRing(point, shell.getCoordinates())
+                        && (best < 0 || shell.getEnvelopeInternal().getArea()
+                                < shells.get(best).getEnvelopeInternal().getArea())) {
+                    best = i;
+                }
+            }
+            if (best >= 0) {
+                holes.get(best).add(hole);
+            }
+        }
+        Polygon[] polygons = new Polygon[shells.size()];
+        for (int i = 0; i < polygons.length; i++) {
+            polygons[i] = GEOMETRY_FACTORY.createPolygon(shells.get(i),
+                    holes.get(i).toArray(new LinearRing[0]));
+        }
+        return polygons.length == 1 ? polygons[0] : GEOMETRY_FACTORY.createMultiPolygon(polygons);
+    }
+
+    /**
+     * @param primitive a primitive
+     * @return true if the primitive is a relation that can be converted to an {@link OsmRelationFeature}
+     */
+    static boolean isSupported(OsmPrimitive primitive) {
+        return primitive instanceof Relation && ((Relation) primitive).isMultipolygon();
+    }
+}
@@ -0,0 +1,105 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+
+/**
+ * Converts nodes and ways to JTS geometries in east/north coordinates, like
+ * the JTSConverter of the jts plugin, but projects each distinct node only
+ * once: ways sharing nodes (terraced buildings, road networks) reuse the
+ * coordinates of a shared pool.
+ * <p>
+ * The pool is filled in parallel, each node being projected by a single
+ * thread, then {@link #convert(OsmPrimitive)} only reads the pool and can be
+ * called concurrently.
+ */
+final class PooledGeometryConverter {
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+    private final Map<Node, Integer> nodeIndices = new IdentityHashMap<>();
+    private final double[] xs;
+    private final double[] ys;
+
+    /**
+     * Projects the nodes of the given primitives, and of their ways.
+     * @param primitives the primitives to convert later
+     */
+    PooledGeometryConverter(Collection<? extends OsmPrimitive> primitives) {
+        List<Node> nodes = new ArrayList<>();
+        for (OsmPrimitive primitive : primitives) {
+            if (primitive instanceof Node) {
+                addNode((Node) primitive, nodes);
+            } else if (primitive instanceof Way) {
+                Way way = (Way) primitive;
+                for (int i = 0; i < way.getNodesCount(); i++) {
+                    addNode(way.getNode(i), nodes);
+                }
+            }
+        }
+        xs = new double[nodes.size()];
+        ys = new double[nodes.size()];
+        IntStream.range(0, nodes.size()).parallel().forEach(i -> {
+            EastNorth eastNorth = nodes.get(i).getEastNorth();
+            xs[i] = eastNorth == null ? Double.NaN : eastNorth.east();
+            ys[i] = eastNorth == null ? Double.NaN : eastNorth.north();
+        });
+    }
+
+    private void addNode(Node node, List<Node> nodes) {
+        if (!nodeIndices.containsKey(node)) {
+            nodeIndices.put(node, nodes.size());
+            nodes.add(node);
+        }
+    }
+
+    /**
+     * @return the number of distinct nodes in the pool
+     */
+    int getNodeCount() {
+        return xs.length;
+    }
+
+    private Coordinate coordinate(Node node) {
+        int index = nodeIndices.get(node);
+        if (Double.isNaN(xs[index])) {
+            throw new IllegalArgumentException("Node " + node.getUniqueId() + " has no coordinates");
+        }
+        return new Coordinate(xs[index], ys[index]);
+    }
+
+    /**
+     * @param primitive a node or a way given to the constructor
+     * @return a Point for a node, a Polygon for a closed way, a LineString otherwise
+     * @throws IllegalArgumentException if the geometry is invalid, like the
+     * JTSConverter (ways with a single node, closed ways with less than 4 nodes...)
+     */
+    Geometry convert(OsmPrimitive primitive) {
+        if (primitive instanceof Node) {
+            return geometryFactory.createPoint(coordinate((Node) primitive));
+        } else if (primitive instanceof Way) {
+            Way way = (Way) primitive;
+            Coordinate[] coordinates = new Coordinate[way.getNodesCount()];
+            for (int i = 0; i < coordinates.length; i++) {
+                coordinates[i] = coordinate(way.getNode(i));
+            }
+            if (way.isClosed()) {
+                return geometryFactory.createPolygon(geometryFactory.createLinearRing(coordinates));
+            }
+            return geometryFactory.createLineString(coordinates);
+        }
+        throw new IllegalArgumentException("Unsupported primitive type: " + primitive.getType());
+    }
+}
@@ -0,0 +1,70 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.Way;
+
+/**
+ * Copies primitives of a DataSet as {@link PrimitiveData}, to add them to
+ * another DataSet (with an {@code AddPrimitivesCommand}).
+ * <p>
+ * Ways are copied with their nodes, and relations with all their members,
+ * recursively, incomplete members included (as incomplete primitives). The
+ * selection of the source DataSet is not used.
+ * <p>
+ * The copies keep the ids of the source primitives. A copier remembers the
+ * primitives it already copied, so using the same copier for a batch copies
+ * the nodes shared by several objects only once.
+ */
+public final class PrimitiveCopier {
+
+    private final Set<PrimitiveId> copied = new HashSet<>();
+
+    /**
+     * Copies the primitives, with the nodes of the ways and the members of the relations.
+     * @param primitives the primitives to copy
+     * @return the data of the copied primitives that were not already copied by this copier
+     */
+    public List<PrimitiveData> copy(Collection<? extends OsmPrimitive> primitives) {
+        List<PrimitiveData> result = new ArrayList<>();
+        for (OsmPrimitive primitive : primitives) {
+            copyWithMembers(primitive, result);
+        }
+        return result;
+    }
+
+    private void copyWithMembers(OsmPrimitive primitive, List<PrimitiveData> result) {
+        if (primitive instanceof Way) {
+            for (Node node : ((Way) primitive).getNodes()) {
+                copyPrimitive(node, result);
+            }
+            copyPrimitive(primitive, result);
+        } else if (primitive instanceof Relation) {
+            // Marked as copied before its members, for the relations that contain themselves
+            if (copied.add(primitive.getPrimitiveId())) {
+                for (OsmPrimitive member : ((Relation) primitive).getMemberPrimitivesList()) {
+                    copyWithMembers(member, result);
+                }
+                result.add(primitive.save());
+            }
+        } else {
+            copyPrimitive(primitive, result);
+        }
+    }
+
+    private void copyPrimitive(OsmPrimitive primitive, List<PrimitiveData> result) {
+        if (copied.add(primitive.getPrimitiveId())) {
+            result.add(primitive.save());
+        }
+    }
+}
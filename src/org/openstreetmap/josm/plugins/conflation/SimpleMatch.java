@@ -86,6 +86,22 @@ public class SimpleMatch implements Comparable<SimpleMatch> {
         }
     }
 
+    /**
+     * Return the TagCollection for the resulting object of the conflation of this match,
+     * with the conflicts resolved by the tag conflict rules of the settings, if any.
+     *
+     * @param settings the configaration setting to use for the conflation.
+     * @return the TagCollection of {@link #getMergingTagCollection(SimpleMatchSettings)} if the settings have
+     * no rules, the TagCollection without conflicts, or null if the rules cannot resolve a conflict.
+     */
+    public TagCollection getResolvedTagCollection(SimpleMatchSettings settings) {
+        TagCollection tagCollection = getMergingTagCollection(settings);
+        if (settings.tagConflictRules == null) {
+            return tagCollection;
+        }
+        return settings.tagConflictRules.resolve(tagCollection, referenceObject, subjectObject);
+    }
+
     @Override
     public int compareTo(SimpleMatch o) {
         int comp = Double.compare(this.score, o.score);
@@ -2,13 +2,11 @@
 // Copyright 2012 by Josh Doe and others.
 package org.openstreetmap.josm.plugins.conflation;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.openstreetmap.josm.data.osm.DataSet;
@@ -16,17 +14,21 @@ import org.openstreetmap.josm.data.osm.OsmPrimitive;
 
 /**
  *  Holds a list of {@link SimpleMatch}es and provides convenience functions.
+ *
+ *  The matches are kept sorted in an {@link OrderStatisticTree}, so adding,
+ *  removing and finding the position of a match take O(log n) time.
  */
 public class SimpleMatchList implements Iterable<SimpleMatch> {
     private final CopyOnWriteArrayList<SimpleMatchListListener> listeners = new CopyOnWriteArrayList<>();
 
-    private final ArrayList<SimpleMatch> matches = new ArrayList<>();
+    private final OrderStatisticTree<SimpleMatch> matches = new OrderStatisticTree<>(Comparator.naturalOrder());
 
     private final HashMap<OsmPrimitive, SimpleMatch> byReference = new HashMap<>();
     private final HashMap<OsmPrimitive, SimpleMatch> bySubject = new HashMap<>();
 
     private int updateCount = 0;
     private boolean updateHasChanged = false;
+    private int modCount = 0;
 
     public SimpleMatchList() {
     }
@@ -61,12 +63,11 @@ public class SimpleMatchList implements Iterable<SimpleMatch> {
     }
 
     public boolean add(SimpleMatch element) {
-        int index = Collections.binarySearch(matches, element);
-        if (index < 0) {
-            index = -index - 1;
-            matches.add(index, element);
+        int index = matches.add(element);
+        if (index >= 0) {
             byReference.put(element.getReferenceObject(), element);
             bySubject.put(element.getSubjectObject(), element);
+            modCount++;
             fireIntervalAdded(index, index);
             return true;
         } else {
@@ -77,19 +78,33 @@ public class SimpleMatchList implements Iterable<SimpleMatch> {
     public boolean addAll(Collection<SimpleMatch> toAdd) {
         if ((matches.size() == 0) && (toAdd.size() > 0)) {
             matches.addAll(toAdd);
-            Collections.sort(matches);
-            for (SimpleMatch sm : toAdd) {
+            for (SimpleMatch sm : matches) {
                 byReference.put(sm.getReferenceObject(), sm);
                 bySubject.put(sm.getSubjectObject(), sm);
             }
+            modCount++;
             fireListChanged();
             return true;
         } else {
-            boolean changed = false;
-            for (SimpleMatch sm : toAdd) {
-                changed = add(sm) || changed;
+            // Same positions and events as adding the matches one by one, in ascending order
+            int[] indices = matches.addAll(toAdd);
+            if (indices.length == 0) {
+                return false;
             }
-            return changed;
+            for (int index : indices) {
+                SimpleMatch sm = matches.get(index);
+                byReference.put(sm.getReferenceObject(), sm);
+                bySubject.put(sm.getSubjectObject(), sm);
+            }
+            modCount++;
+            for (int i = 0; i < indices.length; i++) {
+                int start = i;
+                while (i + 1 < indices.length && indices[i + 1] == indices[i] + 1) {
+                    i++;
+                }
+                fireIntervalAdded(indices[start], indices[i]);
+            }
+            return true;
         }
     }
 
@@ -101,11 +116,17 @@ public class SimpleMatchList implements Iterable<SimpleMatch> {
         return matches.get(index);
     }
 
+    /**
+     * Returns a counter incremented on each modification of the list, so that
+     * data derived from the list can be cached until the list changes.
+     * @return the modification count
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
     public int indexOf(SimpleMatch match) {
-        int index = Collections.binarySearch(matches, match);
-        if (index < -1)
-            index = -1;
-        return index;
+        return matches.indexOf(match);
     }
 
     /**
@@ -116,6 +137,7 @@ public class SimpleMatchList implements Iterable<SimpleMatch> {
             matches.clear();
             byReference.clear();
             bySubject.clear();
+            modCount++;
             fireListChanged();
         }
     }
@@ -125,33 +147,30 @@ public class SimpleMatchList implements Iterable<SimpleMatch> {
     }
 
     public boolean removeAll(Collection<SimpleMatch> matchesToRemove) {
-        boolean isChanged = false;
-        Set<Integer> removedIdx = new HashSet<>();
-        int maxSize = matches.size();
         for (SimpleMatch sm : matchesToRemove) {
-            int index = Collections.binarySearch(matches, sm);
-            if (index >= 0) {
+            SimpleMatch stored = byReference.get(sm.getReferenceObject());
+            if (stored != null && stored.compareTo(sm) == 0) {
                 byReference.remove(sm.getReferenceObject());
                 bySubject.remove(sm.getSubjectObject());
-                removedIdx.add(index);
-                isChanged = true;
             }
         }
-        matches.removeAll(matchesToRemove);
+        int[] indices = matches.removeAll(matchesToRemove);
+        if (indices.length == 0) {
+            return false;
+        }
+        modCount++;
         // regroup removed items by interval to avoid firing too many
         // "IntervalRemoved" events which is used for GUI updates which
-        // are time-consuming
-        for (int i = 0; i < maxSize; i++) {
-            if (!removedIdx.contains(i))
-                continue;
-            int startRange = i;
-            i++;
-            while (i < maxSize && removedIdx.contains(i)) {
-                i++;
+        // are time-consuming. The intervals are fired from the last one,
+        // so that the indices of each event are valid when it is received.
+        for (int i = indices.length - 1; i >= 0; i--) {
+            int end = i;
+            while (i > 0 && indices[i - 1] == indices[i] - 1) {
+                i--;
             }
-            fireIntervalRemoved(startRange, i-1);
+            fireIntervalRemoved(indices[i], indices[end]);
         }
-        return isChanged;
+        return true;
     }
 
     public void addConflationListChangedListener(SimpleMatchListListener listener) {
@@ -27,6 +27,19 @@ public class SimpleMatchSettings {
     public DataSet referenceDataSet;
     public FCMatchFinder matchFinder;
 
+    /**
+     * Largest global offset between reference and subject to estimate and compensate
+     * before matching. Zero to disable offset correction.
+     */
+    public double maxOffset;
+
+    /**
+     * Largest distance at which a reference object can match a subject object with
+     * the configured match finder, not counting the offset. Infinite when unknown.
+     * Reference objects farther than this from the subject selection are not converted.
+     */
+    public double searchDistance = Double.POSITIVE_INFINITY;
+
     /*=
      * If conflation should replace the geometry.
      */
@@ -43,6 +56,13 @@ public class SimpleMatchSettings {
      */
     public Collection<String> overwriteTags;
 
+    /**
+     * Rules resolving the tag conflicts without confirmation, may be null.
+     * When set, the conflation of many matches does not ask anything: the matches
+     * with conflicts the rules cannot resolve are deferred, for review.
+     */
+    public TagConflictRules tagConflictRules;
+
     /**
      * A Collection that always answer true when asked if it contains any object (except for the removed items!).
      */
@@ -0,0 +1,164 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Tag;
+import org.openstreetmap.josm.data.osm.TagCollection;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * Rules resolving the tag conflicts of a match without asking the user, with a
+ * policy per key, and optionally a default policy for the other keys (key {@code *}).
+ * <p>
+ * The rules are written as {@code key=policy} entries separated by spaces, commas
+ * or semicolons, e.g. {@code name=prefer_subject source=concatenate *=prefer_reference}.
+ * A conflict on a key without policy cannot be resolved.
+ */
+public class TagConflictRules {
+
+    /**
+     * How to resolve a conflict on a key.
+     */
+    public enum Policy {
+        /** Keep the value of the reference object. */
+        PREFER_REFERENCE,
+        /** Keep the value of the subject object. */
+        PREFER_SUBJECT,
+        /** Keep all the values, separated by {@code ;}. */
+        CONCATENATE,
+        /** Keep the value of the most recently edited object. */
+        KEEP_NEWEST,
+        /** Do not conflate the match. */
+        SKIP_MATCH
+    }
+
+    /** The key of the default policy. */
+    public static final String DEFAULT_KEY = "*";
+
+    private final Map<String, Policy> policies = new LinkedHashMap<>();
+
+    /**
+     * Parses the rules. Invalid entries are ignored, with a warning.
+     * @param text the rules, as {@code key=policy} entries
+     * @return the rules, or null if there is no valid entry
+     */
+    public static TagConflictRules parse(String text) {
+        TagConflictRules rules = new TagConflictRules();
+        for (String entry : text.split("[\\s,;]+")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int index = entry.indexOf('=');
+            try {
+                if (index <= 0) {
+                    throw new IllegalArgumentException("missing key or policy");
+                }
+                rules.setPolicy(entry.substring(0, index),
+                        Policy.valueOf(entry.substring(index + 1).toUpperCase(Locale.ENGLISH)));
+            } catch (IllegalArgumentException e) {
+                Logging.warn("Conflation: ignoring invalid tag conflict rule ''{0}'': {1}", entry, e.getMessage());
+            }
+        }
+        return rules.policies.isEmpty() ? null : rules;
+    }
+
+    /**
+     * @param key a key, or {@link #DEFAULT_KEY}
+     * @param policy the policy to resolve the conflicts on this key
+     */
+    public void setPolicy(String key, Policy policy) {
+        policies.put(key, policy);
+    }
+
+    /**
+     * @param key a key
+     * @return the policy for this key, the default policy, or null
+     */
+    public Policy getPolicy(String key) {
+        Policy policy = policies.get(key);
+        return policy != null ? policy : policies.get(DEFAULT_KEY);
+    }
+
+    /**
+     * @return the policies by key, in the order they were defined
+     */
+    public Map<String, Policy> getPolicies() {
+        return Collections.unmodifiableMap(policies);
+    }
+
+    /**
+     * Resolves the conflicts of the tag collection of a match.
+     * @param tags the tags to merge, see {@link SimpleMatch#getMergingTagCollection(SimpleMatchSettings)}
+     * @param reference the reference object
+     * @param subject the subject object
+     * @return the tags with a single value per key, or null if a conflict cannot be
+     * resolved, or its policy is {@link Policy#SKIP_MATCH}
+     */
+    public TagCollection resolve(TagCollection tags, OsmPrimitive reference, OsmPrimitive subject) {
+        Set<String> conflicts = tags.getKeysWithMultipleValues();
+        if (conflicts.isEmpty()) {
+            return tags;
+        }
+        TagCollection resolved = new TagCollection(tags);
+        for (String key : conflicts) {
+            String value = resolve(key, tags.getValues(key), reference, subject);
+            if (value == null) {
+                return null;
+            }
+            resolved.removeByKey(key);
+            resolved.add(new Tag(key, value));
+        }
+        return resolved;
+    }
+
+    private String resolve(String key, Collection<String> values, OsmPrimitive reference, OsmPrimitive subject) {
+        Policy policy = getPolicy(key);
+        if (policy == null) {
+            return null;
+        }
+        String referenceValue = reference.get(key);
+        String subjectValue = subject.get(key);
+        switch (policy) {
+        case PREFER_REFERENCE:
+            return referenceValue != null ? referenceValue : subjectValue;
+        case PREFER_SUBJECT:
+            return subjectValue != null ? subjectValue : referenceValue;
+        case CONCATENATE:
+            Set<String> parts = new LinkedHashSet<>();
+            addParts(parts, subjectValue);
+            addParts(parts, referenceValue);
+            values.forEach(value -> addParts(parts, value));
+            return String.join(";", parts);
+        case KEEP_NEWEST:
+            int referenceTime = reference.getRawTimestamp();
+            int subjectTime = subject.getRawTimestamp();
+            if (referenceTime == subjectTime) {
+                // unknown, or edited at the same time
+                return null;
+            }
+            String newest = referenceTime > subjectTime ? referenceValue : subjectValue;
+            return newest != null ? newest : (referenceTime > subjectTime ? subjectValue : referenceValue);
+        case SKIP_MATCH:
+        default:
+            return null;
+        }
+    }
+
+    private static void addParts(Set<String> parts, String value) {
+        if (value != null) {
+            for (String part : value.split(";")) {
+                if (!part.trim().isEmpty()) {
+                    parts.add(part.trim());
+                }
+            }
+        }
+    }
+}
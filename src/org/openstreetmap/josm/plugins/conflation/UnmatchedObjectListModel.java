@@ -5,6 +5,13 @@ package org.openstreetmap.josm.plugins.conflation;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.AbstractListModel;
 
@@ -15,13 +22,30 @@ import org.openstreetmap.josm.data.osm.OsmPrimitive;
  * List model for unmatched objects, for both subject and reference layers.
  *
  * The list is kept sorted, for better lookup time, and to ensure that Undo/Redo
- * will restore items at the same position.
+ * will restore items at the same position. The objects are stored in an
+ * {@link OrderStatisticTree}, so adding or removing an object takes O(log n) time.
+ *
+ * The list can be filtered (see {@link #setFilter(String)}): the model then only
+ * shows the objects matching the filter, kept in a second tree, and the indices
+ * of the model are the ones of the filtered list. The filter uses an index of
+ * the objects by type, key and tag, built when a filter is first set and then
+ * updated with the list.
  *
  * @author joshdoe
  */
 public class UnmatchedObjectListModel extends AbstractListModel<OsmPrimitive> {
 
-    private ArrayList<OsmPrimitive> list = new ArrayList<>();
+    /** All the objects, filtered or not. */
+    private final OrderStatisticTree<OsmPrimitive> all = new OrderStatisticTree<>(Comparator.naturalOrder());
+    /** The objects matching the filter, the same tree as all when there is no filter. */
+    private OrderStatisticTree<OsmPrimitive> list = all;
+
+    /** The filter tokens, all of which an object must have to be shown. */
+    private List<String> filterTokens = Collections.emptyList();
+    /** The objects by token, or null until a filter is first set, then updated with the list. */
+    private Map<String, Set<OsmPrimitive>> tokenIndex;
+    /** The tokens under which each object is indexed. */
+    private Map<OsmPrimitive, String[]> indexedTokens;
 
     private int updateCount = 0;
     private boolean updateHasChanged = false;
@@ -29,8 +53,13 @@ public class UnmatchedObjectListModel extends AbstractListModel<OsmPrimitive> {
 
     public void clear() {
         int size = list.size();
+        all.clear();
+        list.clear();
+        if (tokenIndex != null) {
+            tokenIndex.clear();
+            indexedTokens.clear();
+        }
         if (size > 0) {
-            list.clear();
             if (shouldFireEvent()) fireIntervalRemoved(this, 0, size - 1);
         }
     }
@@ -40,64 +69,273 @@ public class UnmatchedObjectListModel extends AbstractListModel<OsmPrimitive> {
         return list.size();
     }
 
+    /**
+     * @return the number of objects, including the ones hidden by the filter
+     */
+    public int getUnfilteredSize() {
+        return all.size();
+    }
+
     @Override
     public OsmPrimitive getElementAt(int index) {
         return list.get(index);
     }
 
+    /**
+     * @param item an object
+     * @return its index in the filtered list, or -1 if it is not in the list or is hidden by the filter
+     */
     public int indexOf(OsmPrimitive item) {
-        int index = Collections.binarySearch(list, item);
-        if (index < -1)
-            index = -1;
-        return index;
+        return list.indexOf(item);
+    }
+
+    /**
+     * @param item an object
+     * @return true if the object is in the list, even if it is hidden by the filter
+     */
+    public boolean contains(OsmPrimitive item) {
+        return all.contains(item);
     }
 
     public boolean addElement(OsmPrimitive element) {
-        int index = Collections.binarySearch(list, element);
-        if (index < 0) {
-            index = -index - 1;
-            list.add(index, element);
-            if (shouldFireEvent()) fireIntervalAdded(this, index, index);
-            return true;
-        } else {
+        if (all.add(element) < 0) {
             return false;
         }
+        if (tokenIndex != null) {
+            index(element);
+        }
+        if (list != all) {
+            if (!matchesFilter(element)) {
+                return true;
+            }
+            list.add(element);
+        }
+        int index = list.indexOf(element);
+        if (shouldFireEvent()) fireIntervalAdded(this, index, index);
+        return true;
     }
 
     public boolean addAll(Collection<OsmPrimitive> objects) {
-        if ((list.size() == 0) && (objects.size() > 0)) {
-            list.addAll(objects);
-            Collections.sort(list);
+        if ((all.size() == 0) && (objects.size() > 0) && list == all && tokenIndex == null) {
+            all.addAll(objects);
             if (shouldFireEvent()) fireIntervalAdded(this, 0, list.size() - 1);
             return true;
-        } else {
-            boolean changed = false;
-            for (OsmPrimitive p : objects) {
-                changed = addElement(p) || changed;
+        }
+        int[] indices = all.addAll(objects);
+        if (indices.length == 0) {
+            return false;
+        }
+        if (tokenIndex != null) {
+            List<OsmPrimitive> shown = new ArrayList<>();
+            for (int index : indices) {
+                OsmPrimitive p = all.get(index);
+                index(p);
+                if (matchesFilter(p)) {
+                    shown.add(p);
+                }
+            }
+            if (list != all) {
+                indices = list.addAll(shown);
+            }
+        }
+        // Same events as adding the objects one by one, in ascending order
+        for (int i = 0; i < indices.length && shouldFireEvent(); i++) {
+            int start = i;
+            while (i + 1 < indices.length && indices[i + 1] == indices[i] + 1) {
+                i++;
             }
-            return changed;
+            fireIntervalAdded(this, indices[start], indices[i]);
         }
+        return true;
     }
 
+    /**
+     * Removes the object, even if it is hidden by the filter.
+     * @param element the object to remove
+     * @return true if the object was in the list
+     */
     public boolean removeElement(OsmPrimitive element) {
-        int index = Collections.binarySearch(list, element);
+        int index = list.remove(element);
+        if (list != all && all.remove(element) < 0) {
+            return false;
+        }
+        if (tokenIndex != null) {
+            unindex(element);
+        }
         if (index >= 0) {
-            list.remove(index);
             if (shouldFireEvent()) fireIntervalRemoved(this, index, index);
             return true;
-        } else {
-            return false;
         }
+        return list != all;
     }
 
     public boolean removeAll(Collection<OsmPrimitive> objects) {
-        boolean changed = false;
-        for (OsmPrimitive p : objects) {
-            changed = removeElement(p) || changed;
+        int[] indices = list.removeAll(objects);
+        boolean changed = indices.length > 0;
+        if (list != all) {
+            changed = all.removeAll(objects).length > 0;
+        }
+        if (tokenIndex != null) {
+            for (OsmPrimitive p : objects) {
+                unindex(p);
+            }
+        }
+        // From the last interval, so the indices of each event are valid when it is received
+        for (int i = indices.length - 1; i >= 0 && shouldFireEvent(); i--) {
+            int end = i;
+            while (i > 0 && indices[i - 1] == indices[i] - 1) {
+                i--;
+            }
+            fireIntervalRemoved(this, indices[i], indices[end]);
         }
         return changed;
     }
 
+    /**
+     * Re-indexes the object after a change of its tags, and shows or hides it
+     * if it now matches the filter or not.
+     * @param element the modified object
+     */
+    public void updateElement(OsmPrimitive element) {
+        if (tokenIndex == null || !all.contains(element)) {
+            return;
+        }
+        unindex(element);
+        index(element);
+        if (list == all) {
+            return;
+        }
+        boolean shown = list.contains(element);
+        if (matchesFilter(element) && !shown) {
+            int index = list.add(element);
+            if (shouldFireEvent()) fireIntervalAdded(this, index, index);
+        } else if (!matchesFilter(element) && shown) {
+            int index = list.remove(element);
+            if (shouldFireEvent()) fireIntervalRemoved(this, index, index);
+        }
+    }
+
+    /**
+     * @param primitive an object
+     * @return the tokens an object can be filtered with: its type, its keys,
+     * and its tags as key=value
+     */
+    static String[] getTokens(OsmPrimitive primitive) {
+        Map<String, String> keys = primitive.getKeys();
+        String[] tokens = new String[1 + 2 * keys.size()];
+        int i = 0;
+        tokens[i++] = primitive.getType().getAPIName();
+        for (Map.Entry<String, String> tag : keys.entrySet()) {
+            tokens[i++] = tag.getKey();
+            tokens[i++] = tag.getKey() + '=' + tag.getValue();
+        }
+        return tokens;
+    }
+
+    private void index(OsmPrimitive primitive) {
+        String[] tokens = getTokens(primitive);
+        indexedTokens.put(primitive, tokens);
+        for (String token : tokens) {
+            tokenIndex.computeIfAbsent(token, t -> new HashSet<>()).add(primitive);
+        }
+    }
+
+    private void unindex(OsmPrimitive primitive) {
+        String[] tokens = indexedTokens.remove(primitive);
+        if (tokens != null) {
+            for (String token : tokens) {
+                Set<OsmPrimitive> primitives = tokenIndex.get(token);
+                if (primitives != null && primitives.remove(primitive) && primitives.isEmpty()) {
+                    tokenIndex.remove(token);
+                }
+            }
+        }
+    }
+
+    private boolean matchesFilter(OsmPrimitive primitive) {
+        for (String token : filterTokens) {
+            Set<OsmPrimitive> primitives = tokenIndex.get(token);
+            if (primitives == null || !primitives.contains(primitive)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Only shows the objects matching all the words of the filter. A word is
+     * an object type (node, way or relation), a key, or a tag as key=value.
+     * @param filter the filter, or an empty string or null to show all the objects
+     */
+    public void setFilter(String filter) {
+        List<String> tokens = new ArrayList<>();
+        if (filter != null) {
+            for (String word : filter.trim().split("\\s+")) {
+                if (!word.isEmpty()) {
+                    String lowerCase = word.toLowerCase(Locale.ENGLISH);
+                    // the types are case insensitive, the tags are not
+                    tokens.add("node".equals(lowerCase) || "way".equals(lowerCase) || "relation".equals(lowerCase)
+                            ? lowerCase : word);
+                }
+            }
+        }
+        if (tokens.equals(filterTokens)) {
+            return;
+        }
+        int oldSize = getSize();
+        filterTokens = tokens;
+        if (tokens.isEmpty()) {
+            list = all;
+        } else {
+            if (tokenIndex == null) {
+                tokenIndex = new HashMap<>();
+                indexedTokens = new HashMap<>();
+                for (OsmPrimitive p : all) {
+                    index(p);
+                }
+            }
+            // Intersect the objects of the rarest token with the others
+            Set<OsmPrimitive> rarest = Collections.emptySet();
+            int rarestSize = Integer.MAX_VALUE;
+            for (String token : tokens) {
+                Set<OsmPrimitive> primitives = tokenIndex.getOrDefault(token, Collections.emptySet());
+                if (primitives.size() < rarestSize) {
+                    rarest = primitives;
+                    rarestSize = primitives.size();
+                }
+            }
+            List<OsmPrimitive> shown = new ArrayList<>();
+            for (OsmPrimitive p : rarest) {
+                if (matchesFilter(p)) {
+                    shown.add(p);
+                }
+            }
+            list = new OrderStatisticTree<>(Comparator.naturalOrder());
+            list.addAll(shown);
+        }
+        if (updateCount > 0) {
+            updateHasChanged = true;
+        } else {
+            fireSizeAndContentsChanged(oldSize);
+        }
+    }
+
+    /**
+     * @return the words of the current filter
+     */
+    public String getFilter() {
+        return String.join(" ", filterTokens);
+    }
+
+    private void fireSizeAndContentsChanged(int oldSize) {
+        if (oldSize > getSize()) {
+            fireIntervalRemoved(this, getSize(), oldSize - 1);
+        } else if (getSize() > oldSize) {
+            fireIntervalAdded(this, oldSize, getSize() - 1);
+        }
+        fireContentsChanged(this, 0, Integer.min(oldSize, getSize()) - 1);
+    }
+
     protected boolean shouldFireEvent() {
         if (updateCount > 0) {
             updateHasChanged = true;
@@ -122,12 +360,7 @@ public class UnmatchedObjectListModel extends AbstractListModel<OsmPrimitive> {
             updateCount--;
             if (updateCount == 0 && updateHasChanged) {
                 updateHasChanged = false;
-                if (sizeBeforeChange > getSize()) {
-                    fireIntervalRemoved(this, getSize(), sizeBeforeChange - 1);
-                } else if (getSize() > sizeBeforeChange) {
-                    fireIntervalAdded(this, sizeBeforeChange, getSize()-1);
-                }
-                fireContentsChanged(this, 0, Integer.min(sizeBeforeChange, getSize()) - 1);
+                fireSizeAndContentsChanged(sizeBeforeChange);
             }
         } else {
             throw new AssertionError("endUpdate called without beginUpdate");
@@ -0,0 +1,224 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation.command;
+
+import static org.openstreetmap.josm.tools.I18n.trn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.openstreetmap.josm.command.Command;
+import org.openstreetmap.josm.command.PseudoCommand;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * Command keeping the changes of many commands as the states of the changed
+ * primitives before and after them, instead of the commands themselves.
+ * <p>
+ * The commands are executed with {@link #executeAndRecord(Command)}, which first
+ * saves the primitives the command participates in. Then {@link #compact()}
+ * saves the primitives again and drops the commands: undo loads the first
+ * states, redo the last ones. Large batches thus keep two {@link PrimitiveData}
+ * per changed primitive in the undo stack, instead of a tree of commands with
+ * their own copies of the primitives.
+ * <p>
+ * The commands must not add primitives, and must only change the primitives
+ * they participate in; otherwise they are kept as is.
+ */
+public class CompactChangesCommand extends Command {
+
+    /** The states before the commands, while recording. */
+    private Map<OsmPrimitive, PrimitiveData> recorded = new LinkedHashMap<>();
+    /** The executed commands, while recording, or if they cannot be compacted. */
+    private List<Command> commands = new ArrayList<>();
+    private OsmPrimitive[] primitives;
+    private PrimitiveData[] before;
+    private PrimitiveData[] after;
+
+    /**
+     * @param dataSet the DataSet changed by the commands
+     */
+    public CompactChangesCommand(DataSet dataSet) {
+        super(dataSet);
+    }
+
+    /**
+     * Saves the primitives the command participates in, then executes it.
+     * @param command the command to execute
+     * @return true if the command was executed
+     */
+    public boolean executeAndRecord(Command command) {
+        if (recorded == null) {
+            throw new IllegalStateException("Changes already compacted");
+        }
+        for (OsmPrimitive primitive : command.getParticipatingPrimitives()) {
+            if (primitive.getDataSet() == getAffectedDataSet() && !recorded.containsKey(primitive)) {
+                recorded.put(primitive, primitive.save());
+            }
+        }
+        if (!command.executeCommand()) {
+            return false;
+        }
+        commands.add(command);
+        return true;
+    }
+
+    /**
+     * Replaces the executed commands by the current state of the primitives they changed.
+     * @return true if the commands were compacted
+     */
+    public boolean compact() {
+        if (recorded == null) {
+            return primitives != null;
+        }
+        Set<OsmPrimitive> modified = new HashSet<>();
+        Set<OsmPrimitive> deleted = new HashSet<>();
+        Set<OsmPrimitive> added = new HashSet<>();
+        for (Command command : commands) {
+            command.fillModifiedData(modified, deleted, added);
+        }
+        Map<OsmPrimitive, PrimitiveData> states = recorded;
+        recorded = null;
+        if (!added.isEmpty() || !states.keySet().containsAll(modified) || !states.keySet().containsAll(deleted)) {
+            Logging.debug("Conflation: keeping {0} commands, they change primitives they do not participate in",
+                    commands.size());
+            return false;
+        }
+        // nodes, then ways, then relations, see load()
+        List<Map.Entry<OsmPrimitive, PrimitiveData>> entries = new ArrayList<>(states.entrySet());
+        entries.sort(Comparator.comparing(e -> e.getKey().getType()));
+        int size = entries.size();
+        primitives = new OsmPrimitive[size];
+        before = new PrimitiveData[size];
+        after = new PrimitiveData[size];
+        int i = 0;
+        for (Map.Entry<OsmPrimitive, PrimitiveData> e : entries) {
+            primitives[i] = e.getKey();
+            before[i] = e.getValue();
+            after[i] = e.getKey().save();
+            i++;
+        }
+        commands = null;
+        return true;
+    }
+
+    /**
+     * Redoes the changes. The first execution is done by {@link #executeAndRecord(Command)}.
+     */
+    @Override
+    public boolean executeCommand() {
+        if (primitives != null) {
+            load(after);
+        } else {
+            for (Command command : commands) {
+                command.executeCommand();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void undoCommand() {
+        if (primitives != null) {
+            load(before);
+        } else {
+            for (int i = commands.size() - 1; i >= 0; i--) {
+                commands.get(i).undoCommand();
+            }
+        }
+    }
+
+    /**
+     * Loads the states in two phases, so no way or relation references a deleted primitive
+     * in between: first the deleted and visible flags, undeleting the nodes before the ways
+     * and the ways before the relations, and deleting in the reverse order, then the whole
+     * states, with the way nodes and the relation members.
+     */
+    private void load(PrimitiveData[] states) {
+        for (int i = 0; i < primitives.length; i++) {
+            if (!states[i].isDeleted() && primitives[i].isDeleted()) {
+                primitives[i].setDeleted(false);
+            }
+            if (states[i].isVisible() && !primitives[i].isVisible()) {
+                primitives[i].setVisible(true);
+            }
+        }
+        for (int i = primitives.length - 1; i >= 0; i--) {
+            if (states[i].isDeleted() && !primitives[i].isDeleted()) {
+                primitives[i].setDeleted(true);
+            }
+            if (!states[i].isVisible() && primitives[i].isVisible()) {
+                primitives[i].setVisible(false);
+            }
+        }
+        for (int i = primitives.length - 1; i >= 0; i--) {
+            primitives[i].load(states[i]);
+        }
+    }
+
+    @Override
+    public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted, Collection<OsmPrimitive> added) {
+        if (primitives != null) {
+            for (int i = 0; i < primitives.length; i++) {
+                if (after[i].isDeleted() && !before[i].isDeleted()) {
+                    deleted.add(primitives[i]);
+                } else {
+                    modified.add(primitives[i]);
+                }
+            }
+        } else {
+            for (Command command : commands) {
+                command.fillModifiedData(modified, deleted, added);
+            }
+        }
+    }
+
+    @Override
+    public Collection<? extends OsmPrimitive> getParticipatingPrimitives() {
+        if (primitives != null) {
+            return Collections.unmodifiableList(Arrays.asList(primitives));
+        }
+        Collection<OsmPrimitive> prims = new HashSet<>();
+        for (Command command : commands) {
+            prims.addAll(command.getParticipatingPrimitives());
+        }
+        return prims;
+    }
+
+    @Override
+    public Collection<PseudoCommand> getChildren() {
+        return primitives != null ? null : new ArrayList<>(commands);
+    }
+
+    @Override
+    public String getDescriptionText() {
+        int size = primitives != null ? primitives.length : getParticipatingPrimitives().size();
+        return trn("Change {0} object", "Change {0} objects", size, size);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), commands, Arrays.hashCode(primitives));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        if (!super.equals(obj)) return false;
+        CompactChangesCommand that = (CompactChangesCommand) obj;
+        return Objects.equals(commands, that.commands) &&
+                Arrays.equals(primitives, that.primitives);
+    }
+}
@@ -125,9 +125,14 @@ public class ConflateMatchCommand extends Command {
      * @return the built command or null in case of error or user cancellation.
      */
     private SequenceCommand buildCommand() {
+        TagCollection tagCollection = match.getResolvedTagCollection(settings);
+        if (tagCollection == null) {
+            // conflicts not resolved by the rules: let the user resolve them
+            tagCollection = match.getMergingTagCollection(settings);
+        }
         List<Command> list = settings.isReplacingGeometry ?
-                buildCopyAndReplaceGeometryCommand(match, settings)
-                : buildTagMergingCommand(match, settings);
+                buildCopyAndReplaceGeometryCommand(match, tagCollection, settings)
+                : buildTagMergingCommand(match, tagCollection);
         if (list == null) {
             return null;
         } else {
@@ -147,42 +152,78 @@ public class ConflateMatchCommand extends Command {
      * @return the commands list or null if user canceled or error occurred.
      */
     public static List<Command> buildCopyAndReplaceGeometryCommand(SimpleMatch match, SimpleMatchSettings settings) {
+        return buildCopyAndReplaceGeometryCommand(match, match.getMergingTagCollection(settings), settings);
+    }
+
+    private static List<Command> buildCopyAndReplaceGeometryCommand(SimpleMatch match, TagCollection tagCollection,
+            SimpleMatchSettings settings) {
         OsmPrimitive referenceObject = match.getReferenceObject();
-        OsmPrimitive subjectObject = match.getSubjectObject();
-        TagCollection tagCollection = match.getMergingTagCollection(settings);
-        List<Command> commands = new ArrayList<>(3);
+        // get the copied reference object if the reference is in another DataSet:
+        List<Command> commands = new ArrayList<>();
+        OsmPrimitive replacingObject = referenceObject;
         if (settings.subjectLayer != settings.referenceLayer) {
-            List<Command> copyPrimitiveCommand = buildCopyPrimitiveCommand(referenceObject, settings.subjectDataSet);
-            commands.addAll(copyPrimitiveCommand);
-            if (!copyPrimitiveCommand.get(0).executeCommand()) {
+            commands.addAll(buildCopyPrimitiveCommand(referenceObject, settings.subjectDataSet));
+            if (!commands.get(0).executeCommand()) {
                 return null;
             }
-            try {
-                commands.add(buildReplaceGeometryCommand(subjectObject,
-                        // get the copied reference object:
-                        subjectObject.getDataSet().getPrimitiveById(referenceObject.getPrimitiveId()),
-                        tagCollection));
-            } finally {
-                copyPrimitiveCommand.get(0).undoCommand();
+            replacingObject = settings.subjectDataSet.getPrimitiveById(referenceObject.getPrimitiveId());
+        }
+        List<Command> replaceCommands;
+        try {
+            replaceCommands = buildReplaceGeometryCommands(match, replacingObject, tagCollection);
+        } catch (ReplaceGeometryException ex) {
+            showReplaceGeometryError(ex, match.getSubjectObject(), replacingObject);
+            return null;
+        } finally {
+            if (!commands.isEmpty()) {
+                commands.get(0).undoCommand();
             }
-        } else {
-            commands.add(buildReplaceGeometryCommand(subjectObject, referenceObject, tagCollection));
         }
-        if (commands.get(commands.size()-1) == null) {
-            // could be null because of UserCancel or error.
+        if (replaceCommands == null) {
             return null;
-        } else {
-            // Remove keys untouched by ReplaceGeometryCommand but we don't want in our tagCollection
-            Stream.concat(referenceObject.getKeys().keySet().stream(), subjectObject.getKeys().keySet().stream())
-                .filter(key -> !tagCollection.hasTagsFor(key))
-                .forEach(key -> {
-                    // I don't know who will survive ReplaceGeometryCommand: referenceObject or subjectObject.
-                    // In the doubt I modify both:
-                    commands.add(new ChangePropertyCommand(referenceObject, key, null));
-                    commands.add(new ChangePropertyCommand(subjectObject, key, null));
-                });
-            return commands;
         }
+        commands.addAll(replaceCommands);
+        return commands;
+    }
+
+    /**
+     * Built Replace Geometry Command (that also merge tags), replacing the subject object
+     * by an object of the subject DataSet: the reference object itself, or its copy.
+     *
+     * Will remove tags that are not in the tag collection, and set the values of the
+     * tag collection found on neither object (e.g. concatenated values).
+     *
+     * @param tagCollection the tags of the conflated object, see {@link SimpleMatch#getResolvedTagCollection}
+     * @return the commands list or null if user canceled.
+     * @throws ReplaceGeometryException if the geometry cannot be replaced
+     */
+    public static List<Command> buildReplaceGeometryCommands(SimpleMatch match, OsmPrimitive referenceObject,
+            TagCollection tagCollection) throws ReplaceGeometryException {
+        OsmPrimitive subjectObject = match.getSubjectObject();
+        Command replaceCommand = buildReplaceCommand(subjectObject, referenceObject, tagCollection);
+        if (replaceCommand == null) {
+            // could be null because of UserCancel.
+            return null;
+        }
+        List<Command> commands = new ArrayList<>(3);
+        commands.add(replaceCommand);
+        // Remove keys untouched by ReplaceGeometryCommand but we don't want in our tagCollection
+        Stream.concat(referenceObject.getKeys().keySet().stream(), subjectObject.getKeys().keySet().stream())
+            .filter(key -> !tagCollection.hasTagsFor(key))
+            .forEach(key -> {
+                // I don't know who will survive ReplaceGeometryCommand: referenceObject or subjectObject.
+                // In the doubt I modify both:
+                commands.add(new ChangePropertyCommand(referenceObject, key, null));
+                commands.add(new ChangePropertyCommand(subjectObject, key, null));
+            });
+        for (String key : tagCollection.getKeys()) {
+            String value = tagCollection.getJoinedValues(key);
+            if (tagCollection.hasUniqueNonEmptyValue(key)
+                    && !value.equals(referenceObject.get(key)) && !value.equals(subjectObject.get(key))) {
+                commands.add(new ChangePropertyCommand(Arrays.asList(referenceObject, subjectObject), key, value));
+            }
+        }
+        return commands;
     }
 
     /**
@@ -190,21 +231,34 @@ public class ConflateMatchCommand extends Command {
      * @return the commands list or null if user canceled or error occurred.
      */
     public static Command buildReplaceGeometryCommand(OsmPrimitive subjectObject, OsmPrimitive referenceObject, TagCollection tagCollection) {
+        try {
+            return buildReplaceCommand(subjectObject, referenceObject, tagCollection);
+        } catch (ReplaceGeometryException ex) {
+            showReplaceGeometryError(ex, subjectObject, referenceObject);
+            return null;
+        }
+    }
+
+    private static Command buildReplaceCommand(OsmPrimitive subjectObject, OsmPrimitive referenceObject,
+            TagCollection tagCollection) throws ReplaceGeometryException {
         // save and remove tags to avoid unwanted tags conflicts dialog:
         TagMap savedReferenceTags = saveAndRemoveTagsNotInCollection(referenceObject, tagCollection);
         TagMap savedSubjectTags = saveAndRemoveTagsNotInCollection(subjectObject, tagCollection);
-        Command command = null;
         try {
-            command = ReplaceGeometryUtils.buildReplaceCommand(subjectObject, referenceObject);
-        } catch (ReplaceGeometryException ex) {
-            AutoScaleAction.zoomTo(Arrays.asList(subjectObject, referenceObject));
-            JOptionPane.showMessageDialog(MainApplication.getMainFrame(),
-                    ex.getMessage(), tr("Cannot replace geometry."), JOptionPane.INFORMATION_MESSAGE);
+            return ReplaceGeometryUtils.buildReplaceCommand(subjectObject, referenceObject);
         } finally {
             referenceObject.setKeys(savedReferenceTags);
             subjectObject.setKeys(savedSubjectTags);
         }
-        return command;
+    }
+
+    /**
+     * Zoom on the objects and tell the user why their geometry cannot be replaced.
+     */
+    static void showReplaceGeometryError(ReplaceGeometryException ex, OsmPrimitive subjectObject, OsmPrimitive referenceObject) {
+        AutoScaleAction.zoomTo(Arrays.asList(subjectObject, referenceObject));
+        JOptionPane.showMessageDialog(MainApplication.getMainFrame(),
+                ex.getMessage(), tr("Cannot replace geometry."), JOptionPane.INFORMATION_MESSAGE);
     }
 
     public static List<Command> buildCopyPrimitiveCommand(OsmPrimitive referenceObject, DataSet data) {
@@ -222,13 +276,22 @@ public class ConflateMatchCommand extends Command {
      * @return the commands list or null if user canceled.
      */
     public static List<Command> buildTagMergingCommand(SimpleMatch match, SimpleMatchSettings settings) {
+        return buildTagMergingCommand(match, match.getMergingTagCollection(settings));
+    }
+
+    /**
+     * Built Tag only Merging Command
+     * @param tagCollection the tags of the conflated object, see {@link SimpleMatch#getResolvedTagCollection}
+     * @return the commands list or null if user canceled.
+     */
+    public static List<Command> buildTagMergingCommand(SimpleMatch match, TagCollection tagCollection) {
         // Temporarily remove relation membership to avoid conflict dialog about them, we won't really
         // combine the primitives, we just want to combine the tags:
         HashMap<Relation, RelationData> savedRelationsData = saveAndRemoveRelationMembersFor(match.getReferenceObject());
         saveAndRemoveRelationMembersFor(match.getSubjectObject()).forEach(savedRelationsData::putIfAbsent);
         try {
             return CombinePrimitiveResolverDialog.launchIfNecessary(
-                    match.getMergingTagCollection(settings),
+                    tagCollection,
                     Arrays.asList(match.getReferenceObject(), match.getSubjectObject()),
                     Collections.singleton(match.getSubjectObject()));
         } catch (UserCancelException e) {
@@ -0,0 +1,320 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation.command;
+
+import static org.openstreetmap.josm.tools.I18n.marktr;
+import static org.openstreetmap.josm.tools.I18n.tr;
+import static org.openstreetmap.josm.tools.I18n.trn;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.swing.Icon;
+
+import org.openstreetmap.josm.command.AddPrimitivesCommand;
+import org.openstreetmap.josm.command.Command;
+import org.openstreetmap.josm.command.PseudoCommand;
+import org.openstreetmap.josm.command.PurgeCommand;
+import org.openstreetmap.josm.command.SequenceCommand;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.TagCollection;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.plugins.conflation.ConflationUtils;
+import org.openstreetmap.josm.plugins.conflation.SimpleMatch;
+import org.openstreetmap.josm.plugins.conflation.SimpleMatchList;
+import org.openstreetmap.josm.plugins.conflation.SimpleMatchSettings;
+import org.openstreetmap.josm.plugins.utilsplugin2.replacegeometry.ReplaceGeometryException;
+import org.openstreetmap.josm.tools.ImageProvider;
+
+/**
+ * Command to conflate many matches at once.
+ *
+ * Unlike a sequence of {@link ConflateMatchCommand}, which copies, then un-copies,
+ * each reference object in turn, all the reference objects are copied to the
+ * subject DataSet with a single {@link AddPrimitivesCommand}, and the copies are
+ * looked up once. The commands of the matches are then built and executed one
+ * after the other, as they depend on each other (e.g. relation memberships, see
+ * {@link ConflateMatchCommand}), inside a single {@link DataSet#beginUpdate()},
+ * and the conflated matches are removed from the list at once. The commands of
+ * the matches are then replaced by the states of the primitives they changed,
+ * see {@link CompactChangesCommand}, so a large batch does not keep a command
+ * per key and per object in the undo stack.
+ *
+ * Like {@link StopOnErrorSequenceCommand}, the conflation stops at the first
+ * match that fails (or is canceled by the user), keeping the matches already
+ * conflated. The copies of the reference objects of the other matches are
+ * purged, with their nodes and members that no kept object uses. When the
+ * settings have {@link SimpleMatchSettings#tagConflictRules}, nothing is asked
+ * to the user: the matches whose tag conflicts the rules cannot
+ * resolve, or whose geometry cannot be replaced, are deferred. They stay in the
+ * list of matches, see {@link #getDeferredMatches()}, and the others are conflated.
+ */
+public class ConflateMatchesCommand extends Command {
+    private final List<SimpleMatch> matches;
+    private final SimpleMatchList matchesList;
+    private final SimpleMatchSettings settings;
+    /** The executed commands: the copy, the changes of the conflated matches, and the removal of the matches. */
+    private final List<Command> sequence = new ArrayList<>();
+    private final List<SimpleMatch> deferred = new ArrayList<>();
+    private int nbConflated;
+    private boolean interrupted;
+    private boolean isBuilt;
+
+    /**
+     * Conflate the given matches, using the given settings.
+     * @param matches the matches to conflate
+     * @param matchesList the list of match to update (remove the conflated matches)
+     * @param settings the settings that tell how to conflate.
+     */
+    public ConflateMatchesCommand(Collection<SimpleMatch> matches,
+            SimpleMatchList matchesList, SimpleMatchSettings settings) {
+        super(settings.subjectDataSet);
+        this.matches = new ArrayList<>(matches);
+        this.matchesList = matchesList;
+        this.settings = settings;
+    }
+
+    @Override
+    public boolean executeCommand() {
+        DataSet dataSet = getAffectedDataSet();
+        dataSet.beginUpdate();
+        try {
+            if (!isBuilt) {
+                isBuilt = true;
+                buildAndExecute();
+            } else {
+                for (Command command : sequence) {
+                    command.executeCommand();
+                }
+            }
+        } catch (RuntimeException e) {
+            undoCommand();
+            sequence.clear();
+            nbConflated = 0;
+            throw e;
+        } finally {
+            dataSet.endUpdate();
+        }
+        return nbConflated > 0;
+    }
+
+    private void buildAndExecute() {
+        // the matches whose conflicts the rules cannot resolve (only with rules) are not copied
+        Map<SimpleMatch, TagCollection> tagCollections = new HashMap<>();
+        List<SimpleMatch> toConflate = new ArrayList<>(matches.size());
+        for (SimpleMatch match : matches) {
+            TagCollection tagCollection = match.getResolvedTagCollection(settings);
+            if (tagCollection == null) {
+                deferred.add(match);
+            } else {
+                tagCollections.put(match, tagCollection);
+                toConflate.add(match);
+            }
+        }
+        Map<OsmPrimitive, OsmPrimitive> copies = null;
+        Set<OsmPrimitive> copiedPrimitives = new HashSet<>();
+        if (settings.isReplacingGeometry && settings.subjectLayer != settings.referenceLayer && !toConflate.isEmpty()) {
+            List<OsmPrimitive> referenceObjects = toConflate.stream()
+                    .map(SimpleMatch::getReferenceObject).collect(Collectors.toList());
+            List<PrimitiveData> newObjects = ConflationUtils.copyObjects(settings.referenceDataSet, referenceObjects);
+            // no selection event for each match, the copied objects are selected once
+            Command copyCommand = new AddPrimitivesCommand(newObjects, null, getAffectedDataSet());
+            if (!copyCommand.executeCommand()) {
+                return;
+            }
+            sequence.add(copyCommand);
+            copyCommand.fillModifiedData(new HashSet<>(), new HashSet<>(), copiedPrimitives);
+            Command selectCommand = new SetSelectedCommand(getAffectedDataSet(), newObjects);
+            selectCommand.executeCommand();
+            sequence.add(selectCommand);
+            copies = new HashMap<>();
+            for (OsmPrimitive referenceObject : referenceObjects) {
+                copies.put(referenceObject, getAffectedDataSet().getPrimitiveById(referenceObject.getPrimitiveId()));
+            }
+        }
+        boolean unattended = settings.tagConflictRules != null;
+        CompactChangesCommand changes = new CompactChangesCommand(getAffectedDataSet());
+        sequence.add(changes);
+        List<SimpleMatch> conflated = new ArrayList<>(toConflate.size());
+        for (SimpleMatch match : toConflate) {
+            TagCollection tagCollection = tagCollections.get(match);
+            List<Command> commands;
+            if (!settings.isReplacingGeometry) {
+                commands = ConflateMatchCommand.buildTagMergingCommand(match, tagCollection);
+            } else {
+                OsmPrimitive referenceObject = copies != null
+                        ? copies.get(match.getReferenceObject()) : match.getReferenceObject();
+                try {
+                    commands = ConflateMatchCommand.buildReplaceGeometryCommands(match, referenceObject, tagCollection);
+                } catch (ReplaceGeometryException ex) {
+                    if (unattended) {
+                        deferred.add(match);
+                        continue;
+                    }
+                    ConflateMatchCommand.showReplaceGeometryError(ex, match.getSubjectObject(), referenceObject);
+                    commands = null;
+                }
+            }
+            Command command = commands != null ? new SequenceCommand("", commands) : null;
+            if (command == null || !changes.executeAndRecord(command)) {
+                if (unattended && command != null) {
+                    deferred.add(match);
+                    continue;
+                }
+                interrupted = true;
+                break;
+            }
+            conflated.add(match);
+        }
+        nbConflated = conflated.size();
+        if (nbConflated > 0) {
+            changes.compact();
+            if (copies != null && nbConflated < toConflate.size()) {
+                // the copies of the matches not conflated (deferred, or after an interruption) are not kept
+                Set<SimpleMatch> conflatedSet = new HashSet<>(conflated);
+                List<OsmPrimitive> notConflatedCopies = new ArrayList<>();
+                for (SimpleMatch match : toConflate) {
+                    if (!conflatedSet.contains(match)) {
+                        notConflatedCopies.add(copies.get(match.getReferenceObject()));
+                    }
+                }
+                Set<OsmPrimitive> unused = getUnusedCopies(notConflatedCopies, copiedPrimitives);
+                if (!unused.isEmpty()) {
+                    Command purgeCommand = new PurgeCommand(getAffectedDataSet(), unused, Collections.emptyList());
+                    purgeCommand.executeCommand();
+                    sequence.add(purgeCommand);
+                }
+            }
+            Command removeCommand = new RemoveMatchCommand(matchesList, conflated);
+            removeCommand.executeCommand();
+            sequence.add(removeCommand);
+        } else {
+            // nothing conflated: do not keep the copies
+            undoCommand();
+            sequence.clear();
+        }
+    }
+
+    /**
+     * @param copies the copies to remove
+     * @param copiedPrimitives all the primitives added by the copy
+     * @return the given copies, and their nodes and members added by the copy, which are
+     * not used by a primitive kept in the DataSet
+     */
+    private static Set<OsmPrimitive> getUnusedCopies(Collection<OsmPrimitive> copies, Set<OsmPrimitive> copiedPrimitives) {
+        // the referrers come before the primitives they use
+        Set<OsmPrimitive> candidates = new LinkedHashSet<>();
+        Deque<OsmPrimitive> pending = new ArrayDeque<>();
+        copies.stream().filter(Objects::nonNull).forEach(pending::add);
+        while (!pending.isEmpty()) {
+            OsmPrimitive primitive = pending.pop();
+            if (!copiedPrimitives.contains(primitive) || !candidates.add(primitive)) {
+                continue;
+            }
+            if (primitive instanceof Way) {
+                pending.addAll(((Way) primitive).getNodes());
+            } else if (primitive instanceof Relation) {
+                pending.addAll(((Relation) primitive).getMemberPrimitivesList());
+            }
+        }
+        Set<OsmPrimitive> unused = new LinkedHashSet<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (OsmPrimitive primitive : candidates) {
+                if (!unused.contains(primitive) && unused.containsAll(primitive.getReferrers())) {
+                    unused.add(primitive);
+                    changed = true;
+                }
+            }
+        }
+        return unused;
+    }
+
+    @Override
+    public void undoCommand() {
+        DataSet dataSet = getAffectedDataSet();
+        dataSet.beginUpdate();
+        try {
+            for (int i = sequence.size() - 1; i >= 0; i--) {
+                sequence.get(i).undoCommand();
+            }
+        } finally {
+            dataSet.endUpdate();
+        }
+    }
+
+    @Override
+    public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted, Collection<OsmPrimitive> added) {
+        for (Command command : sequence) {
+            command.fillModifiedData(modified, deleted, added);
+        }
+    }
+
+    /**
+     * @return the matches not conflated because the tag conflict rules could not resolve
+     * their conflicts, or their geometry could not be replaced
+     */
+    public List<SimpleMatch> getDeferredMatches() {
+        return Collections.unmodifiableList(deferred);
+    }
+
+    @Override
+    public String getDescriptionText() {
+        if (interrupted) {
+            return tr(marktr("Interrupted conflation ({0}/{1} object pairs)"), nbConflated, matches.size());
+        } else if (!deferred.isEmpty()) {
+            return tr(marktr("Conflate {0} object pairs, {1} deferred"), nbConflated, deferred.size());
+        } else {
+            return trn("Conflate {0} object pair", "Conflate {0} object pairs", nbConflated, nbConflated);
+        }
+    }
+
+    @Override
+    public Icon getDescriptionIcon() {
+        return ImageProvider.get("dialogs", "conflation");
+    }
+
+    @Override
+    public Collection<? extends OsmPrimitive> getParticipatingPrimitives() {
+        Collection<OsmPrimitive> prims = new HashSet<>();
+        for (Command command : sequence) {
+            prims.addAll(command.getParticipatingPrimitives());
+        }
+        return prims;
+    }
+
+    @Override
+    public Collection<PseudoCommand> getChildren() {
+        return new ArrayList<>(sequence);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), matches, sequence, nbConflated);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        if (!super.equals(obj)) return false;
+        ConflateMatchesCommand that = (ConflateMatchesCommand) obj;
+        return nbConflated == that.nbConflated &&
+                Objects.equals(matches, that.matches) &&
+                Objects.equals(sequence, that.sequence);
+    }
+}
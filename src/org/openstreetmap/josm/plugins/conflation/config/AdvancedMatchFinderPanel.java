@@ -652,6 +652,26 @@ public class AdvancedMatchFinderPanel extends MatchFinderPanel {
         return matchFinder;
     }
 
+    @Override
+    public double getSearchDistance() {
+        if (getUnionCheckBox().isSelected()) {
+            // The unions of adjacent references can reach farther than their members
+            return Double.POSITIVE_INFINITY;
+        }
+        double distance = Double.POSITIVE_INFINITY;
+        if (getFilterByWindowCheckBox().isSelected()) {
+            distance = filterByWindowField.getDouble();
+        }
+        // The distances between geometries or centroids are not smaller than between envelopes
+        if (stdDistanceCheckBox.isSelected() && stdDistanceThresholdField.getDouble() > 0) {
+            distance = Math.min(distance, stdDistanceThresholdField.getDouble());
+        }
+        if (getCentroidCheckBox().isSelected() && centroidThresholdField.getDouble() > 0) {
+            distance = Math.min(distance, centroidThresholdField.getDouble());
+        }
+        return distance;
+    }
+
     @Override
     public void savePreferences(IPreferences pref) {
         pref.putBoolean(getClass().getName() + ".filterByAreaCheckBox", filterByAreaCheckBox.isSelected());
@@ -11,5 +11,14 @@ public abstract class MatchFinderPanel extends JPanel {
 
     public abstract FCMatchFinder getMatchFinder();
 
+    /**
+     * Returns the largest distance between a reference and a subject object that the
+     * match finder can match, used to skip the reference objects far from the subject.
+     * @return the search distance, or {@link Double#POSITIVE_INFINITY} if unknown
+     */
+    public double getSearchDistance() {
+        return Double.POSITIVE_INFINITY;
+    }
+
     public abstract void savePreferences(IPreferences pref);
 }
@@ -12,6 +12,7 @@ import java.awt.event.ActionListener;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.ButtonGroup;
+import javax.swing.JCheckBox;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 
@@ -20,16 +21,22 @@ import org.openstreetmap.josm.gui.tagging.ac.AutoCompletionList;
 import org.openstreetmap.josm.plugins.conflation.SimpleMatchSettings;
 import org.openstreetmap.josm.spi.preferences.IPreferences;
 
+import com.vividsolutions.jcs.plugin.conflate.polygonmatch.MyValidatingTextField;
+
 /**
  * Matchingq panel, that allow to select between {@link SimpleMatchFinderPanel},
  * {@link AdvancedMatchFinderPanel} or {@link  ProgrammingMatchFinderPanel}.
  */
 public class MatchingPanel extends JPanel {
-    
+
+    private static final double DEFAULT_MAX_OFFSET = 20.0;
+
     private SimpleMatchFinderPanel simpleMatchFinderPanel;
     private AdvancedMatchFinderPanel advancedMatchFinderPanel;
     private ProgrammingMatchFinderPanel programmingMatchFinderPanel;
     private Box selectedMatchFinderBox;
+    private JCheckBox offsetCheckBox;
+    private MyValidatingTextField maxOffsetField;
     private AutoCompletionList referenceTagsAutoCompletionList;
     private Runnable pack;
     
@@ -95,10 +102,27 @@ public class MatchingPanel extends JPanel {
         advancedRadioButton.addActionListener(modeChangedLiseter);
         programmimgRadioButton.addActionListener(modeChangedLiseter);
 
+        offsetCheckBox = new JCheckBox(tr("Correct global offset up to"));
+        offsetCheckBox.setFont(SettingsDialog.plainLabelFont);
+        offsetCheckBox.setToolTipText(tr("Estimate the dominant shift between the reference and the subject layers, "
+                + "and compensate it while matching"));
+        maxOffsetField = new MyValidatingTextField(
+                "" + DEFAULT_MAX_OFFSET, 4, MyValidatingTextField.NON_NEGATIVE_DOUBLE_VALIDATOR, "0");
+        maxOffsetField.setToolTipText(tr("Maximum offset"));
+        maxOffsetField.setMaximumSize(maxOffsetField.getPreferredSize());
+        offsetCheckBox.addActionListener(e -> maxOffsetField.setEnabled(offsetCheckBox.isSelected()));
+        Box offsetBox = Box.createHorizontalBox();
+        offsetBox.setBorder(BorderFactory.createEmptyBorder(0, 5, 5, 5));
+        offsetBox.add(offsetCheckBox);
+        offsetBox.add(maxOffsetField);
+        offsetBox.add(Box.createHorizontalGlue());
+        restoreOffsetFromPreferences(pref);
+
         Box box = Box.createVerticalBox();
         box.add(complexitySelectionBox);
         box.add(Box.createRigidArea(new Dimension(1, 5)));
         box.add(selectedMatchFinderBox);
+        box.add(offsetBox);
         this.add(box, BorderLayout.CENTER);
     }
 
@@ -112,6 +136,8 @@ public class MatchingPanel extends JPanel {
         if (programmingMatchFinderPanel != null) {
             programmingMatchFinderPanel.savePreferences(pref);
         }
+        pref.putBoolean(getClass().getName() + ".correctOffset", offsetCheckBox.isSelected());
+        pref.putDouble(getClass().getName() + ".maxOffset", maxOffsetField.getDouble());
     }
     
     public void restoreFromPreferences(IPreferences pref) {
@@ -120,10 +146,20 @@ public class MatchingPanel extends JPanel {
         if (programmingMatchFinderPanel != null) {
             programmingMatchFinderPanel.restoreFromPreferences(pref);
         }
+        restoreOffsetFromPreferences(pref);
+    }
+
+    private void restoreOffsetFromPreferences(IPreferences pref) {
+        offsetCheckBox.setSelected(pref.getBoolean(getClass().getName() + ".correctOffset", false));
+        maxOffsetField.setText("" + Double.max(0.0,
+                pref.getDouble(getClass().getName() + ".maxOffset", DEFAULT_MAX_OFFSET)));
+        maxOffsetField.setEnabled(offsetCheckBox.isSelected());
     }
     
     public void fillSettings(SimpleMatchSettings settings) {
         settings.matchFinder = getSelectedMatchFinderPanel().getMatchFinder();
+        settings.maxOffset = offsetCheckBox.isSelected() ? maxOffsetField.getDouble() : 0;
+        settings.searchDistance = getSelectedMatchFinderPanel().getSearchDistance();
     }
     
 }
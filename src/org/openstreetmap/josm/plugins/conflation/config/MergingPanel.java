@@ -21,6 +21,7 @@ import javax.swing.event.DocumentListener;
 import org.openstreetmap.josm.actions.ExpertToggleAction;
 import org.openstreetmap.josm.gui.tagging.ac.AutoCompletionList;
 import org.openstreetmap.josm.plugins.conflation.SimpleMatchSettings;
+import org.openstreetmap.josm.plugins.conflation.TagConflictRules;
 import org.openstreetmap.josm.spi.preferences.IPreferences;
 
 /**
@@ -36,6 +37,8 @@ public class MergingPanel extends JPanel {
     private JLabel mergeTagsExceptLabel;
     private JCheckBox overwriteTagsCheckbox; // may be null
     private DefaultPromptTextField overwriteTagsField; // may be null
+    private JCheckBox conflictRulesCheckbox; // may be null
+    private DefaultPromptTextField conflictRulesField; // may be null
     private AutoCompletionList referenceTagsAutoCompletionList;
 
     public MergingPanel(AutoCompletionList referenceKeysAutocompletionList, IPreferences pref) {
@@ -65,6 +68,17 @@ public class MergingPanel extends JPanel {
                     overwriteTagsField.setEnabled(overwriteTagsCheckbox.isSelected());
                 }
             });
+            conflictRulesCheckbox = new JCheckBox(tr("Resolve conflicts with rules"));
+            conflictRulesField = new DefaultPromptTextField(20, tr("none"));
+            conflictRulesField.setToolTipText(tr("List of key=policy rules to resolve tag conflicts without confirmation, "
+                    + "policy being prefer_reference, prefer_subject, concatenate, keep_newest or skip_match, "
+                    + "and key * for the other keys. Unresolved matches are deferred for review."));
+            conflictRulesCheckbox.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    conflictRulesField.setEnabled(conflictRulesCheckbox.isSelected());
+                }
+            });
         }
         mergeTagsCheckBox.addActionListener(new ActionListener() {
             @Override
@@ -147,6 +161,14 @@ public class MergingPanel extends JPanel {
             verticalGroup.addGroup(layout.createParallelGroup(GroupLayout.Alignment.BASELINE)
                     .addComponent(overwriteTagsCheckbox)
                     .addComponent(overwriteTagsField));
+            horizonatGroup.addGroup(layout.createSequentialGroup()
+                    .addComponent(conflictRulesCheckbox)
+                    .addComponent(conflictRulesField,
+                            GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE)
+                    .addPreferredGap(LayoutStyle.ComponentPlacement.RELATED, 5, Short.MAX_VALUE));
+            verticalGroup.addGroup(layout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+                    .addComponent(conflictRulesCheckbox)
+                    .addComponent(conflictRulesField));
         }
         layout.setHorizontalGroup(horizonatGroup);
         layout.setVerticalGroup(verticalGroup);
@@ -162,6 +184,10 @@ public class MergingPanel extends JPanel {
             pref.putBoolean(getClass().getName() + ".overwriteTagsCheckbox", overwriteTagsCheckbox.isSelected());
             pref.put(getClass().getName() + ".overwriteTagsField", overwriteTagsField.getText());
         }
+        if (conflictRulesCheckbox != null) {
+            pref.putBoolean(getClass().getName() + ".conflictRulesCheckbox", conflictRulesCheckbox.isSelected());
+            pref.put(getClass().getName() + ".conflictRulesField", conflictRulesField.getText());
+        }
     }
     
     public void restoreFromPreferences(IPreferences pref) {
@@ -174,6 +200,10 @@ public class MergingPanel extends JPanel {
             overwriteTagsField.setText(pref.get(getClass().getName() + ".overwriteTagsField", ""));
             overwriteTagsCheckbox.setSelected(pref.getBoolean(getClass().getName() + ".overwriteTagsCheckbox", false));
         }
+        if (conflictRulesCheckbox != null) {
+            conflictRulesField.setText(pref.get(getClass().getName() + ".conflictRulesField", ""));
+            conflictRulesCheckbox.setSelected(pref.getBoolean(getClass().getName() + ".conflictRulesCheckbox", false));
+        }
     }
     
     public void fillSettings(SimpleMatchSettings settings) {
@@ -197,5 +227,10 @@ public class MergingPanel extends JPanel {
         } else {
             settings.overwriteTags = new ArrayList<>(0);
         }
+        if ((conflictRulesField != null) && (conflictRulesCheckbox != null) && conflictRulesCheckbox.isSelected()) {
+            settings.tagConflictRules = TagConflictRules.parse(conflictRulesField.getText());
+        } else {
+            settings.tagConflictRules = null;
+        }
     }
 }
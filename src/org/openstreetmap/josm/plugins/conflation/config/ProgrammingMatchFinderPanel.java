@@ -191,6 +191,13 @@ public final class ProgrammingMatchFinderPanel extends MatchFinderPanel {
             //        com.vividsolutions.jcs.conflate.polygonmatch.FeatureCollectionMatcher.class,
             //        "Applies a FeatureMatcher to each item in a FeatureCollection",
             //        new String[] {"matcher: typically a composite of other FeatureMatchers"}),
+            new InstanceConstructor(
+                    com.vividsolutions.jcs.conflate.polygonmatch.FrechetDistanceMatcher.class,
+                    "FrechetDistance",
+                    "Frechet Distance, comparing lines as a whole along their course (in either "
+                    + "direction). Suited to ways which should match from end to end.",
+                    new String[] {"maximum distance, if 0 then score will be relative to the combined envelope diagonale.",
+                            "half width of the coupling band, as a fraction of the number of points (e.g. 0.1)"}),
             new InstanceConstructor(
                     com.vividsolutions.jcs.conflate.polygonmatch.HausdorffDistanceMatcher.class,
                     "HausdorffDistance",
@@ -201,6 +208,12 @@ public final class ProgrammingMatchFinderPanel extends MatchFinderPanel {
                     "IdenticalFilter",
                     "Filters out matches where features are identical.",
                     new String[] {}),
+            new InstanceConstructor(
+                    com.vividsolutions.jcs.conflate.polygonmatch.LineOverlapMatcher.class,
+                    "LineOverlap",
+                    "Length of the two lines running along each other (within the distance and with "
+                    + "a similar orientation), divided by their total length.",
+                    new String[] {"maximum distance", "maximum angle, in degrees"}),
             new InstanceConstructor(
                     org.openstreetmap.josm.plugins.conflation.matcher.StandardDistanceMatcher.class,
                     "StandardDistance",
@@ -226,11 +239,37 @@ public final class ProgrammingMatchFinderPanel extends MatchFinderPanel {
                     + "out all matches except the top ones, for each feature, leaving:\n"
                     + "T2-C3 (1.0), T3-C4 (0.5).",
                     new String[] {"match finder"}),
+            new InstanceConstructor(
+                    com.vividsolutions.jcs.conflate.polygonmatch.OffsetCorrectingFCMatchFinder.class,
+                    "OffsetCorrecting",
+                    "Estimates the dominant offset between the target and the candidate features "
+                    + "(by a vote of the offsets between sampled target centroids and their nearest "
+                    + "candidate centroids), then runs the match finder on targets translated by "
+                    + "this offset. Allows to keep tight windows on systematically shifted data.",
+                    new String[] {"maximum offset to look for", "match finder"}),
             new InstanceConstructor(
                     com.vividsolutions.jcs.conflate.polygonmatch.OverlapMatcher.class,
                     "Overlap",
                     "",
                     new String[] {}),
+            new InstanceConstructor(
+                    com.vividsolutions.jcs.conflate.polygonmatch.PartialHausdorffDistanceMatcher.class,
+                    "PartialHausdorffDistance",
+                    "Partial Hausdorff Distance, ignoring a fraction of outlying points. "
+                    + "More robust than the Hausdorff Distance on ways.",
+                    new String[] {"maximum distance, if 0 then score will be relative to the combined envelope diagonale.",
+                            "fraction of the points which must be within the distance (e.g. 0.9)"}),
+            new InstanceConstructor(
+                    com.vividsolutions.jcs.conflate.polygonmatch.PointInPolygonFCMatchFinder.class,
+                    "PointInPolygon",
+                    "Joins point features to the polygon features containing them (e.g. addresses to "
+                    + "buildings), using an index of the polygons. A point inside a polygon gets a score "
+                    + "of 1. Points outside of any polygon are scored by their distance to the nearest "
+                    + "polygon edge. Other geometries are ignored."
+                    + "\n\n"
+                    + "Usually wrapped in a 'Disambiguating' finder.",
+                    new String[] {"maximum distance to the edges for points outside of any polygon, "
+                            + "if 0 then only points inside polygons are matched."}),
             new InstanceConstructor(
                     com.vividsolutions.jcs.conflate.polygonmatch.ScaleScoresMatcher.class,
                     "ScaleScores",
@@ -242,6 +281,13 @@ public final class ProgrammingMatchFinderPanel extends MatchFinderPanel {
                     "ScoreStretcher",
                     "Re-scales the scores output from another FeatureMatcher",
                     new String[] {"minimum score, that will be warped to 0", "maximum ccore, that will be warped to 1"}),
+            new InstanceConstructor(
+                    com.vividsolutions.jcs.conflate.polygonmatch.SweepJoinFCMatchFinder.class,
+                    "SweepJoin",
+                    "Same as Basic with a Window matcher in front of the matcher, but the window "
+                    + "candidates of all the targets are found at once by a plane-sweep join, "
+                    + "instead of one index query per target. Faster on large datasets.",
+                    new String[] {"window buffer", "matcher"}),
             new InstanceConstructor(
                     com.vividsolutions.jcs.conflate.polygonmatch.SymDiffMatcher.class,
                     "SymDiff",
@@ -398,7 +398,7 @@ public class SettingsDialog extends ExtendedDialog {
         int numNodes = 0;
         int numWays = 0;
         int numRelations = 0;
-        int totalRelations = 0;
+        int numUnsupported = 0;
 
         // if subject and reference sets are the same, hint user that this must be wrong
         if (subjectLayer != null && subjectLayer == referenceLayer && !subjectSelection.isEmpty()) {
@@ -419,6 +419,9 @@ public class SettingsDialog extends ExtendedDialog {
                     numWays++;
                 } else if (p instanceof Relation) {
                     numRelations++;
+                    if (!((Relation) p).isMultipolygon()) {
+                        numUnsupported++;
+                    }
                 }
             }
             subjectLayerLabel.setText(subjectLayer.getName());
@@ -437,7 +440,6 @@ public class SettingsDialog extends ExtendedDialog {
             nbSubjectRelationsLabel.setText("0");
             restoreSubjectButton.setEnabled(false);
         }
-        totalRelations += numRelations;
         numNodes = 0;
         numWays = 0;
         numRelations = 0;
@@ -451,6 +453,9 @@ public class SettingsDialog extends ExtendedDialog {
                     numWays++;
                 } else if (p instanceof Relation) {
                     numRelations++;
+                    if (!((Relation) p).isMultipolygon()) {
+                        numUnsupported++;
+                    }
                 }
                 p.visitKeys(referenceKeysVisitor);
             }
@@ -473,11 +478,10 @@ public class SettingsDialog extends ExtendedDialog {
             nbReferenceRelationsLabel.setText("0");
             restoreReferenceButton.setEnabled(false);
         }
-        totalRelations += numRelations;
-        if (totalRelations != 0) {
+        if (numUnsupported != 0) {
             JOptionPane.showMessageDialog(MainApplication.getMainFrame(),
-                    tr("Relations are not supported."), tr("Error"),
-                    JOptionPane.ERROR_MESSAGE);
+                    tr("Only multipolygon and boundary relations are supported, other relations are ignored."),
+                    tr("Warning"), JOptionPane.WARNING_MESSAGE);
         }
         updateFreezeButtons();
         this.pack();
@@ -28,8 +28,10 @@ import com.vividsolutions.jcs.conflate.polygonmatch.ChainMatcher;
 import com.vividsolutions.jcs.conflate.polygonmatch.DisambiguatingFCMatchFinder;
 import com.vividsolutions.jcs.conflate.polygonmatch.FCMatchFinder;
 import com.vividsolutions.jcs.conflate.polygonmatch.FeatureMatcher;
+import com.vividsolutions.jcs.conflate.polygonmatch.FrechetDistanceMatcher;
 import com.vividsolutions.jcs.conflate.polygonmatch.HausdorffDistanceMatcher;
 import com.vividsolutions.jcs.conflate.polygonmatch.OneToOneFCMatchFinder;
+import com.vividsolutions.jcs.conflate.polygonmatch.PartialHausdorffDistanceMatcher;
 import com.vividsolutions.jcs.conflate.polygonmatch.WeightedMatcher;
 import com.vividsolutions.jcs.conflate.polygonmatch.WindowMatcher;
 import com.vividsolutions.jcs.plugin.conflate.polygonmatch.MyValidatingTextField;
@@ -42,7 +44,8 @@ public class SimpleMatchFinderPanel extends MatchFinderPanel {
     private final String[] methodString = {tr("Disambiguating"), tr("One to One")};
     private final JComboBox<String> methodCombeBox = new JComboBox<>(methodString);
     private final JLabel distanceLabel = new JLabel(tr("Distance"));
-    private final String[] distanceStrings = {tr("Standard"), tr("Centroid"), tr("Hausdorff")};
+    private final String[] distanceStrings = {tr("Standard"), tr("Centroid"), tr("Hausdorff"),
+            tr("Frechet (ways)"), tr("Partial Hausdorff (ways)")};
     private final JComboBox<String> distanceComboBox = new JComboBox<>(distanceStrings);
     private final JLabel threshDistanceLabel = new JLabel(" < ");
     private final MyValidatingTextField threshDistanceField = new MyValidatingTextField(
@@ -107,6 +110,8 @@ public class SimpleMatchFinderPanel extends MatchFinderPanel {
         switch(distanceComboBox.getSelectedIndex()) {
             case 1: distanceMatcher = new CentroidDistanceMatcher(); break;
             case 2: distanceMatcher = new HausdorffDistanceMatcher(); break;
+            case 3: distanceMatcher = new FrechetDistanceMatcher(); break;
+            case 4: distanceMatcher = new PartialHausdorffDistanceMatcher(); break;
             default: distanceMatcher = new StandardDistanceMatcher(); break;
         }
         distanceMatcher.setMaxDistance(threshDistanceField.getDouble());
@@ -130,6 +135,13 @@ public class SimpleMatchFinderPanel extends MatchFinderPanel {
         return finder;
     }
 
+    @Override
+    public double getSearchDistance() {
+        // The window and the distance matcher both use the threshold
+        double distance = threshDistanceField.getDouble();
+        return distance > 0 ? distance : Double.POSITIVE_INFINITY;
+    }
+
     public static List<String> splitBySpaceComaOrSemicolon(String values) {
         return Stream.of(values.trim().split("[\\s,;]+")).filter((s) -> !s.isEmpty()).collect(Collectors.toList());
     }
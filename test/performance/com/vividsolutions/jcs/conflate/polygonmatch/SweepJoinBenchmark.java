@@ -0,0 +1,112 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import java.util.Random;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.feature.IndexedFeatureCollection;
+import com.vividsolutions.jump.geom.EnvelopeUtil;
+import com.vividsolutions.jump.geom.SweepJoin;
+import com.vividsolutions.jump.task.DummyTaskMonitor;
+
+/**
+ * Benchmark of the {@link SweepJoinFCMatchFinder} against the per target
+ * window queries of a {@link BasicFCMatchFinder} and a {@link WindowMatcher},
+ * on random buildings: the candidate generation alone (index build and
+ * queries against one {@link SweepJoin}), then the whole match.
+ * <p>
+ * Not part of the unit tests, run its main method with the plugin classes and
+ * JTS on the classpath. Arguments: the number of features of each collection
+ * (default 50000) and the size of the square they are spread in (default 8000).
+ */
+public final class SweepJoinBenchmark {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+    private static final int ROUNDS = 5;
+    private static final double BUFFER = 20;
+
+    private SweepJoinBenchmark() {
+        // Hide default constructor for utilities classes
+    }
+
+    private static FeatureDataset buildings(int count, double extent, long seed) {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        FeatureDataset dataset = new FeatureDataset(schema);
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * extent;
+            double y = random.nextDouble() * extent;
+            double size = 5 + random.nextDouble() * 20;
+            Feature feature = new BasicFeature(schema);
+            feature.setGeometry(FACTORY.toGeometry(new Envelope(x, x + size, y, y + size)));
+            dataset.add(feature);
+        }
+        return dataset;
+    }
+
+    private static Envelope[] envelopes(FeatureDataset dataset) {
+        Envelope[] envelopes = new Envelope[dataset.size()];
+        for (int i = 0; i < envelopes.length; i++) {
+            envelopes[i] = dataset.getFeatures().get(i).getGeometry().getEnvelopeInternal();
+        }
+        return envelopes;
+    }
+
+    /**
+     * @return the best time of a few rounds, in ms
+     */
+    private static long bestOf(Runnable run) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1000000;
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        double extent = args.length > 1 ? Double.parseDouble(args[1]) : 8000;
+        FeatureDataset targets = buildings(count, extent, 3);
+        FeatureDataset candidates = buildings(count, extent, 4);
+        Envelope[] targetEnvelopes = envelopes(targets);
+        Envelope[] candidateEnvelopes = envelopes(candidates);
+
+        long[] pairs = new long[2];
+        long queryTime = bestOf(() -> {
+            IndexedFeatureCollection indexed = new IndexedFeatureCollection(candidates);
+            pairs[0] = 0;
+            for (Envelope envelope : targetEnvelopes) {
+                indexed.query(EnvelopeUtil.expand(envelope, BUFFER), candidate -> pairs[0]++);
+            }
+        });
+        long sweepTime = bestOf(() -> {
+            pairs[1] = 0;
+            SweepJoin.join(targetEnvelopes, BUFFER, candidateEnvelopes, (t, c) -> pairs[1]++);
+        });
+        if (pairs[0] != pairs[1]) {
+            throw new IllegalStateException(pairs[0] + " pairs with the window queries, "
+                    + pairs[1] + " with the sweep");
+        }
+        System.out.println(String.format("%d targets, %d candidates, %d pairs", count, count, pairs[0]));
+        System.out.println(String.format("candidates: index and window queries %d ms, sweep join %d ms",
+                queryTime, sweepTime));
+
+        FCMatchFinder basic = new BasicFCMatchFinder(new ChainMatcher(new FeatureMatcher[] {
+                new WindowMatcher(BUFFER), new CentroidDistanceMatcher(BUFFER)}));
+        FCMatchFinder sweep = new SweepJoinFCMatchFinder(BUFFER, new CentroidDistanceMatcher(BUFFER));
+        long basicTime = bestOf(() -> basic.match(new IndexedFeatureCollection(targets),
+                new IndexedFeatureCollection(candidates), new DummyTaskMonitor()));
+        long sweepMatchTime = bestOf(() -> sweep.match(targets, candidates, new DummyTaskMonitor()));
+        System.out.println(String.format("matches: BasicFCMatchFinder %d ms, SweepJoinFCMatchFinder %d ms",
+                basicTime, sweepMatchTime));
+    }
+}
@@ -0,0 +1,95 @@
+package com.vividsolutions.jump.feature;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Measures the bytes allocated per query by the list query and by the visitor
+ * query of an {@link IndexedFeatureCollection}, for each type of index, with
+ * the allocation counters of the HotSpot ThreadMXBean. The numbers depend on
+ * the JIT (escape analysis), so the best of several rounds is kept.
+ * <p>
+ * Not part of the unit tests, run its main method with the plugin classes and
+ * JTS on the classpath. Arguments: the number of features (default 20000) and
+ * of queries (default 2000).
+ */
+public final class QueryAllocationBenchmark {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+    private static final int ROUNDS = 10;
+
+    private QueryAllocationBenchmark() {
+        // Hide default constructor for utilities classes
+    }
+
+    private static FeatureDataset randomSquares(int count, double extent, double size, long seed) {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        FeatureDataset dataset = new FeatureDataset(schema);
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * extent;
+            double y = random.nextDouble() * extent;
+            Feature feature = new BasicFeature(schema);
+            feature.setGeometry(FACTORY.toGeometry(new Envelope(x, x + size, y, y + size)));
+            dataset.add(feature);
+        }
+        return dataset;
+    }
+
+    private static List<Envelope> randomWindows(int count, double extent, double size, long seed) {
+        Random random = new Random(seed);
+        List<Envelope> windows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * extent;
+            double y = random.nextDouble() * extent;
+            windows.add(new Envelope(x, x + size, y, y + size));
+        }
+        return windows;
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            System.out.println("Allocation accounting not supported by this JVM");
+            return;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+        FeatureDataset dataset = randomSquares(count, 1000, 5, 3);
+        List<Envelope> windows = randomWindows(queries, 1000, 30, 4);
+        for (SpatialIndexType type : SpatialIndexType.values()) {
+            IndexedFeatureCollection indexed = new IndexedFeatureCollection(dataset,
+                    type.create(type.getDefaultNodeCapacity()));
+            long[] found = new long[1];
+            long listBytes = Long.MAX_VALUE;
+            long visitorBytes = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = threadBean.getThreadAllocatedBytes(threadId);
+                for (Envelope window : windows) {
+                    found[0] += indexed.query(window).size();
+                }
+                listBytes = Math.min(listBytes, threadBean.getThreadAllocatedBytes(threadId) - start);
+                start = threadBean.getThreadAllocatedBytes(threadId);
+                for (Envelope window : windows) {
+                    indexed.query(window, f -> found[0]--);
+                }
+                visitorBytes = Math.min(visitorBytes, threadBean.getThreadAllocatedBytes(threadId) - start);
+            }
+            if (found[0] != 0) {
+                throw new IllegalStateException(type + ": the visitor and list queries differ");
+            }
+            System.out.println(String.format("%s: bytes per query, list %d, visitor %d", type,
+                    listBytes / windows.size(), visitorBytes / windows.size()));
+        }
+    }
+}
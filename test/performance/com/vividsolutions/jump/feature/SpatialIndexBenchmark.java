@@ -0,0 +1,194 @@
+package com.vividsolutions.jump.feature;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jump.geom.EnvelopeUtil;
+
+/**
+ * Benchmark of the index build and query times of each {@link SpatialIndexType},
+ * behind the constants of {@link SpatialIndexType#choose(FeatureCollection)}:
+ * <ul>
+ * <li>on OSM-like synthetic data (towns of buildings, sparse points, a mix of
+ * both, and one dense town among far away points), for several node
+ * capacities, or items per cell for the grid;</li>
+ * <li>on data more and more clustered in one town, with the estimated grid
+ * load factor, to find where the R-tree gets faster than the grid.</li>
+ * </ul>
+ * The test data of the plugin only has a few dozen objects, too few to measure.
+ * <p>
+ * Not part of the unit tests, run its main method with the plugin classes and
+ * JTS on the classpath. Argument: the number of indexed features (default 100000).
+ */
+public final class SpatialIndexBenchmark {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+    private static final int ROUNDS = 3;
+    private static final int[] CAPACITIES = {4, 8, 16, 32};
+
+    private SpatialIndexBenchmark() {
+        // Hide default constructor for utilities classes
+    }
+
+    private static FeatureSchema schema() {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        return schema;
+    }
+
+    private static void addSquare(FeatureDataset dataset, double x, double y, double size) {
+        Feature feature = new BasicFeature(dataset.getFeatureSchema());
+        feature.setGeometry(FACTORY.toGeometry(new Envelope(x, x + size, y, y + size)));
+        dataset.add(feature);
+    }
+
+    private static void addPoint(FeatureDataset dataset, double x, double y) {
+        Feature feature = new BasicFeature(dataset.getFeatureSchema());
+        feature.setGeometry(FACTORY.createPoint(new Coordinate(x, y)));
+        dataset.add(feature);
+    }
+
+    /** Buildings of 8 to 25 m in towns of a few hundred meters, in a 50 km square. */
+    private static FeatureDataset denseBuildings(int count, long seed) {
+        FeatureDataset dataset = new FeatureDataset(schema());
+        Random random = new Random(seed);
+        int towns = Math.max(1, count / 2000);
+        for (int t = 0; t < towns; t++) {
+            double cx = random.nextDouble() * 50000;
+            double cy = random.nextDouble() * 50000;
+            for (int i = 0; i < count / towns; i++) {
+                addSquare(dataset, cx + random.nextGaussian() * 400, cy + random.nextGaussian() * 400,
+                        8 + random.nextDouble() * 17);
+            }
+        }
+        return dataset;
+    }
+
+    /** Points uniformly spread in a 50 km square. */
+    private static FeatureDataset sparsePois(int count, long seed) {
+        FeatureDataset dataset = new FeatureDataset(schema());
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            addPoint(dataset, random.nextDouble() * 50000, random.nextDouble() * 50000);
+        }
+        return dataset;
+    }
+
+    /** Buildings in towns, rural points and a few large land use areas. */
+    private static FeatureDataset mixed(int count, long seed) {
+        FeatureDataset dataset = denseBuildings(count / 2, seed);
+        Random random = new Random(seed + 1);
+        for (int i = 0; i < count / 2; i++) {
+            if (i % 50 == 0) {
+                addSquare(dataset, random.nextDouble() * 50000, random.nextDouble() * 50000,
+                        200 + random.nextDouble() * 2000);
+            } else {
+                addPoint(dataset, random.nextDouble() * 50000, random.nextDouble() * 50000);
+            }
+        }
+        return dataset;
+    }
+
+    /**
+     * The given fraction of the features in one very dense town, the others
+     * are points in a 500 km square.
+     */
+    private static FeatureDataset clustered(int count, double fraction, long seed) {
+        FeatureDataset dataset = new FeatureDataset(schema());
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            if (random.nextDouble() >= fraction) {
+                addPoint(dataset, random.nextDouble() * 500000, random.nextDouble() * 500000);
+            } else {
+                addSquare(dataset, 250000 + random.nextGaussian() * 300, 250000 + random.nextGaussian() * 300,
+                        5 + random.nextDouble() * 10);
+            }
+        }
+        return dataset;
+    }
+
+    /** Windows around the features, like the ones of the WindowMatcher. */
+    private static List<Envelope> windows(FeatureCollection fc, double buffer) {
+        List<Envelope> windows = new ArrayList<>();
+        for (Feature feature : fc) {
+            windows.add(EnvelopeUtil.expand(FeatureUtil.getEnvelope(feature), buffer));
+        }
+        return windows;
+    }
+
+    /**
+     * @return the best build and query times of a few rounds, in ms
+     */
+    private static long[] measure(FeatureCollection fc, SpatialIndexType type, int capacity,
+            List<Envelope> windows) {
+        long build = Long.MAX_VALUE;
+        long query = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            IndexedFeatureCollection indexed = new IndexedFeatureCollection(fc, type.create(capacity));
+            // The packed indexes are built on the first query
+            indexed.query(new Envelope(0, 0, 0, 0));
+            long t1 = System.nanoTime();
+            int[] count = new int[1];
+            for (Envelope window : windows) {
+                indexed.query(window, f -> count[0]++);
+            }
+            long t2 = System.nanoTime();
+            build = Math.min(build, t1 - t0);
+            query = Math.min(query, t2 - t1);
+        }
+        return new long[] {build / 1000000, query / 1000000};
+    }
+
+    private static void compareCapacities(int count) {
+        String[] names = {"dense buildings", "sparse POIs", "mixed", "one dense town"};
+        FeatureDataset[] datasets = {denseBuildings(count, 3), sparsePois(count, 4), mixed(count, 5),
+                clustered(count, 0.99, 6)};
+        // Fewer queries on the clustered data, where the grid is very slow
+        FeatureDataset[] targets = {denseBuildings(count / 5, 7), sparsePois(count / 5, 8), mixed(count / 5, 9),
+                clustered(count / 200, 0.99, 10)};
+        for (int d = 0; d < datasets.length; d++) {
+            List<Envelope> windows = windows(targets[d], 20);
+            System.out.println(String.format("%s, %d features, %d queries: load factor %.1f, chosen index %s",
+                    names[d], datasets[d].size(), windows.size(),
+                    SpatialIndexType.estimateGridLoadFactor(datasets[d]), SpatialIndexType.choose(datasets[d])));
+            for (SpatialIndexType type : SpatialIndexType.values()) {
+                StringBuilder line = new StringBuilder(String.format("  %-8s", type));
+                for (int capacity : CAPACITIES) {
+                    long[] times = measure(datasets[d], type, capacity, windows);
+                    line.append(String.format("  %2d: %4d + %4d ms", capacity, times[0], times[1]));
+                }
+                System.out.println(line);
+            }
+        }
+    }
+
+    private static void compareClustering(int count) {
+        // One query per feature, like the matching of two layers of the same size
+        System.out.println(String.format("%d features, more and more clustered, as many queries, build + queries"
+                + " in ms (limit %d)", count, SpatialIndexType.MAX_GRID_LOAD_FACTOR));
+        for (double fraction : new double[] {0, 0.01, 0.02, 0.03, 0.05, 0.07, 0.1, 0.15, 0.2}) {
+            FeatureDataset dataset = clustered(count, fraction, 11);
+            List<Envelope> windows = windows(clustered(count, fraction, 12), 20);
+            long[] grid = measure(dataset, SpatialIndexType.GRID,
+                    SpatialIndexType.GRID.getDefaultNodeCapacity(), windows);
+            long[] tree = measure(dataset, SpatialIndexType.HPRTREE,
+                    SpatialIndexType.HPRTREE.getDefaultNodeCapacity(), windows);
+            System.out.println(String.format("  %5.1f%% clustered: load factor %6.1f, GRID %4d + %5d,"
+                    + " HPRTREE %4d + %5d, chosen %s", fraction * 100,
+                    SpatialIndexType.estimateGridLoadFactor(dataset), grid[0], grid[1], tree[0], tree[1],
+                    SpatialIndexType.choose(dataset)));
+        }
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        compareCapacities(count);
+        compareClustering(count);
+    }
+}
@@ -0,0 +1,170 @@
+package com.vividsolutions.jump.geom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.SpatialIndex;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.locationtech.jts.index.strtree.STRtree;
+
+/**
+ * Benchmark of the {@link DynamicSpatialIndex} against the STRtree(10) used by
+ * default by the IndexedFeatureCollection, which has to be rebuilt after each
+ * change, and a plain {@link Quadtree}: build, queries, and changes
+ * interleaved with queries. Then the cost of a change and its queries for
+ * several repacking thresholds, max(minChanges, size / repackRatio), on a
+ * small and a large index, with one and with many queries per change: the
+ * pending changes make the queries slower, repacking makes the changes slower.
+ * <p>
+ * Not part of the unit tests, run its main method with the plugin classes and
+ * JTS on the classpath. Argument: the number of items of the large index
+ * (default 50000).
+ */
+public final class DynamicSpatialIndexBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final double EXTENT = 5000;
+
+    private DynamicSpatialIndexBenchmark() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * @return random squares, which are also the items of the indexes
+     */
+    private static List<Envelope> randomSquares(int count, double size, long seed) {
+        Random random = new Random(seed);
+        List<Envelope> squares = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * EXTENT;
+            double y = random.nextDouble() * EXTENT;
+            squares.add(new Envelope(x, x + size, y, y + size));
+        }
+        return squares;
+    }
+
+    private static SpatialIndex build(SpatialIndex index, List<Envelope> items) {
+        for (Envelope item : items) {
+            index.insert(item, item);
+        }
+        // The packed indexes are built on the first query
+        index.query(new Envelope(0, 0, 0, 0));
+        return index;
+    }
+
+    private static long count(SpatialIndex index, List<Envelope> windows) {
+        long[] count = {0};
+        for (Envelope window : windows) {
+            index.query(window, item -> {
+                if (window.intersects((Envelope) item)) {
+                    count[0]++;
+                }
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * Adds the updates one by one, each followed by some queries, and removes
+     * every other one.
+     * @return the time per change, with its queries, in ns
+     */
+    private static long changes(SpatialIndex index, List<Envelope> updates, List<Envelope> windows,
+            int queriesPerChange) {
+        long start = System.nanoTime();
+        int w = 0;
+        for (int i = 0; i < updates.size(); i++) {
+            index.insert(updates.get(i), updates.get(i));
+            for (int q = 0; q < queriesPerChange; q++) {
+                index.query(windows.get(w++ % windows.size()), item -> { });
+            }
+            if (i % 2 == 1) {
+                index.remove(updates.get(i - 1), updates.get(i - 1));
+            }
+        }
+        return (System.nanoTime() - start) / (updates.size() + updates.size() / 2);
+    }
+
+    private static void compareIndexes(int size) {
+        List<Envelope> items = randomSquares(size, 5, 8);
+        List<Envelope> windows = randomSquares(20000, 30, 9);
+        List<Envelope> updates = randomSquares(2000, 5, 10);
+        String[] names = {"STRtree(10)", "Quadtree", "DynamicSpatialIndex"};
+        long[] build = new long[names.length];
+        long[] query = new long[names.length];
+        long[] change = new long[names.length];
+        long[] found = new long[names.length];
+        for (int k = 0; k < names.length; k++) {
+            build[k] = query[k] = change[k] = Long.MAX_VALUE;
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int k = 0; k < names.length; k++) {
+                long t0 = System.nanoTime();
+                SpatialIndex index = build(k == 0 ? new STRtree(10) : k == 1 ? new Quadtree()
+                        : new DynamicSpatialIndex(10), items);
+                long t1 = System.nanoTime();
+                found[k] = count(index, windows);
+                long t2 = System.nanoTime();
+                if (k == 0) {
+                    // Each change forces a rebuild, only measure a few of them
+                    List<Envelope> changed = new ArrayList<>(items);
+                    for (int i = 0; i < 5; i++) {
+                        changed.add(updates.get(i));
+                        build(new STRtree(10), changed).query(windows.get(i), item -> { });
+                    }
+                    change[k] = Math.min(change[k], (System.nanoTime() - t2) / 5);
+                } else {
+                    change[k] = Math.min(change[k], changes(index, updates, windows, 1));
+                }
+                build[k] = Math.min(build[k], t1 - t0);
+                query[k] = Math.min(query[k], t2 - t1);
+            }
+        }
+        if (found[0] != found[1] || found[0] != found[2]) {
+            throw new IllegalStateException("The indexes do not find the same items");
+        }
+        System.out.println(String.format("%d items, %d queries", size, windows.size()));
+        for (int k = 0; k < names.length; k++) {
+            System.out.println(String.format("  %-20s build %4d ms, queries %4d ms, change and query %7d us",
+                    names[k], build[k] / 1000000, query[k] / 1000000, change[k] / 1000));
+        }
+    }
+
+    private static void compareThresholds(int size, int queriesPerChange) {
+        List<Envelope> items = randomSquares(size, 5, 11);
+        List<Envelope> windows = randomSquares(2000, 30, 12);
+        // Enough changes to repack a few times with the largest thresholds
+        List<Envelope> updates = randomSquares(Math.max(4000, size / 2), 5, 13);
+        System.out.println(String.format("%d items, %d queries per change, time per change in ns,"
+                + " minChanges x repackRatio", size, queriesPerChange));
+        int[] ratios = {2, 4, 8, 16, 32};
+        StringBuilder header = new StringBuilder("            ");
+        for (int ratio : ratios) {
+            header.append(String.format("%8d", ratio));
+        }
+        System.out.println(header);
+        for (int minChanges : new int[] {16, 64, 256}) {
+            StringBuilder line = new StringBuilder(String.format("  %8d  ", minChanges));
+            for (int ratio : ratios) {
+                long best = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    SpatialIndex index = build(new DynamicSpatialIndex(10, minChanges, ratio), items);
+                    best = Math.min(best, changes(index, updates, windows, queriesPerChange));
+                }
+                line.append(String.format("%8d", best));
+            }
+            System.out.println(line);
+        }
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        compareIndexes(size);
+        for (int queriesPerChange : new int[] {1, 16}) {
+            compareThresholds(2000, queriesPerChange);
+            compareThresholds(size, queriesPerChange);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.task.DummyTaskMonitor;
+import com.vividsolutions.jump.util.CollectionUtil;
+
+/**
+ * Test class for {@link CompositeGenerator}
+ */
+class CompositeGeneratorTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    /**
+     * Terraced houses: a grid of adjacent 10m squares.
+     */
+    private static List<Feature> terraces(int columns, int rows) {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        FeatureDataset dataset = new FeatureDataset(schema);
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                Feature feature = new BasicFeature(schema);
+                feature.setGeometry(FACTORY.toGeometry(new Envelope(i * 10, i * 10 + 10, j * 10, j * 10 + 10)));
+                dataset.add(feature);
+            }
+        }
+        return dataset.getFeatures();
+    }
+
+    private static boolean isConnected(List<Feature> subset, CompositeGenerator generator) {
+        Set<Feature> reached = new HashSet<>();
+        List<Feature> queue = new ArrayList<>();
+        queue.add(subset.get(0));
+        reached.add(subset.get(0));
+        while (!queue.isEmpty()) {
+            for (Feature neighbour : generator.getNeighbours(queue.remove(queue.size() - 1))) {
+                if (subset.contains(neighbour) && reached.add(neighbour)) {
+                    queue.add(neighbour);
+                }
+            }
+        }
+        return reached.size() == subset.size();
+    }
+
+    @Test
+    void testConnectedSubsets() {
+        List<Feature> features = terraces(4, 3);
+        CompositeGenerator generator = new CompositeGenerator(features);
+        assertEquals(2, generator.getNeighbours(features.get(0)).size());
+        assertEquals(4, generator.getNeighbours(features.get(4)).size());
+        for (int k = 1; k <= 4; k++) {
+            Set<Set<Feature>> generated = new HashSet<>();
+            generator.generate(k, composite -> {
+                assertTrue(isConnected(composite, generator));
+                assertTrue(generated.add(new HashSet<>(composite)), "duplicate composite");
+            }, new DummyTaskMonitor());
+            // Brute force: all the connected subsets of up to k features
+            int expected = 0;
+            for (List<Feature> subset : CollectionUtil.combinations(features, k, null)) {
+                if (isConnected(subset, generator)) {
+                    expected++;
+                    assertTrue(generated.contains(new HashSet<>(subset)));
+                }
+            }
+            assertEquals(expected, generated.size());
+            assertEquals(expected, generator.getCompositeCount());
+        }
+        // Singletons, and the pairs with the 2 neighbours of a corner house
+        generator.generate(2, composite -> { }, new DummyTaskMonitor());
+        assertEquals(3, generator.getCompositeCount(features.get(0)));
+    }
+
+    @Test
+    void testCombinations() {
+        List<Integer> items = List.of(1, 2, 3, 4, 5);
+        assertEquals(31, CollectionUtil.combinations(items, 5, null).size());
+        // 1 + 4 + 6 combinations containing 3, of up to 3 items
+        List<List<Integer>> combinations = CollectionUtil.combinations(items, 3, 3);
+        assertEquals(11, combinations.size());
+        for (List<Integer> combination : combinations) {
+            assertTrue(combination.contains(3) && combination.size() <= 3);
+        }
+    }
+}
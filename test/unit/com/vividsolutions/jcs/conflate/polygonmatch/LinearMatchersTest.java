@@ -0,0 +1,91 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+
+import com.vividsolutions.jcs.algorithm.BandedFrechetDistance;
+import com.vividsolutions.jcs.algorithm.SegmentIndex;
+
+/**
+ * Test class for {@link FrechetDistanceMatcher}, {@link PartialHausdorffDistanceMatcher}
+ * and {@link LineOverlapMatcher}
+ */
+class LinearMatchersTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    /**
+     * A sinuous line of the given number of vertices, shifted by dy.
+     */
+    private static LineString road(int vertices, double length, double dy) {
+        Coordinate[] coordinates = new Coordinate[vertices];
+        for (int i = 0; i < vertices; i++) {
+            double x = length * i / (vertices - 1);
+            coordinates[i] = new Coordinate(x, dy + 20 * Math.sin(x / 50));
+        }
+        return FACTORY.createLineString(coordinates);
+    }
+
+    private static LineString reverse(LineString line) {
+        return line.reverse();
+    }
+
+    @Test
+    void testParallelRoads() {
+        LineString reference = road(3000, 3000, 0);
+        LineString subject = reverse(road(500, 3000, 3));
+        LineString other = road(500, 3000, 40);
+        FeatureMatcher[] matchers = {
+                new FrechetDistanceMatcher(10, 0.1),
+                new PartialHausdorffDistanceMatcher(10, 0.9),
+                new LineOverlapMatcher(10, 20)};
+        for (FeatureMatcher matcher : matchers) {
+            IndependentCandidateMatcher m = (IndependentCandidateMatcher) matcher;
+            assertTrue(m.match(reference, subject) > 0.6, matcher.getClass().getSimpleName());
+            assertEquals(0, m.match(reference, other), 1e-9, matcher.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testPartialOverlap() {
+        LineString reference = road(100, 1000, 0);
+        LineString half = FACTORY.createLineString(new Coordinate[] {new Coordinate(0, 1), new Coordinate(500, 1)});
+        LineString straight = FACTORY.createLineString(new Coordinate[] {new Coordinate(0, 1), new Coordinate(1000, 1)});
+        // Only the crossings of the sinuous line with the straight line overlap
+        double crossing = new LineOverlapMatcher(5, 20).match(reference, straight);
+        LineString flat = FACTORY.createLineString(new Coordinate[] {new Coordinate(0, 0), new Coordinate(1000, 0)});
+        double score = new LineOverlapMatcher(5, 20).match(flat, half);
+        assertEquals(1000.0 / 1500, score, 0.01);
+        assertTrue(crossing < 0.2);
+        // Perpendicular lines don't overlap
+        LineString perpendicular = FACTORY.createLineString(new Coordinate[] {new Coordinate(250, -100), new Coordinate(250, 100)});
+        assertEquals(0, new LineOverlapMatcher(5, 20).match(flat, perpendicular), 1e-9);
+    }
+
+    @Test
+    void testFrechetAgainstFullDynamicProgramming() {
+        double[] p = new SegmentIndex(road(40, 400, 0)).densify(0, 200);
+        double[] q = new SegmentIndex(road(70, 400, 2)).densify(0, 150);
+        int n = p.length / 2;
+        int m = q.length / 2;
+        double[][] ca = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                double d = Math.hypot(p[2 * i] - q[2 * j], p[2 * i + 1] - q[2 * j + 1]);
+                double best = i == 0 && j == 0 ? 0 : Double.POSITIVE_INFINITY;
+                if (i > 0) best = Math.min(best, ca[i - 1][j]);
+                if (j > 0) best = Math.min(best, ca[i][j - 1]);
+                if (i > 0 && j > 0) best = Math.min(best, ca[i - 1][j - 1]);
+                ca[i][j] = Math.max(d, best);
+            }
+        }
+        assertEquals(ca[n - 1][m - 1], BandedFrechetDistance.distance(p, q, false, 1, Double.POSITIVE_INFINITY), 1e-9);
+        assertEquals(ca[n - 1][m - 1], BandedFrechetDistance.distance(p, q, false, 0.1, Double.POSITIVE_INFINITY), 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, BandedFrechetDistance.distance(p, q, false, 0.1, ca[n - 1][m - 1] / 2));
+    }
+}
@@ -0,0 +1,151 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.feature.IndexedFeatureCollection;
+import com.vividsolutions.jump.task.DummyTaskMonitor;
+
+/**
+ * Test class for {@link OffsetEstimator} and {@link OffsetCorrectingFCMatchFinder}
+ */
+class OffsetCorrectingFCMatchFinderTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static FeatureSchema schema() {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        return schema;
+    }
+
+    /**
+     * A grid of 10m squares, 30m apart, shifted by the given offset with some noise.
+     */
+    private static FeatureDataset buildings(double dx, double dy, double noise, long seed) {
+        Random random = new Random(seed);
+        FeatureDataset dataset = new FeatureDataset(schema());
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 20; j++) {
+                double x = i * 30 + dx + noise * (random.nextDouble() - 0.5);
+                double y = j * 30 + dy + noise * (random.nextDouble() - 0.5);
+                Feature feature = new BasicFeature(dataset.getFeatureSchema());
+                feature.setGeometry(FACTORY.toGeometry(new Envelope(x, x + 10, y, y + 10)));
+                dataset.add(feature);
+            }
+        }
+        return dataset;
+    }
+
+    @Test
+    void testEstimateShift() {
+        FeatureDataset reference = buildings(0, 0, 0, 0);
+        FeatureDataset subject = buildings(7, -4, 0.4, 1);
+        Coordinate offset = new OffsetEstimator(20).estimate(reference, new IndexedFeatureCollection(subject));
+        assertNotNull(offset);
+        assertEquals(7, offset.x, 0.3);
+        assertEquals(-4, offset.y, 0.3);
+    }
+
+    @Test
+    void testNoDominantShift() {
+        FeatureDataset reference = buildings(0, 0, 0, 0);
+        FeatureDataset subject = new FeatureDataset(schema());
+        Random random = new Random(2);
+        for (int i = 0; i < 40; i++) {
+            double x = random.nextDouble() * 600;
+            double y = random.nextDouble() * 600;
+            Feature feature = new BasicFeature(subject.getFeatureSchema());
+            feature.setGeometry(FACTORY.createPoint(new Coordinate(x, y)));
+            subject.add(feature);
+        }
+        assertNull(new OffsetEstimator(20).estimate(reference, new IndexedFeatureCollection(subject)));
+    }
+
+    @Test
+    void testTightWindowOnShiftedData() {
+        FeatureDataset reference = buildings(0, 0, 0, 0);
+        FeatureDataset subject = buildings(12, 9, 0.4, 3);
+        FCMatchFinder basic = new BasicFCMatchFinder(new ChainMatcher(new FeatureMatcher[] {
+                new WindowMatcher(2), new CentroidDistanceMatcher(2)}));
+        OffsetCorrectingFCMatchFinder finder = new OffsetCorrectingFCMatchFinder(20, basic);
+        Map<Feature, Matches> map = finder.match(new IndexedFeatureCollection(reference),
+                new IndexedFeatureCollection(subject), new DummyTaskMonitor());
+        assertNotNull(finder.getEstimatedOffset());
+        assertEquals(reference.size(), map.size());
+        for (int i = 0; i < reference.size(); i++) {
+            Matches matches = map.get(reference.getFeatures().get(i));
+            assertNotNull(matches);
+            assertSame(subject.getFeatures().get(i), matches.getTopMatch());
+        }
+    }
+
+    /**
+     * The first square of the reference is split in two halves, only matched
+     * by their union.
+     */
+    @Test
+    void testUnioningFinderOnShiftedData() {
+        FeatureDataset reference = buildings(0, 0, 0, 0);
+        Feature whole = reference.getFeatures().get(0);
+        reference.remove(whole);
+        Feature left = new BasicFeature(reference.getFeatureSchema());
+        left.setGeometry(FACTORY.toGeometry(new Envelope(0, 5, 0, 10)));
+        Feature right = new BasicFeature(reference.getFeatureSchema());
+        right.setGeometry(FACTORY.toGeometry(new Envelope(5, 10, 0, 10)));
+        reference.add(left);
+        reference.add(right);
+        FeatureDataset subject = buildings(12, 9, 0.4, 3);
+        FCMatchFinder unioning = new TargetUnioningFCMatchFinder(2, new BasicFCMatchFinder(new ChainMatcher(
+                new FeatureMatcher[] {new WindowMatcher(2), new CentroidDistanceMatcher(2)})));
+        OffsetCorrectingFCMatchFinder finder = new OffsetCorrectingFCMatchFinder(20, unioning);
+        Map<Feature, Matches> map = finder.match(new IndexedFeatureCollection(reference),
+                new IndexedFeatureCollection(subject), new DummyTaskMonitor());
+        assertNotNull(finder.getEstimatedOffset());
+        Set<Feature> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        targets.addAll(reference.getFeatures());
+        assertEquals(targets, map.keySet());
+        assertSame(subject.getFeatures().get(0), map.get(left).getTopMatch());
+        assertSame(subject.getFeatures().get(0), map.get(right).getTopMatch());
+    }
+
+    @Test
+    void testCompositeTargets() {
+        FeatureDataset reference = buildings(0, 0, 0, 0);
+        FeatureDataset subject = buildings(12, 9, 0.4, 3);
+        // one composite of the first two targets
+        FCMatchFinder composing = (targetFC, candidateFC, monitor) -> Collections.singletonMap(
+                new TargetUnioningFCMatchFinder.CompositeFeature(targetFC.getFeatureSchema(),
+                        targetFC.getFeatures().subList(0, 2)),
+                new Matches(candidateFC.getFeatureSchema()));
+        Map<Feature, Matches> map = new OffsetCorrectingFCMatchFinder(20, composing).match(
+                new IndexedFeatureCollection(reference), new IndexedFeatureCollection(subject),
+                new DummyTaskMonitor());
+        assertEquals(1, map.size());
+        TargetUnioningFCMatchFinder.CompositeFeature composite =
+                (TargetUnioningFCMatchFinder.CompositeFeature) map.keySet().iterator().next();
+        assertEquals(2, composite.getFeatures().size());
+        assertTrue(reference.getFeatures().contains(composite.getFeatures().get(0)));
+        assertTrue(reference.getFeatures().contains(composite.getFeatures().get(1)));
+        assertEquals(new Envelope(0, 10, 0, 40), composite.getGeometry().getEnvelopeInternal());
+    }
+}
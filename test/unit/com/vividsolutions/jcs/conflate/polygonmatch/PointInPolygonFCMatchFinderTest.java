@@ -0,0 +1,68 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.feature.IndexedFeatureCollection;
+import com.vividsolutions.jump.task.DummyTaskMonitor;
+
+/**
+ * Test class for {@link PointInPolygonFCMatchFinder}
+ */
+class PointInPolygonFCMatchFinderTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static Feature add(FeatureDataset dataset, Geometry geometry) {
+        Feature feature = new BasicFeature(dataset.getFeatureSchema());
+        feature.setGeometry(geometry);
+        dataset.add(feature);
+        return feature;
+    }
+
+    @Test
+    void testAddressesToBuildings() {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        FeatureDataset addresses = new FeatureDataset(schema);
+        FeatureDataset buildings = new FeatureDataset(schema);
+        Feature building1 = add(buildings, FACTORY.toGeometry(new Envelope(0, 10, 0, 10)));
+        Feature building2 = add(buildings, FACTORY.toGeometry(new Envelope(12, 22, 0, 10)));
+        Feature inside = add(addresses, FACTORY.createPoint(new Coordinate(5, 5)));
+        Feature outside = add(addresses, FACTORY.createPoint(new Coordinate(11.5, 5)));
+        Feature far = add(addresses, FACTORY.createPoint(new Coordinate(50, 50)));
+
+        Map<Feature, Matches> map = new PointInPolygonFCMatchFinder(2).match(
+                addresses, new IndexedFeatureCollection(buildings), new DummyTaskMonitor());
+        assertEquals(3, map.size());
+        assertEquals(1, map.get(inside).size());
+        assertSame(building1, map.get(inside).getTopMatch());
+        assertEquals(1.0, map.get(inside).getTopScore());
+        // 1.5 from building1, 0.5 from building2
+        assertEquals(2, map.get(outside).size());
+        assertSame(building2, map.get(outside).getTopMatch());
+        assertEquals(0.75, map.get(outside).getTopScore(), 1e-9);
+        assertTrue(map.get(far).isEmpty());
+
+        // Reverse join, buildings as targets
+        map = new PointInPolygonFCMatchFinder(0).match(
+                buildings, new IndexedFeatureCollection(addresses), new DummyTaskMonitor());
+        assertEquals(1, map.get(building1).size());
+        assertSame(inside, map.get(building1).getTopMatch());
+        assertTrue(map.get(building2).isEmpty());
+    }
+}
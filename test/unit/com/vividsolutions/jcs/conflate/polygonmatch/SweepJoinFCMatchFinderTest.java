@@ -0,0 +1,106 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.feature.IndexedFeatureCollection;
+import com.vividsolutions.jump.geom.EnvelopeUtil;
+import com.vividsolutions.jump.geom.SweepJoin;
+import com.vividsolutions.jump.task.DummyTaskMonitor;
+
+/**
+ * Test class for {@link SweepJoinFCMatchFinder} and {@link SweepJoin}: the matches
+ * and the pairs must be the same as with the per target index queries of a
+ * {@link BasicFCMatchFinder} and a {@link WindowMatcher}. The timings are
+ * measured by SweepJoinBenchmark, outside the unit tests.
+ */
+class SweepJoinFCMatchFinderTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static FeatureDataset buildings(int count, double extent, long seed) {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        FeatureDataset dataset = new FeatureDataset(schema);
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * extent;
+            double y = random.nextDouble() * extent;
+            double size = 5 + random.nextDouble() * 20;
+            Feature feature = new BasicFeature(schema);
+            feature.setGeometry(FACTORY.toGeometry(new Envelope(x, x + size, y, y + size)));
+            dataset.add(feature);
+        }
+        return dataset;
+    }
+
+    @Test
+    void testSameResultAsWindowMatcher() {
+        FeatureDataset targets = buildings(5000, 2500, 1);
+        FeatureDataset candidates = buildings(5000, 2500, 2);
+        double buffer = 20;
+        FCMatchFinder basic = new BasicFCMatchFinder(new ChainMatcher(new FeatureMatcher[] {
+                new WindowMatcher(buffer), new CentroidDistanceMatcher(buffer)}));
+        FCMatchFinder sweep = new SweepJoinFCMatchFinder(buffer, new CentroidDistanceMatcher(buffer));
+        Map<Feature, Matches> expected = basic.match(new IndexedFeatureCollection(targets),
+                new IndexedFeatureCollection(candidates), new DummyTaskMonitor());
+        Map<Feature, Matches> actual = sweep.match(targets, candidates, new DummyTaskMonitor());
+        assertEquals(expected.size(), actual.size());
+        for (Feature target : targets) {
+            Matches e = expected.get(target);
+            Matches a = actual.get(target);
+            assertEquals(e.size(), a.size());
+            assertEquals(new HashSet<>(e.getFeatures()), new HashSet<>(a.getFeatures()));
+            if (!e.isEmpty()) {
+                assertSame(e.getTopMatch(), a.getTopMatch());
+                assertEquals(e.getTopScore(), a.getTopScore(), 1e-12);
+            }
+        }
+    }
+
+    /**
+     * Candidate generation only: one index query per target, against one sweep join.
+     */
+    @Test
+    void testSamePairsAsWindowQueries() {
+        FeatureDataset targets = buildings(5000, 2500, 3);
+        FeatureDataset candidates = buildings(5000, 2500, 4);
+        double buffer = 20;
+        Envelope[] targetEnvelopes = new Envelope[targets.size()];
+        Envelope[] candidateEnvelopes = new Envelope[candidates.size()];
+        for (int i = 0; i < targets.size(); i++) {
+            targetEnvelopes[i] = targets.getFeatures().get(i).getGeometry().getEnvelopeInternal();
+            candidateEnvelopes[i] = candidates.getFeatures().get(i).getGeometry().getEnvelopeInternal();
+        }
+        IndexedFeatureCollection indexedCandidates = new IndexedFeatureCollection(candidates);
+        long indexPairs = 0;
+        for (Envelope envelope : targetEnvelopes) {
+            indexPairs += indexedCandidates.query(EnvelopeUtil.expand(envelope, buffer)).size();
+        }
+        long[] sweepPairs = {0};
+        SweepJoin.join(targetEnvelopes, buffer, candidateEnvelopes, (t, c) -> sweepPairs[0]++);
+        assertEquals(indexPairs, sweepPairs[0]);
+    }
+
+    @Test
+    void testFlatEnvelopesOnTheSameLine() {
+        Envelope[] targets = {new Envelope(1, 1, 5, 5)};
+        Envelope[] candidates = {new Envelope(1, 1, 5, 5)};
+        long[] pairs = {0};
+        SweepJoin.join(targets, 0, candidates, (t, c) -> pairs[0]++);
+        assertEquals(1, pairs[0]);
+    }
+}
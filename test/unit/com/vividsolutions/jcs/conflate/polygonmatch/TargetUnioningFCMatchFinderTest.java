@@ -0,0 +1,94 @@
+package com.vividsolutions.jcs.conflate.polygonmatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jcs.conflate.polygonmatch.TargetUnioningFCMatchFinder.CompositeFeature;
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.feature.IndexedFeatureCollection;
+import com.vividsolutions.jump.task.DummyTaskMonitor;
+
+/**
+ * Test class for {@link TargetUnioningFCMatchFinder}
+ */
+class TargetUnioningFCMatchFinderTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static FeatureDataset dataset() {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        return new FeatureDataset(schema);
+    }
+
+    private static Feature add(FeatureDataset dataset, Envelope envelope) {
+        Feature feature = new BasicFeature(dataset.getFeatureSchema());
+        feature.setGeometry(FACTORY.toGeometry(envelope));
+        dataset.add(feature);
+        return feature;
+    }
+
+    @Test
+    void testLazyUnion() {
+        FeatureDataset houses = dataset();
+        Feature a = add(houses, new Envelope(0, 10, 0, 10));
+        Feature b = add(houses, new Envelope(10, 20, 0, 10));
+        Feature c = add(houses, new Envelope(20, 30, 0, 10));
+        CompositeFeature ab = new CompositeFeature(houses.getFeatureSchema(), Arrays.asList(a, b));
+        CompositeFeature abc = new CompositeFeature(houses.getFeatureSchema(), Arrays.asList(a, b, c), ab);
+        assertEquals(new Envelope(0, 30, 0, 10), abc.getEnvelope());
+        assertFalse(abc.isGeometryBuilt());
+        assertFalse(ab.isGeometryBuilt());
+        assertEquals(300, abc.getGeometry().getArea(), 1e-9);
+        assertTrue(abc.isGeometryBuilt());
+        // The union of the parent has been built and reused
+        assertTrue(ab.isGeometryBuilt());
+        assertTrue(abc.getGeometry().equalsTopo(FACTORY.toGeometry(new Envelope(0, 30, 0, 10))));
+        assertTrue(ab.compareTo(abc) < 0);
+    }
+
+    @Test
+    void testTerracedHouses() {
+        // A row of 50 houses, two of them mapped as a single building in the candidates
+        FeatureDataset houses = dataset();
+        FeatureDataset buildings = dataset();
+        for (int i = 0; i < 50; i++) {
+            add(houses, new Envelope(i * 10, i * 10 + 10, 0, 10));
+        }
+        Feature building = add(buildings, new Envelope(200, 220, 0, 10));
+        TargetUnioningFCMatchFinder finder = new TargetUnioningFCMatchFinder(3,
+                new BasicFCMatchFinder(new ChainMatcher(new FeatureMatcher[] {
+                        new WindowMatcher(0), new OverlapMatcher()})));
+        Map<Feature, Matches> map = finder.match(houses, new IndexedFeatureCollection(buildings),
+                new DummyTaskMonitor());
+        List<Feature> features = houses.getFeatures();
+        assertEquals(50, map.size());
+        assertSame(building, map.get(features.get(20)).getTopMatch());
+        assertSame(building, map.get(features.get(21)).getTopMatch());
+        assertEquals(1, map.get(features.get(20)).getTopScore(), 1e-9);
+        assertTrue(map.get(features.get(0)).isEmpty());
+        Integer unionID = finder.getUnionID(features.get(20));
+        assertNotNull(unionID);
+        assertEquals(unionID, finder.getUnionID(features.get(21)));
+        assertNull(finder.getUnionID(features.get(19)));
+        // 50 singletons, 49 pairs and 48 triples
+        assertEquals(3, finder.getCompositeCount(features.get(0)));
+        assertEquals(6, finder.getCompositeCount(features.get(25)));
+    }
+}
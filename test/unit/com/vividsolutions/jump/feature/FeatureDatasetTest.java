@@ -0,0 +1,90 @@
+package com.vividsolutions.jump.feature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Test class for {@link FeatureDataset}
+ */
+class FeatureDatasetTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static Feature square(FeatureSchema schema, Random random, double extent) {
+        double x = random.nextDouble() * extent;
+        double y = random.nextDouble() * extent;
+        Feature feature = new BasicFeature(schema);
+        feature.setGeometry(FACTORY.toGeometry(new Envelope(x, x + 5, y, y + 5)));
+        return feature;
+    }
+
+    private static List<Feature> scan(FeatureDataset dataset, Envelope window) {
+        List<Feature> result = new ArrayList<>();
+        for (Feature feature : dataset.getFeatures()) {
+            if (feature.getGeometry().getEnvelopeInternal().intersects(window)) {
+                result.add(feature);
+            }
+        }
+        return result;
+    }
+
+    private static void assertQueries(FeatureDataset dataset, Random random) {
+        for (int i = 0; i < 50; i++) {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            Envelope window = new Envelope(x, x + 40, y, y + 40);
+            // Same features, in the same order as the linear scan
+            assertEquals(scan(dataset, window), dataset.query(window));
+        }
+    }
+
+    @Test
+    void testIndexedQuery() {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        Random random = new Random(1);
+        FeatureDataset dataset = new FeatureDataset(schema);
+        for (int i = 0; i < 3000; i++) {
+            dataset.add(square(schema, random, 1000));
+        }
+        Feature empty = new BasicFeature(schema);
+        empty.setGeometry(FACTORY.createPolygon());
+        dataset.add(empty);
+        assertQueries(dataset, random);
+
+        // The index must follow the modifications
+        dataset.add(square(schema, random, 1000));
+        List<Feature> added = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            added.add(square(schema, random, 1000));
+        }
+        dataset.addAll(added);
+        assertQueries(dataset, random);
+        dataset.remove(dataset.getFeature(10));
+        assertQueries(dataset, random);
+        dataset.removeAll(added.subList(0, 200));
+        assertQueries(dataset, random);
+        dataset.remove(new Envelope(0, 500, 0, 500));
+        assertQueries(dataset, random);
+        Iterator<Feature> iterator = dataset.iterator();
+        for (int i = 0; i < 100; i++) {
+            iterator.next();
+            iterator.remove();
+        }
+        assertQueries(dataset, random);
+        dataset.getFeature(0).setGeometry(FACTORY.toGeometry(new Envelope(-100, -90, -100, -90)));
+        dataset.invalidateEnvelope();
+        assertEquals(1, dataset.query(new Envelope(-95, -95, -95, -95)).size());
+        dataset.clear();
+        assertEquals(0, dataset.query(new Envelope(0, 1000, 0, 1000)).size());
+    }
+}
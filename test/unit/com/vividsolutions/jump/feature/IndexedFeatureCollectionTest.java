@@ -0,0 +1,167 @@
+package com.vividsolutions.jump.feature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.index.ItemVisitor;
+import org.locationtech.jts.index.SpatialIndex;
+
+import com.vividsolutions.jump.geom.GridIndex;
+
+/**
+ * Test class for {@link IndexedFeatureCollection}
+ */
+class IndexedFeatureCollectionTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static FeatureDataset randomSquares(int count, double extent, double size, long seed) {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        FeatureDataset dataset = new FeatureDataset(schema);
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * extent;
+            double y = random.nextDouble() * extent;
+            Feature feature = new BasicFeature(schema);
+            feature.setGeometry(FACTORY.toGeometry(new Envelope(x, x + size, y, y + size)));
+            dataset.add(feature);
+        }
+        return dataset;
+    }
+
+    private static List<Envelope> randomWindows(int count, double extent, double size, long seed) {
+        Random random = new Random(seed);
+        List<Envelope> windows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * extent;
+            double y = random.nextDouble() * extent;
+            windows.add(new Envelope(x, x + size, y, y + size));
+        }
+        return windows;
+    }
+
+    @Test
+    void testVisitorQuery() {
+        FeatureDataset dataset = randomSquares(5000, 1000, 5, 1);
+        IndexedFeatureCollection indexed = new IndexedFeatureCollection(dataset);
+        for (Envelope window : randomWindows(200, 1000, 30, 2)) {
+            List<Feature> visited = new ArrayList<>();
+            indexed.query(window, visited::add);
+            assertEquals(indexed.query(window), visited);
+            List<Feature> scanned = new ArrayList<>();
+            dataset.query(window, scanned::add);
+            assertEquals(dataset.query(window), scanned);
+            assertEquals(visited.size(), scanned.size());
+        }
+    }
+
+    /**
+     * A spatial index whose list query fails, to check that the visitor query
+     * of the collection does not build the intermediate lists.
+     */
+    private static final class VisitorOnlyIndex implements SpatialIndex {
+        private final SpatialIndex index;
+
+        VisitorOnlyIndex(SpatialIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void insert(Envelope itemEnv, Object item) {
+            index.insert(itemEnv, item);
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public List query(Envelope searchEnv) {
+            throw new UnsupportedOperationException("List query");
+        }
+
+        @Override
+        public void query(Envelope searchEnv, ItemVisitor visitor) {
+            index.query(searchEnv, visitor);
+        }
+
+        @Override
+        public boolean remove(Envelope itemEnv, Object item) {
+            return index.remove(itemEnv, item);
+        }
+    }
+
+    /**
+     * The visitor query sees the same features as the list query, with every
+     * type of index, without going through the list query of the index. The
+     * allocations of both are measured by QueryAllocationBenchmark.
+     */
+    @Test
+    void testVisitorQueryWithoutList() {
+        FeatureDataset dataset = randomSquares(5000, 1000, 5, 3);
+        List<Envelope> windows = randomWindows(200, 1000, 30, 4);
+        for (SpatialIndexType type : SpatialIndexType.values()) {
+            int capacity = type.getDefaultNodeCapacity();
+            IndexedFeatureCollection indexed = new IndexedFeatureCollection(dataset, type.create(capacity));
+            IndexedFeatureCollection visitorOnly = new IndexedFeatureCollection(dataset,
+                    new VisitorOnlyIndex(type.create(capacity)));
+            for (Envelope window : windows) {
+                List<Feature> visited = new ArrayList<>();
+                visitorOnly.query(window, visited::add);
+                assertEquals(visited.size(), new HashSet<>(visited).size(), type + " duplicates");
+                assertEquals(new HashSet<>(indexed.query(window)), new HashSet<>(visited), type.toString());
+            }
+        }
+    }
+
+    @Test
+    void testModifiable() {
+        FeatureDataset dataset = randomSquares(2000, 1000, 5, 5);
+        assertFalse(new IndexedFeatureCollection(dataset).isModifiable());
+        assertThrows(UnsupportedOperationException.class,
+                () -> new IndexedFeatureCollection(dataset).add(dataset.getFeatures().get(0)));
+        IndexedFeatureCollection indexed = IndexedFeatureCollection.createModifiable(dataset);
+        assertTrue(indexed.isModifiable());
+        FeatureDataset added = randomSquares(500, 1000, 5, 6);
+        for (Feature feature : added) {
+            indexed.add(feature);
+        }
+        List<Feature> removed = new ArrayList<>(dataset.getFeatures().subList(0, 700));
+        indexed.removeAll(removed);
+        indexed.remove(dataset.getFeatures().get(0));
+        int removedInWindow = indexed.remove(new Envelope(0, 100, 0, 100)).size();
+        assertTrue(removedInWindow > 0);
+        assertTrue(indexed.query(new Envelope(0, 100, 0, 100)).isEmpty());
+        assertEquals(2000 + 500 - 700 - 1 - removedInWindow, indexed.size());
+        for (Envelope window : randomWindows(200, 1000, 30, 7)) {
+            // The wrapped dataset has been modified too, and is scanned linearly
+            assertEquals(new HashSet<>(dataset.query(window)), new HashSet<>(indexed.query(window)));
+        }
+    }
+
+    @Test
+    void testModifiableGrid() {
+        FeatureDataset dataset = randomSquares(2000, 1000, 5, 11);
+        IndexedFeatureCollection indexed = new IndexedFeatureCollection(dataset, new GridIndex());
+        assertTrue(indexed.isModifiable());
+        indexed.query(new Envelope(0, 100, 0, 100));
+        for (Feature feature : randomSquares(500, 1000, 5, 12)) {
+            indexed.add(feature);
+        }
+        indexed.removeAll(new ArrayList<>(dataset.getFeatures().subList(0, 700)));
+        indexed.remove(dataset.getFeatures().get(0));
+        assertEquals(2000 + 500 - 700 - 1, indexed.size());
+        for (Envelope window : randomWindows(200, 1000, 30, 13)) {
+            assertEquals(new HashSet<>(dataset.query(window)), new HashSet<>(indexed.query(window)));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.vividsolutions.jump.feature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jcs.conflate.polygonmatch.CentroidDistanceMatcher;
+import com.vividsolutions.jcs.conflate.polygonmatch.ChainMatcher;
+import com.vividsolutions.jcs.conflate.polygonmatch.FeatureMatcher;
+import com.vividsolutions.jcs.conflate.polygonmatch.Matches;
+import com.vividsolutions.jcs.conflate.polygonmatch.WindowMatcher;
+
+/**
+ * Test class for {@link PointFeatureCollection}
+ */
+class PointFeatureCollectionTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static FeatureDataset randomPoints(int count, double width, double height, long seed) {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        FeatureDataset dataset = new FeatureDataset(schema);
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            Feature feature = new BasicFeature(schema);
+            feature.setGeometry(FACTORY.createPoint(new Coordinate(
+                    random.nextDouble() * width, random.nextDouble() * height)));
+            dataset.add(feature);
+        }
+        return dataset;
+    }
+
+    @Test
+    void testQuery() {
+        for (double height : new double[] {1000, 1, 0}) {
+            FeatureDataset dataset = randomPoints(2000, 1000, height, 1);
+            PointFeatureCollection points = new PointFeatureCollection(dataset);
+            Random random = new Random(2);
+            for (int i = 0; i < 100; i++) {
+                double x = random.nextDouble() * 1100 - 50;
+                double y = random.nextDouble() * (height + 100) - 50;
+                Envelope window = new Envelope(x, x + 40, y, y + 40);
+                assertEquals(new HashSet<>(dataset.query(window)), new HashSet<>(points.query(window)));
+            }
+        }
+    }
+
+    @Test
+    void testDistanceFastPath() {
+        FeatureDataset targets = randomPoints(200, 1000, 1000, 3);
+        FeatureDataset candidates = randomPoints(2000, 1000, 1000, 4);
+        PointFeatureCollection points = new PointFeatureCollection(candidates);
+        FeatureMatcher chain = new ChainMatcher(new FeatureMatcher[] {
+                new WindowMatcher(30), new CentroidDistanceMatcher(30)});
+        for (Feature target : targets) {
+            Matches expected = chain.match(target, candidates);
+            Matches actual = chain.match(target, points);
+            assertEquals(expected.size(), actual.size());
+            assertEquals(expected.getTopMatch(), actual.getTopMatch());
+            assertEquals(expected.getTopScore(), actual.getTopScore(), 1e-9);
+            actual = new CentroidDistanceMatcher(30).match(target, points);
+            assertEquals(expected.size(), actual.size());
+            assertEquals(expected.getTopMatch(), actual.getTopMatch());
+        }
+    }
+
+    @Test
+    void testContainsOnlyPoints() {
+        FeatureDataset dataset = randomPoints(10, 10, 10, 5);
+        assertTrue(PointFeatureCollection.containsOnlyPoints(dataset));
+        Feature polygon = new BasicFeature(dataset.getFeatureSchema());
+        polygon.setGeometry(FACTORY.toGeometry(new Envelope(0, 1, 0, 1)));
+        dataset.add(polygon);
+        assertFalse(PointFeatureCollection.containsOnlyPoints(dataset));
+    }
+}
@@ -0,0 +1,136 @@
+package com.vividsolutions.jump.feature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jump.geom.EnvelopeUtil;
+
+/**
+ * Test class for {@link SpatialIndexType}
+ */
+class SpatialIndexTypeTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static FeatureSchema schema() {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        return schema;
+    }
+
+    private static void addSquare(FeatureDataset dataset, double x, double y, double size) {
+        Feature feature = new BasicFeature(dataset.getFeatureSchema());
+        feature.setGeometry(FACTORY.toGeometry(new Envelope(x, x + size, y, y + size)));
+        dataset.add(feature);
+    }
+
+    private static void addPoint(FeatureDataset dataset, double x, double y) {
+        Feature feature = new BasicFeature(dataset.getFeatureSchema());
+        feature.setGeometry(FACTORY.createPoint(new Coordinate(x, y)));
+        dataset.add(feature);
+    }
+
+    /** Buildings of 8 to 25 m in towns of a few hundred meters, in a 50 km square. */
+    static FeatureDataset denseBuildings(int count, long seed) {
+        FeatureDataset dataset = new FeatureDataset(schema());
+        Random random = new Random(seed);
+        int towns = Math.max(1, count / 2000);
+        for (int t = 0; t < towns; t++) {
+            double cx = random.nextDouble() * 50000;
+            double cy = random.nextDouble() * 50000;
+            for (int i = 0; i < count / towns; i++) {
+                addSquare(dataset, cx + random.nextGaussian() * 400, cy + random.nextGaussian() * 400,
+                        8 + random.nextDouble() * 17);
+            }
+        }
+        return dataset;
+    }
+
+    /** Points uniformly spread in a 50 km square. */
+    static FeatureDataset sparsePois(int count, long seed) {
+        FeatureDataset dataset = new FeatureDataset(schema());
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            addPoint(dataset, random.nextDouble() * 50000, random.nextDouble() * 50000);
+        }
+        return dataset;
+    }
+
+    /** Buildings in towns, rural points and a few large land use areas. */
+    static FeatureDataset mixed(int count, long seed) {
+        FeatureDataset dataset = denseBuildings(count / 2, seed);
+        Random random = new Random(seed + 1);
+        for (int i = 0; i < count / 2; i++) {
+            if (i % 50 == 0) {
+                addSquare(dataset, random.nextDouble() * 50000, random.nextDouble() * 50000,
+                        200 + random.nextDouble() * 2000);
+            } else {
+                addPoint(dataset, random.nextDouble() * 50000, random.nextDouble() * 50000);
+            }
+        }
+        return dataset;
+    }
+
+    /** One very dense town, and a few points in a 500 km square. */
+    static FeatureDataset skewed(int count, long seed) {
+        FeatureDataset dataset = new FeatureDataset(schema());
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            if (i % 100 == 0) {
+                addPoint(dataset, random.nextDouble() * 500000, random.nextDouble() * 500000);
+            } else {
+                addSquare(dataset, 250000 + random.nextGaussian() * 300, 250000 + random.nextGaussian() * 300,
+                        5 + random.nextDouble() * 10);
+            }
+        }
+        return dataset;
+    }
+
+    /** Windows around the features, like the ones of the WindowMatcher. */
+    private static List<Envelope> windows(FeatureCollection fc, double buffer) {
+        List<Envelope> windows = new ArrayList<>();
+        for (Feature feature : fc) {
+            windows.add(EnvelopeUtil.expand(FeatureUtil.getEnvelope(feature), buffer));
+        }
+        return windows;
+    }
+
+    @Test
+    void testQueries() {
+        FeatureDataset dataset = mixed(4000, 1);
+        List<Envelope> windows = windows(mixed(400, 2), 20);
+        windows.add(new Envelope(-10, 60000, -10, 60000));
+        windows.add(new Envelope(100000, 100001, 0, 1));
+        for (SpatialIndexType type : SpatialIndexType.values()) {
+            for (int capacity : new int[] {2, 10}) {
+                IndexedFeatureCollection indexed = new IndexedFeatureCollection(dataset, type.create(capacity));
+                for (Envelope window : windows) {
+                    List<Feature> found = new ArrayList<>();
+                    indexed.query(window, found::add);
+                    assertEquals(found.size(), new HashSet<>(found).size(), type + " duplicates");
+                    assertEquals(new HashSet<>(dataset.query(window)), new HashSet<>(found), type.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testChoose() {
+        assertSame(SpatialIndexType.GRID, SpatialIndexType.choose(sparsePois(10000, 1)));
+        assertSame(SpatialIndexType.GRID, SpatialIndexType.choose(denseBuildings(100000, 2)));
+        assertSame(SpatialIndexType.GRID, SpatialIndexType.choose(mixed(100000, 3)));
+        assertSame(SpatialIndexType.HPRTREE, SpatialIndexType.choose(skewed(10000, 4)));
+        assertSame(SpatialIndexType.GRID, SpatialIndexType.choose(sparsePois(1, 5)));
+        assertSame(SpatialIndexType.GRID, SpatialIndexType.choose(new FeatureDataset(schema())));
+    }
+}
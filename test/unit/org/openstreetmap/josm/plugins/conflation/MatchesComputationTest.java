@@ -0,0 +1,58 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.testutils.annotations.Projection;
+
+import com.vividsolutions.jcs.conflate.polygonmatch.BasicFCMatchFinder;
+import com.vividsolutions.jcs.conflate.polygonmatch.CentroidDistanceMatcher;
+
+/**
+ * Test class for {@link MatchesComputation}
+ */
+@BasicPreferences
+@Projection
+class MatchesComputationTest {
+
+    private static Node node(DataSet dataSet, double lat, double lon) {
+        Node node = new Node(new LatLon(lat, lon));
+        node.put("amenity", "bench");
+        dataSet.addPrimitive(node);
+        return node;
+    }
+
+    @Test
+    void testComputeMatchesWithoutMap() {
+        DataSet reference = new DataSet();
+        DataSet subject = new DataSet();
+        Node ref1 = node(reference, 0, 0);
+        Node ref2 = node(reference, 1, 1);
+        Node sub1 = node(subject, 0, 0.0001);
+        Node sub2 = node(subject, 2, 2);
+        // untagged, not matched
+        subject.addPrimitive(new Node(new LatLon(0, 0)));
+
+        MatchesComputation.Result result = MatchesComputation.computeMatches(reference, subject,
+                new BasicFCMatchFinder(new CentroidDistanceMatcher(100)));
+        assertEquals(1, result.getMatches().size());
+        SimpleMatch match = result.getMatches().get(0);
+        assertSame(ref1, match.getReferenceObject());
+        assertSame(sub1, match.getSubjectObject());
+        // about 11 m with the Mercator projection
+        assertEquals(ConflationUtils.getCenter(ref1).distance(ConflationUtils.getCenter(sub1)),
+                (double) match.getDistance(), 1e-6);
+        assertEquals(Collections.singletonList(ref2), result.getReferenceOnly());
+        assertEquals(Collections.singletonList(sub2), result.getSubjectOnly());
+        assertTrue(result.getErrors().isEmpty());
+    }
+}
@@ -0,0 +1,140 @@
+package org.openstreetmap.josm.plugins.conflation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link OrderStatisticTree}
+ */
+class OrderStatisticTreeTest {
+
+    private static void assertSameContent(List<Integer> expected, OrderStatisticTree<Integer> tree) {
+        assertEquals(expected.size(), tree.size());
+        assertEquals(expected, tree.toList());
+        List<Integer> iterated = new ArrayList<>();
+        tree.forEach(iterated::add);
+        assertEquals(expected, iterated);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), tree.get(i));
+            assertEquals(i, tree.indexOf(expected.get(i)));
+        }
+    }
+
+    @Test
+    void testSingleOperations() {
+        Random random = new Random(1);
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Integer value = random.nextInt(2000);
+            int index = Collections.binarySearch(expected, value);
+            if (random.nextInt(3) > 0) {
+                assertEquals(index >= 0 ? -1 : -index - 1, tree.add(value));
+                if (index < 0) {
+                    expected.add(-index - 1, value);
+                }
+            } else {
+                assertEquals(index >= 0 ? index : -1, tree.remove(value));
+                if (index >= 0) {
+                    expected.remove(index);
+                }
+            }
+        }
+        assertSameContent(expected, tree);
+        assertEquals(-1, tree.indexOf(-1));
+        // Sorted insertions must not degenerate into a list
+        tree.clear();
+        for (int i = 0; i < 100000; i++) {
+            tree.add(i);
+        }
+        assertEquals(54321, tree.indexOf(54321));
+    }
+
+    /**
+     * The positions returned by the bulk operations must be the ones of the
+     * equivalent single operations, in both the bulk and the incremental cases.
+     */
+    @Test
+    void testBulkOperations() {
+        Random random = new Random(2);
+        for (int count : new int[] {3, 50, 3000}) {
+            OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                expected.add(2 * i);
+            }
+            tree.addAll(expected);
+            assertSameContent(expected, tree);
+
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                values.add(random.nextInt(5000));
+            }
+            // Added one by one in ascending order
+            List<Integer> sorted = new ArrayList<>(values);
+            Collections.sort(sorted);
+            List<Integer> indices = new ArrayList<>();
+            for (Integer value : sorted) {
+                int index = Collections.binarySearch(expected, value);
+                if (index < 0) {
+                    expected.add(-index - 1, value);
+                    indices.add(-index - 1);
+                }
+            }
+            assertArrayEquals(indices.stream().mapToInt(i -> i).toArray(), tree.addAll(values));
+            assertSameContent(expected, tree);
+
+            // Removed one by one in descending order
+            indices.clear();
+            for (int k = sorted.size() - 1; k >= 0; k--) {
+                int index = Collections.binarySearch(expected, sorted.get(k) + 1);
+                if (index >= 0) {
+                    expected.remove(index);
+                    indices.add(0, index);
+                }
+            }
+            List<Integer> removed = new ArrayList<>();
+            values.forEach(v -> removed.add(v + 1));
+            assertArrayEquals(indices.stream().mapToInt(i -> i).toArray(), tree.removeAll(removed));
+            assertSameContent(expected, tree);
+        }
+    }
+
+    @Test
+    void testBatchSameAsSortedList() {
+        int n = 20000;
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, new Random(3));
+        List<Integer> batch = values.subList(0, 1000);
+
+        List<Integer> list = new ArrayList<>(values);
+        Collections.sort(list);
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        tree.addAll(values);
+
+        for (Integer value : batch) {
+            list.remove(Collections.binarySearch(list, value));
+            tree.remove(value);
+        }
+        for (Integer value : batch) {
+            int index = Collections.binarySearch(list, value);
+            list.add(-index - 1, value);
+            tree.add(value);
+        }
+        assertEquals(list, tree.toList());
+        tree.removeAll(batch);
+        tree.addAll(batch);
+        assertEquals(list, tree.toList());
+    }
+}
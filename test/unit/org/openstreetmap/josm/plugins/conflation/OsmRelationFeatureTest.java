@@ -0,0 +1,117 @@
+package org.openstreetmap.josm.plugins.conflation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.testutils.annotations.Projection;
+
+/**
+ * Test class for {@link OsmRelationFeature}
+ */
+@BasicPreferences
+@Projection
+class OsmRelationFeatureTest {
+
+    private static Node node(long id, double lat, double lon) {
+        Node node = new Node(id, 1);
+        node.setCoor(new LatLon(lat, lon));
+        return node;
+    }
+
+    private static Way way(long id, Node... nodes) {
+        Way way = new Way(id, 1);
+        way.setNodes(Arrays.asList(nodes));
+        return way;
+    }
+
+    /** A square of two outer ways, the second one reversed, with a closed inner way. */
+    private static Relation squareWithHole(long id) {
+        Node a = node(1, 0, 0);
+        Node b = node(2, 0, 0.01);
+        Node c = node(3, 0.01, 0.01);
+        Node d = node(4, 0.01, 0);
+        Node e = node(5, 0.004, 0.004);
+        Node f = node(6, 0.004, 0.006);
+        Node g = node(7, 0.006, 0.006);
+        Relation relation = new Relation(id, 1);
+        relation.put("type", "multipolygon");
+        relation.put("building", "yes");
+        relation.addMember(new RelationMember("outer", way(1, a, b, c)));
+        relation.addMember(new RelationMember("outer", way(2, a, d, c)));
+        relation.addMember(new RelationMember("inner", way(3, e, f, g, e)));
+        return relation;
+    }
+
+    @Test
+    void testLazyGeometry() {
+        Relation relation = squareWithHole(1);
+        OsmRelationFeature feature = new OsmRelationFeature(relation);
+        assertFalse(feature.isGeometryBuilt());
+        assertEquals("yes", feature.getString("building"));
+        assertFalse(feature.getEnvelope().isNull());
+
+        Geometry geometry = feature.getGeometry();
+        assertTrue(feature.isGeometryBuilt());
+        assertTrue(geometry instanceof Polygon);
+        assertEquals(1, ((Polygon) geometry).getNumInteriorRing());
+        assertEquals(feature.getEnvelope(), geometry.getEnvelopeInternal());
+
+        // Same versions: the geometry is reused
+        assertSame(geometry, new OsmRelationFeature(relation).getGeometry());
+        // Modified node: the geometry is rebuilt
+        relation.getMember(2).getWay().getNode(1).setModified(true);
+        Geometry rebuilt = new OsmRelationFeature(relation).getGeometry();
+        assertNotSame(geometry, rebuilt);
+        assertTrue(geometry.equalsExact(rebuilt, 1e-9));
+    }
+
+    @Test
+    void testTouchingRings() {
+        // Two squares touching at c: three ways meet at c
+        Node a = node(1, 0, 0);
+        Node b = node(2, 0, 0.01);
+        Node c = node(3, 0.01, 0.01);
+        Node d = node(4, 0.01, 0);
+        Node e = node(5, 0.01, 0.02);
+        Node f = node(6, 0.02, 0.02);
+        Node g = node(7, 0.02, 0.01);
+        Relation relation = new Relation(5, 1);
+        relation.put("type", "multipolygon");
+        relation.put("landuse", "farmland");
+        relation.addMember(new RelationMember("outer", way(1, a, b, c)));
+        relation.addMember(new RelationMember("outer", way(2, c, e, f, g, c)));
+        relation.addMember(new RelationMember("outer", way(3, c, d, a)));
+
+        Geometry geometry = new OsmRelationFeature(relation).getGeometry();
+        assertEquals(2, geometry.getNumGeometries());
+        assertEquals(2 * geometry.getGeometryN(0).getArea(), geometry.getArea(), 1e-3 * geometry.getArea());
+    }
+
+    @Test
+    void testInvalidRelations() {
+        Relation unclosed = new Relation(2, 1);
+        unclosed.put("type", "multipolygon");
+        unclosed.addMember(new RelationMember("outer", way(4, node(1, 0, 0), node(2, 0, 1), node(3, 1, 1))));
+        assertThrows(IllegalArgumentException.class, () -> new OsmRelationFeature(unclosed));
+
+        Relation route = new Relation(3, 1);
+        route.put("type", "route");
+        assertFalse(OsmRelationFeature.isSupported(route));
+        assertTrue(OsmRelationFeature.isSupported(squareWithHole(4)));
+    }
+}
@@ -0,0 +1,72 @@
+package org.openstreetmap.josm.plugins.conflation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.plugins.jts.JTSConverter;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.testutils.annotations.Projection;
+
+/**
+ * Test class for {@link PooledGeometryConverter}
+ */
+@BasicPreferences
+@Projection
+class PooledGeometryConverterTest {
+
+    private static Node node(long id, double lat, double lon) {
+        Node node = new Node(id, 1);
+        node.setCoor(new LatLon(lat, lon));
+        return node;
+    }
+
+    @Test
+    void testSameGeometriesAsJTSConverter() {
+        Node a = node(1, 0, 0);
+        Node b = node(2, 0, 0.001);
+        Node c = node(3, 0.001, 0.001);
+        Node d = node(4, 0.001, 0);
+        Node e = node(5, 0, 0.002);
+        Node f = node(6, 0.001, 0.002);
+        // Two terraced houses sharing the b-c wall, and a line
+        Way house1 = new Way(1, 1);
+        house1.setNodes(Arrays.asList(a, b, c, d, a));
+        Way house2 = new Way(2, 1);
+        house2.setNodes(Arrays.asList(b, e, f, c, b));
+        Way line = new Way(3, 1);
+        line.setNodes(Arrays.asList(a, e));
+        List<OsmPrimitive> primitives = Arrays.asList(house1, house2, line, f);
+
+        PooledGeometryConverter converter = new PooledGeometryConverter(primitives);
+        assertEquals(6, converter.getNodeCount());
+        JTSConverter jtsConverter = new JTSConverter(true);
+        for (OsmPrimitive primitive : primitives) {
+            Geometry expected = jtsConverter.convert(primitive);
+            Geometry geometry = converter.convert(primitive);
+            assertEquals(expected.getGeometryType(), geometry.getGeometryType());
+            assertTrue(expected.equalsExact(geometry, 1e-9), primitive.toString());
+        }
+        assertTrue(converter.convert(house1) instanceof Polygon);
+        assertTrue(converter.convert(line) instanceof LineString);
+    }
+
+    @Test
+    void testInvalidWay() {
+        Way way = new Way(1, 1);
+        way.setNodes(Arrays.asList(node(1, 0, 0)));
+        PooledGeometryConverter converter = new PooledGeometryConverter(Arrays.asList(way));
+        assertThrows(IllegalArgumentException.class, () -> converter.convert(way));
+    }
+}
@@ -0,0 +1,95 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link PrimitiveCopier}
+ */
+@BasicPreferences
+class PrimitiveCopierTest {
+    @Test
+    void testCopySharedNodes() {
+        DataSet dataSet = new DataSet();
+        Node a = new Node(new LatLon(0, 0));
+        Node b = new Node(new LatLon(0, 1));
+        Node c = new Node(new LatLon(1, 1));
+        Node d = new Node(new LatLon(1, 0));
+        Way w1 = new Way();
+        w1.setNodes(Arrays.asList(a, b, c));
+        Way w2 = new Way();
+        w2.setNodes(Arrays.asList(c, d, a));
+        Arrays.asList(a, b, c, d).forEach(dataSet::addPrimitive);
+        dataSet.addPrimitive(w1);
+        dataSet.addPrimitive(w2);
+        dataSet.setSelected(d);
+
+        PrimitiveCopier copier = new PrimitiveCopier();
+        List<PrimitiveData> first = copier.copy(Collections.singleton(w1));
+        assertEquals(4, first.size());
+        assertEquals(w1.getUniqueId(), first.get(3).getUniqueId());
+        // the nodes shared with w1 are not copied again
+        List<PrimitiveData> second = copier.copy(Arrays.asList(w2, a));
+        assertEquals(2, second.size());
+        assertEquals(d.getUniqueId(), second.get(0).getUniqueId());
+        assertEquals(w2.getUniqueId(), second.get(1).getUniqueId());
+        // the selection is not used
+        assertEquals(1, dataSet.getSelected().size());
+        assertTrue(dataSet.isSelected(d));
+        assertTrue(copier.copy(Collections.singleton(w1)).isEmpty());
+    }
+
+    @Test
+    void testCopyRelationMembers() {
+        DataSet dataSet = new DataSet();
+        Node a = new Node(new LatLon(0, 0));
+        Node b = new Node(new LatLon(0, 1));
+        Node label = new Node(new LatLon(0.5, 0.5));
+        Way outer = new Way();
+        outer.setNodes(Arrays.asList(a, b, a));
+        // Downloaded as a member only
+        Way incomplete = new Way(10);
+        Relation inner = new Relation();
+        Relation outerRelation = new Relation();
+        Arrays.asList(a, b, label).forEach(dataSet::addPrimitive);
+        dataSet.addPrimitive(outer);
+        dataSet.addPrimitive(incomplete);
+        dataSet.addPrimitive(inner);
+        dataSet.addPrimitive(outerRelation);
+        inner.addMember(new RelationMember("outer", outer));
+        inner.addMember(new RelationMember("outer", incomplete));
+        outerRelation.addMember(new RelationMember("", inner));
+        outerRelation.addMember(new RelationMember("label", label));
+        outerRelation.addMember(new RelationMember("", outerRelation));
+        dataSet.setSelected(b);
+
+        List<PrimitiveData> copies = new PrimitiveCopier().copy(Collections.singleton(outerRelation));
+        List<PrimitiveId> ids = copies.stream().map(PrimitiveData::getPrimitiveId).collect(Collectors.toList());
+        assertEquals(Arrays.asList(a.getPrimitiveId(), b.getPrimitiveId(), outer.getPrimitiveId(),
+                incomplete.getPrimitiveId(), inner.getPrimitiveId(), label.getPrimitiveId(),
+                outerRelation.getPrimitiveId()), ids);
+        assertTrue(copies.get(3).isIncomplete());
+        assertFalse(copies.get(4).isIncomplete());
+        // the selection is not used
+        assertEquals(1, dataSet.getSelected().size());
+        assertTrue(dataSet.isSelected(b));
+    }
+}
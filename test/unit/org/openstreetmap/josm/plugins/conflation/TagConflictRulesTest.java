@@ -0,0 +1,62 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.TagCollection;
+import org.openstreetmap.josm.plugins.conflation.TagConflictRules.Policy;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link TagConflictRules}
+ */
+@BasicPreferences
+class TagConflictRulesTest {
+    @Test
+    void testParse() {
+        assertNull(TagConflictRules.parse(" ,; "));
+        TagConflictRules rules = TagConflictRules.parse("name=prefer_subject; source=Concatenate invalid =x *=prefer_reference");
+        assertEquals(3, rules.getPolicies().size());
+        assertEquals(Policy.PREFER_SUBJECT, rules.getPolicy("name"));
+        assertEquals(Policy.CONCATENATE, rules.getPolicy("source"));
+        assertEquals(Policy.PREFER_REFERENCE, rules.getPolicy("height"));
+    }
+
+    @Test
+    void testResolve() {
+        Node reference = new Node(1);
+        reference.put("name", "Reference");
+        reference.put("source", "survey;import");
+        reference.put("height", "10");
+        Node subject = new Node(2);
+        subject.put("name", "Subject");
+        subject.put("source", "import");
+        subject.put("height", "12");
+        TagCollection tags = TagCollection.unionOfAllPrimitives(Arrays.asList(reference, subject));
+
+        TagConflictRules rules = TagConflictRules.parse("name=prefer_subject source=concatenate");
+        // no policy for height
+        assertNull(rules.resolve(tags, reference, subject));
+
+        rules.setPolicy(TagConflictRules.DEFAULT_KEY, Policy.PREFER_REFERENCE);
+        TagCollection resolved = rules.resolve(tags, reference, subject);
+        assertEquals("Subject", resolved.getJoinedValues("name"));
+        assertEquals("import;survey", resolved.getJoinedValues("source"));
+        assertEquals("10", resolved.getJoinedValues("height"));
+
+        rules.setPolicy("height", Policy.SKIP_MATCH);
+        assertNull(rules.resolve(tags, reference, subject));
+
+        // unknown timestamps
+        rules.setPolicy("height", Policy.KEEP_NEWEST);
+        assertNull(rules.resolve(tags, reference, subject));
+        reference.setRawTimestamp(100);
+        subject.setRawTimestamp(200);
+        assertEquals("12", rules.resolve(tags, reference, subject).getJoinedValues("height"));
+    }
+}
@@ -0,0 +1,70 @@
+package org.openstreetmap.josm.plugins.conflation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Test class for {@link UnmatchedObjectListModel}
+ */
+@BasicPreferences
+class UnmatchedObjectListModelTest {
+
+    private static List<OsmPrimitive> content(UnmatchedObjectListModel model) {
+        List<OsmPrimitive> content = new ArrayList<>();
+        for (int i = 0; i < model.getSize(); i++) {
+            content.add(model.getElementAt(i));
+        }
+        return content;
+    }
+
+    @Test
+    void testFilter() {
+        Node shop = new Node(1);
+        shop.put("shop", "bakery");
+        Node tree = new Node(2);
+        tree.put("natural", "tree");
+        Way building = new Way(3);
+        building.put("building", "yes");
+        Way house = new Way(4);
+        house.put("building", "house");
+
+        UnmatchedObjectListModel model = new UnmatchedObjectListModel();
+        model.addAll(Arrays.asList(shop, tree, building));
+        assertEquals(3, model.getSize());
+
+        model.setFilter(" Way  building ");
+        assertEquals(Arrays.asList(building), content(model));
+        assertEquals(3, model.getUnfilteredSize());
+        assertEquals(-1, model.indexOf(shop));
+        assertTrue(model.contains(shop));
+
+        // The index is updated with the list
+        model.addElement(house);
+        assertEquals(Arrays.asList(building, house), content(model));
+        model.setFilter("building=house");
+        assertEquals(Arrays.asList(house), content(model));
+        assertTrue(model.removeElement(building));
+        assertFalse(model.contains(building));
+
+        // and with the tags
+        tree.put("building", "house");
+        model.updateElement(tree);
+        assertEquals(Arrays.asList(tree, house), content(model));
+
+        model.setFilter("");
+        assertEquals(Arrays.asList(shop, tree, house), content(model));
+        model.setFilter("node");
+        assertEquals(Arrays.asList(shop, tree), content(model));
+    }
+}
@@ -0,0 +1,93 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.command.ChangeNodesCommand;
+import org.openstreetmap.josm.command.ChangePropertyCommand;
+import org.openstreetmap.josm.command.DeleteCommand;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link CompactChangesCommand}
+ */
+@BasicPreferences
+class CompactChangesCommandTest {
+    @Test
+    void testUndoRedo() {
+        DataSet dataSet = new DataSet();
+        Node a = new Node(new LatLon(0, 0));
+        Node b = new Node(new LatLon(0, 1));
+        a.put("name", "A");
+        dataSet.addPrimitive(a);
+        dataSet.addPrimitive(b);
+
+        CompactChangesCommand command = new CompactChangesCommand(dataSet);
+        assertTrue(command.executeAndRecord(new ChangePropertyCommand(dataSet, Arrays.asList(a, b), "name", "B")));
+        assertTrue(command.executeAndRecord(new DeleteCommand(dataSet, Collections.singleton(b))));
+        assertTrue(command.compact());
+        assertNull(command.getChildren());
+
+        Set<OsmPrimitive> modified = new HashSet<>();
+        Set<OsmPrimitive> deleted = new HashSet<>();
+        Set<OsmPrimitive> added = new HashSet<>();
+        command.fillModifiedData(modified, deleted, added);
+        assertEquals(Collections.singleton(a), modified);
+        assertEquals(Collections.singleton(b), deleted);
+        assertTrue(added.isEmpty());
+
+        command.undoCommand();
+        assertEquals("A", a.get("name"));
+        assertNull(b.get("name"));
+        assertFalse(b.isDeleted());
+
+        command.executeCommand();
+        assertEquals("B", a.get("name"));
+        assertEquals("B", b.get("name"));
+        assertTrue(b.isDeleted());
+    }
+
+    @Test
+    void testUndoRedoReplacedNodes() {
+        DataSet dataSet = new DataSet();
+        Node a = new Node(new LatLon(0, 0));
+        Node b = new Node(new LatLon(0, 1));
+        Node c = new Node(new LatLon(1, 0));
+        Node d = new Node(new LatLon(1, 1));
+        Way way = new Way();
+        for (Node node : Arrays.asList(a, b, c, d)) {
+            dataSet.addPrimitive(node);
+        }
+        way.setNodes(Arrays.asList(a, b));
+        dataSet.addPrimitive(way);
+
+        CompactChangesCommand command = new CompactChangesCommand(dataSet);
+        assertTrue(command.executeAndRecord(new ChangeNodesCommand(dataSet, way, Arrays.asList(c, d))));
+        assertTrue(command.executeAndRecord(new DeleteCommand(dataSet, Arrays.asList(a, b))));
+        assertTrue(command.compact());
+
+        command.undoCommand();
+        assertEquals(Arrays.asList(a, b), way.getNodes());
+        assertFalse(a.isDeleted());
+        assertFalse(b.isDeleted());
+
+        command.executeCommand();
+        assertEquals(Arrays.asList(c, d), way.getNodes());
+        assertTrue(a.isDeleted());
+        assertTrue(b.isDeleted());
+    }
+}
@@ -0,0 +1,83 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.conflation.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.plugins.conflation.SimpleMatch;
+import org.openstreetmap.josm.plugins.conflation.SimpleMatchList;
+import org.openstreetmap.josm.plugins.conflation.SimpleMatchSettings;
+import org.openstreetmap.josm.plugins.conflation.TagConflictRules;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.testutils.annotations.Main;
+import org.openstreetmap.josm.testutils.annotations.Projection;
+
+/**
+ * Unit tests of {@link ConflateMatchesCommand}
+ */
+@BasicPreferences
+@Main
+@Projection
+class ConflateMatchesCommandTest {
+
+    private static Node node(DataSet dataSet, double lat, double lon, String name, String source) {
+        Node node = new Node(new LatLon(lat, lon));
+        node.put("amenity", "bench");
+        node.put("name", name);
+        node.put("source", source);
+        dataSet.addPrimitive(node);
+        return node;
+    }
+
+    @Test
+    void testDeferredMatchNotCopied() {
+        DataSet referenceDataSet = new DataSet();
+        DataSet subjectDataSet = new DataSet();
+        // conflict on source, resolved by the rules
+        Node reference1 = node(referenceDataSet, 0, 0, "A", "survey");
+        Node subject1 = node(subjectDataSet, 0, 0.0001, "A", "import");
+        // conflict on name, skipped
+        Node reference2 = node(referenceDataSet, 1, 1, "B", "survey");
+        Node subject2 = node(subjectDataSet, 1, 1.0001, "C", "survey");
+        SimpleMatch match1 = new SimpleMatch(reference1, subject1, 1, 10);
+        SimpleMatch match2 = new SimpleMatch(reference2, subject2, 1, 10);
+        SimpleMatchList matches = new SimpleMatchList();
+        matches.addAll(Arrays.asList(match1, match2));
+
+        SimpleMatchSettings settings = new SimpleMatchSettings();
+        settings.referenceDataSet = referenceDataSet;
+        settings.referenceLayer = new OsmDataLayer(referenceDataSet, "reference", null);
+        settings.subjectDataSet = subjectDataSet;
+        settings.subjectLayer = new OsmDataLayer(subjectDataSet, "subject", null);
+        settings.isReplacingGeometry = true;
+        settings.mergeTags = new SimpleMatchSettings.All<>();
+        settings.overwriteTags = Collections.emptyList();
+        settings.tagConflictRules = TagConflictRules.parse("name=skip_match *=prefer_reference");
+        MainApplication.getLayerManager().addLayer(settings.subjectLayer);
+        try {
+            ConflateMatchesCommand command = new ConflateMatchesCommand(Arrays.asList(match1, match2), matches, settings);
+            assertTrue(command.executeCommand());
+            assertEquals(Collections.singletonList(match2), command.getDeferredMatches());
+            assertEquals(1, matches.size());
+            assertSame(match2, matches.get(0));
+            assertNull(subjectDataSet.getPrimitiveById(reference2.getPrimitiveId()));
+
+            command.undoCommand();
+            assertNull(subjectDataSet.getPrimitiveById(reference1.getPrimitiveId()));
+            assertEquals(2, matches.size());
+        } finally {
+            MainApplication.getLayerManager().removeLayer(settings.subjectLayer);
+        }
+    }
+}